@@ -0,0 +1,119 @@
+package org.sky.study.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.sky.study.security.JwtAuthenticationFilter;
+import org.sky.study.security.UserPrincipal;
+import org.sky.study.service.ClaimsCacheService;
+import org.sky.study.service.TokenRevocationService;
+import org.sky.study.service.impl.InMemoryClaimsCacheServiceImpl;
+import org.sky.study.service.impl.JwtServiceImpl;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link JwtAuthenticationFilter} in stateless mode for a
+ * token that is parsed and verified on every request and for one whose claims are
+ * cached. Revocations are answered by an always synchronized, empty stub, so
+ * neither side touches Redis.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args=JwtFilterBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private JwtAuthenticationFilter cachedFilter;
+    private JwtAuthenticationFilter uncachedFilter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtServiceImpl cachedJwtService = jwtService(new InMemoryClaimsCacheServiceImpl(new SimpleMeterRegistry(), 1000));
+        JwtServiceImpl uncachedJwtService = jwtService(new NoClaimsCache());
+        cachedFilter = new JwtAuthenticationFilter(cachedJwtService, null, true);
+        uncachedFilter = new JwtAuthenticationFilter(uncachedJwtService, null, true);
+        authorization = "Bearer " + cachedJwtService.generateToken(new UserPrincipal(42L, "user1", "",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @Benchmark
+    public Authentication cached() throws ServletException, IOException {
+        return authenticate(cachedFilter);
+    }
+
+    @Benchmark
+    public Authentication uncached() throws ServletException, IOException {
+        return authenticate(uncachedFilter);
+    }
+
+    private Authentication authenticate(JwtAuthenticationFilter filter) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/me/ratings");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private static JwtServiceImpl jwtService(ClaimsCacheService claimsCacheService) {
+        JwtServiceImpl jwtService = new JwtServiceImpl();
+        ReflectionTestUtils.setField(jwtService, "secretKey", "benchmarkSecretKey1234567890");
+        ReflectionTestUtils.setField(jwtService, "tokenRevocationService", new NoRevocations());
+        ReflectionTestUtils.setField(jwtService, "claimsCacheService", claimsCacheService);
+        return jwtService;
+    }
+
+    private static class NoClaimsCache implements ClaimsCacheService {
+
+        @Override
+        public Claims get(String token) {
+            return null;
+        }
+
+        @Override
+        public void put(String token, Claims claims) {
+        }
+    }
+
+    private static class NoRevocations implements TokenRevocationService {
+
+        @Override
+        public boolean isSynchronized() {
+            return true;
+        }
+
+        @Override
+        public boolean mightBeBlacklisted(String tokenId, long expiresAt) {
+            return false;
+        }
+
+        @Override
+        public Optional<Long> getRevokedBefore(Long userId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void tokenBlacklisted(String tokenId, long expiresAt) {
+        }
+
+        @Override
+        public void userTokensRevoked(Long userId, long revokedBefore) {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.sky.study.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.sky.study.controller.MovieController;
+import org.sky.study.model.jpa.Movie;
+import org.sky.study.service.impl.MovieLinkTemplate;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building and rendering a page of movies with per-movie
+ * {@code linkTo(methodOn(...))} links, with {@link MovieLinkTemplate} links,
+ * and as the lean link-free list.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args=MovieLinkBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovieLinkBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private List<Movie> movies;
+    private ObjectMapper halMapper;
+    private ObjectMapper leanMapper;
+
+    @Setup
+    public void setUp() {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/movies")));
+        movies = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            Movie movie = new Movie(id, "Movie " + id, "Drama");
+            movie.setReleaseYear(1990 + (int) (id % 30));
+            movie.setVersion(0L);
+            movies.add(movie);
+        }
+        halMapper = new ObjectMapper();
+        halMapper.registerModule(new Jackson2HalModule());
+        halMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        leanMapper = new ObjectMapper();
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public List<EntityModel<Movie>> methodOnLinks() {
+        List<EntityModel<Movie>> models = new ArrayList<>(movies.size());
+        for (Movie movie : movies) {
+            models.add(EntityModel.of(movie, WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(MovieController.class)
+                    .getMovieById(movie.getId(), null)).withSelfRel()));
+        }
+        return models;
+    }
+
+    @Benchmark
+    public List<EntityModel<Movie>> templateLinks() {
+        MovieLinkTemplate itemLinks = MovieLinkTemplate.fromCurrentRequest();
+        List<EntityModel<Movie>> models = new ArrayList<>(movies.size());
+        for (Movie movie : movies) {
+            models.add(itemLinks.toModel(movie));
+        }
+        return models;
+    }
+
+    @Benchmark
+    public String methodOnPage() throws JsonProcessingException {
+        return halMapper.writeValueAsString(page(methodOnLinks()));
+    }
+
+    @Benchmark
+    public String templatePage() throws JsonProcessingException {
+        return halMapper.writeValueAsString(page(templateLinks()));
+    }
+
+    @Benchmark
+    public String leanList() throws JsonProcessingException {
+        return leanMapper.writeValueAsString(movies);
+    }
+
+    private PagedModel<EntityModel<Movie>> page(List<EntityModel<Movie>> models) {
+        return PagedModel.of(models, new PagedModel.PageMetadata(size, 0, size * 10L, 10));
+    }
+}
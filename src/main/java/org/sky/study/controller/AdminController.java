@@ -0,0 +1,99 @@
+package org.sky.study.controller;
+
+import org.sky.study.dto.BulkIngestResult;
+import org.sky.study.dto.DeletionJob;
+import org.sky.study.service.BulkRatingIngestService;
+import org.sky.study.service.EntityDeletionService;
+import org.sky.study.service.LeaderboardService;
+import org.sky.study.service.RatingStatsService;
+import org.sky.study.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private final LeaderboardService leaderboardService;
+    private final BulkRatingIngestService bulkRatingIngestService;
+    private final EntityDeletionService entityDeletionService;
+    private final UserService userService;
+    private final RatingStatsService ratingStatsService;
+    private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+
+    @Autowired
+    public AdminController(LeaderboardService leaderboardService,
+                           BulkRatingIngestService bulkRatingIngestService,
+                           EntityDeletionService entityDeletionService,
+                           UserService userService,
+                           RatingStatsService ratingStatsService) {
+        this.leaderboardService = leaderboardService;
+        this.bulkRatingIngestService = bulkRatingIngestService;
+        this.entityDeletionService = entityDeletionService;
+        this.userService = userService;
+        this.ratingStatsService = ratingStatsService;
+    }
+
+    /**
+     * Rebuilds the top-rated leaderboard from the database.
+     * @return number of ranked movies
+     */
+    @PostMapping("/leaderboard/rebuild")
+    public ResponseEntity<String> rebuildLeaderboard() {
+        int rankedMovies = leaderboardService.rebuild();
+        log.info("Leaderboard rebuilt with {} movies", rankedMovies);
+        return ResponseEntity.ok("Leaderboard rebuilt with " + rankedMovies + " movies");
+    }
+
+    /**
+     * Recomputes the rating aggregates from the ratings, e.g. after ratings were changed
+     * outside the application. Rating writes wait until it is done.
+     * @return number of recomputed aggregates
+     */
+    @PostMapping("/ratings/stats/rebuild")
+    public ResponseEntity<String> rebuildRatingStats() {
+        int recomputed = ratingStatsService.rebuild();
+        return ResponseEntity.ok("Rating aggregates rebuilt for " + recomputed + " movies");
+    }
+
+    /**
+     * Loads a rating dump with one {"username", "movieId", "score"} JSON object per line.
+     * Existing ratings of the same user and movie are updated.
+     * @param body the streamed request body
+     * @return inserted, updated and failed row counts with throughput and per-row errors
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(value = "/ratings/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkIngestResult> bulkIngestRatings(InputStream body) throws IOException {
+        BulkIngestResult result = bulkRatingIngestService.ingest(body);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Retrieves the progress of a background movie or user deletion.
+     * @param jobId the ID of the deletion job
+     * @return status and number of deleted ratings
+     */
+    @GetMapping("/deletions/{jobId}")
+    public ResponseEntity<DeletionJob> getDeletionJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(entityDeletionService.getJob(jobId));
+    }
+
+    /**
+     * Revokes every token issued to a user so far, so that changed roles take effect on the next login.
+     * @param userId the ID of the user
+     * @return 204 once revoked
+     */
+    @PostMapping("/users/{userId}/tokens/revoke")
+    public ResponseEntity<Void> revokeUserTokens(@PathVariable Long userId) {
+        userService.revokeUserTokens(userId);
+        return ResponseEntity.noContent().build();
+    }
+}
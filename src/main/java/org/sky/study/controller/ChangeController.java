@@ -0,0 +1,38 @@
+package org.sky.study.controller;
+
+import org.sky.study.dto.ChangeFeedPage;
+import org.sky.study.service.ChangeFeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/changes")
+public class ChangeController {
+
+    private final ChangeFeedService changeFeedService;
+
+    @Autowired
+    public ChangeController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    /**
+     * Pages through movie and rating changes in commit order.
+     * @param after the cursor returned as next by the previous page, or none to start from the beginning
+     *              or from the consumer's stored cursor
+     * @param limit the maximum number of changes
+     * @param consumer optional consumer name whose cursor is stored, holding back retention
+     * @return the changes with the next cursor
+     */
+    @GetMapping
+    public ResponseEntity<ChangeFeedPage> getChanges(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String consumer) {
+        return ResponseEntity.ok(changeFeedService.getChanges(after, limit, consumer));
+    }
+}
@@ -50,8 +50,24 @@ public class LoginController {
         }
         String token = authHeader.substring(7);
         Claims claims = jwtServiceImpl.getClaims(authHeader);
-        jwtServiceImpl.addToBlacklist(token);
+        jwtServiceImpl.addToBlacklist(token, claims);
         logger.info("Token was invalidated for user: {}", claims.getSubject());
         return ResponseEntity.ok("Logged out successfully");
     }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid Authorization header");
+        }
+        Claims claims = jwtServiceImpl.getClaims(authHeader);
+        Long userId = jwtServiceImpl.getUserId(claims);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Token carries no user ID, log in again");
+        }
+        jwtServiceImpl.revokeUserTokens(userId);
+        logger.info("All tokens were invalidated for user: {}", claims.getSubject());
+        return ResponseEntity.ok("Logged out everywhere successfully");
+    }
 }
@@ -1,16 +1,27 @@
 package org.sky.study.controller;
 
+import org.sky.study.dto.DeletionJob;
 import org.sky.study.dto.TopRatedMovie;
+import org.sky.study.dto.TrendingMovie;
 import org.sky.study.model.jpa.Movie;
+import org.sky.study.service.CatalogVersionService;
+import org.sky.study.service.MovieExportService;
 import org.sky.study.service.MovieService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -18,54 +29,185 @@ import java.util.List;
 public class MovieController {
 
     private final MovieService movieService;
+    private final CatalogVersionService catalogVersionService;
+    private final MovieExportService movieExportService;
     private static final Logger log = LoggerFactory.getLogger(MovieController.class);
 
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String LEAN_MEDIA_TYPE = "application/vnd.movies.lean+json";
+
     @Autowired
-    public MovieController(MovieService movieService) {
+    public MovieController(MovieService movieService,
+                           CatalogVersionService catalogVersionService,
+                           MovieExportService movieExportService) {
         this.movieService = movieService;
+        this.catalogVersionService = catalogVersionService;
+        this.movieExportService = movieExportService;
     }
 
     /**
      * Retrieves all movies with optional filters for title, genre, and release year.
+     * Passing {@code cursor} (empty for the first page) switches from offset pages
+     * to cursor pages ordered by {@code sort} and then by ID, which follow a
+     * {@code next} link and skip the count query unless {@code includeTotal} is set.
      * @param page the page number to retrieve
      * @param size the number of movies per page
      * @param title optional filter for movie title
      * @param genre optional filter for movie genre
      * @param releaseYear optional filter for movie release year
+     * @param sort the cursor sort key, one of id, title or releaseYear
+     * @param cursor the cursor from the previous page's next link
+     * @param includeTotal whether to count the matching movies into the X-Total-Count header in cursor mode
+     * @param request the request, answered with 304 if its If-None-Match holds the current catalog ETag
      * @return paginated list of movies
      */
     @GetMapping
-    public ResponseEntity<PagedModel<EntityModel<Movie>>> getAllMovies(
+    public ResponseEntity<CollectionModel<EntityModel<Movie>>> getAllMovies(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String genre,
-            @RequestParam(required = false) Integer releaseYear) {
-        PagedModel<EntityModel<Movie>> pagedMovies = movieService.getAllMoviesWithFilters(page, size, title, genre, releaseYear);
-        return ResponseEntity.ok(pagedMovies);
+            @RequestParam(required = false) Integer releaseYear,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal,
+            WebRequest request) {
+        if (isCatalogNotModified("movies", request)) {
+            return null;
+        }
+        if (cursor == null) {
+            PagedModel<EntityModel<Movie>> pagedMovies = movieService.getAllMoviesWithFilters(page, size, title, genre, releaseYear);
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(pagedMovies);
+        }
+        CollectionModel<EntityModel<Movie>> movies =
+                movieService.getMoviesAfterCursor(cursor, size, sort, title, genre, releaseYear);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (Boolean.TRUE.equals(includeTotal)) {
+            long total = movieService.countMoviesWithFilters(title, genre, releaseYear);
+            response.header(TOTAL_COUNT_HEADER, String.valueOf(total));
+        }
+        return response.body(movies);
+    }
+
+    /**
+     * Retrieves the same movies as {@link #getAllMovies} as a plain JSON array without links or
+     * page metadata, for clients that ask for {@value #LEAN_MEDIA_TYPE}. In cursor mode the next
+     * page is announced in the Link header.
+     * @param page the page number to retrieve
+     * @param size the number of movies per page
+     * @param title optional filter for movie title
+     * @param genre optional filter for movie genre
+     * @param releaseYear optional filter for movie release year
+     * @param sort the cursor sort key, one of id, title or releaseYear
+     * @param cursor the cursor from the previous page's next link
+     * @param includeTotal whether to count the matching movies into the X-Total-Count header in cursor mode
+     * @param request the request, answered with 304 if its If-None-Match holds the current catalog ETag
+     * @return list of movies
+     */
+    @GetMapping(produces = LEAN_MEDIA_TYPE)
+    public ResponseEntity<List<Movie>> getMovieList(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer releaseYear,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal,
+            WebRequest request) {
+        if (isCatalogNotModified("movies-lean", request)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (cursor == null) {
+            return response.body(movieService.getMovieListWithFilters(page, size, title, genre, releaseYear));
+        }
+        CollectionModel<EntityModel<Movie>> movies =
+                movieService.getMoviesAfterCursor(cursor, size, sort, title, genre, releaseYear);
+        movies.getLink(IanaLinkRelations.NEXT).ifPresent(next -> response.header(HttpHeaders.LINK, next.toString()));
+        if (Boolean.TRUE.equals(includeTotal)) {
+            long total = movieService.countMoviesWithFilters(title, genre, releaseYear);
+            response.header(TOTAL_COUNT_HEADER, String.valueOf(total));
+        }
+        return response.body(movies.getContent().stream().map(EntityModel::getContent).toList());
+    }
+
+    /**
+     * Streams the whole catalog as newline-delimited JSON, one movie per line ordered by ID.
+     * The movies are written while they are read, without paging or a count query.
+     * @return the streamed movies
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportMovies() {
+        log.info("Exporting the movie catalog");
+        StreamingResponseBody body = movieExportService::exportMovies;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
      * Retrieves a movie by its ID.
+     * The ETag is checked against the version cached on this node before the movie is read.
      * @param movieId the ID of the movie to retrieve
+     * @param request the request, answered with 304 if its If-None-Match holds the movie's current ETag
      * @return the movie if found, or 404 Not Found if not found
      */
     @GetMapping("/{movieId}")
-    public ResponseEntity<Movie> getMovieById(@PathVariable Long movieId) {
+    public ResponseEntity<Movie> getMovieById(@PathVariable Long movieId, WebRequest request) {
+        Long version = movieService.getCachedMovieVersion(movieId).orElse(null);
+        if (version != null && request.checkNotModified(movieETag(movieId, version))) {
+            return null;
+        }
         Movie movie = movieService.getMovieById(movieId);
+        if (version == null && movie.getVersion() != null
+                && request.checkNotModified(movieETag(movieId, movie.getVersion()))) {
+            return null;
+        }
         return ResponseEntity.ok(movie);
     }
 
     /**
-     * Retrieves a list of top-rated movies.
+     * Retrieves a list of top-rated movies, optionally scoped to a genre and a release year range.
+     * @param genre optional genre filter
+     * @param releaseYearFrom optional lower bound of the release year
+     * @param releaseYearTo optional upper bound of the release year
+     * @param limit maximum number of movies to return
+     * @param request the request, answered with 304 if its If-None-Match holds the current ratings ETag
      * @return list of top-rated movies
      */
     @GetMapping("/top-rated")
-    public ResponseEntity<List<TopRatedMovie>> getTopRatedMovies() {
-        List<TopRatedMovie> topRatedMovies = movieService.getTopRatedMovies();
+    public ResponseEntity<List<TopRatedMovie>> getTopRatedMovies(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer releaseYearFrom,
+            @RequestParam(required = false) Integer releaseYearTo,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        // titles, genres and years come from the catalog, so its version is part of the tag
+        String etag = catalogVersionService.getCatalogVersion()
+                .flatMap(catalog -> catalogVersionService.getRatingsVersion()
+                        .map(ratings -> "top-rated-" + catalog + "-" + ratings))
+                .orElse(null);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        List<TopRatedMovie> topRatedMovies =
+                movieService.getTopRatedMovies(genre, releaseYearFrom, releaseYearTo, limit);
         return ResponseEntity.ok(topRatedMovies);
     }
 
+    /**
+     * Retrieves the movies rated most often within a recent time window.
+     * @param window the time window, one of 1h, 1d or 1w
+     * @param limit maximum number of movies to return
+     * @return list of trending movies
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingMovie>> getTrendingMovies(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<TrendingMovie> trendingMovies = movieService.getTrendingMovies(window, limit);
+        return ResponseEntity.ok(trendingMovies);
+    }
+
     /**
      * Saves or updates a movie.
      * @param movie the movie to save or update
@@ -80,13 +222,33 @@ public class MovieController {
 
     /**
      * Deletes a movie by its ID.
+     * Movies with many ratings are deleted in the background and 202 is returned
+     * with the job to poll.
      * @param movieId the ID of the movie to delete
-     * @return response indicating success
+     * @return 204 once deleted, or 202 with the running deletion job
      */
     @DeleteMapping("/{movieId}")
-    public ResponseEntity<Void> deleteMovie(@PathVariable Long movieId) {
-        movieService.deleteMovie(movieId);
+    public ResponseEntity<DeletionJob> deleteMovie(@PathVariable Long movieId) {
+        DeletionJob job = movieService.deleteMovie(movieId);
+        if (!job.isFinished()) {
+            log.info("Deleting movie with ID: {} in the background as job {}", movieId, job.getId());
+            return ResponseEntity.accepted().location(URI.create("/admin/deletions/" + job.getId())).body(job);
+        }
         log.info("Successfully deleted movie with ID: {}", movieId);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    private static String movieETag(Long movieId, Long version) {
+        return "movie-" + movieId + "-" + version;
+    }
+
+    /**
+     * Checks If-None-Match against the catalog version. Each representation of the
+     * movie list gets its own tag, since the ETag must differ between variants.
+     * @return whether the request was answered with 304
+     */
+    private boolean isCatalogNotModified(String variant, WebRequest request) {
+        String etag = catalogVersionService.getCatalogVersion().map(version -> variant + "-" + version).orElse(null);
+        return etag != null && request.checkNotModified(etag);
+    }
+}
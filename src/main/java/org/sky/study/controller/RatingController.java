@@ -1,14 +1,16 @@
 package org.sky.study.controller;
 
+import org.sky.study.dto.RatingHistogram;
 import org.sky.study.dto.RatingRequest;
 import org.sky.study.model.jpa.Rating;
+import org.sky.study.model.projection.RatingView;
 import org.sky.study.service.RatingService;
+import org.sky.study.service.RatingWriteBehindService;
+import org.sky.study.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -16,11 +18,17 @@ import org.springframework.web.bind.annotation.*;
 public class RatingController {
 
     private final RatingService ratingService;
+    private final RatingWriteBehindService ratingWriteBehindService;
+    private final UserService userService;
     private static final Logger log = LoggerFactory.getLogger(RatingController.class);
 
     @Autowired
-    public RatingController(RatingService ratingService) {
+    public RatingController(RatingService ratingService,
+                            RatingWriteBehindService ratingWriteBehindService,
+                            UserService userService) {
         this.ratingService = ratingService;
+        this.ratingWriteBehindService = ratingWriteBehindService;
+        this.userService = userService;
     }
     /**
      * Retrieves ratings for a specific movie by its ID.
@@ -28,27 +36,46 @@ public class RatingController {
      * @return the rating if found
      */
     @GetMapping
-    public ResponseEntity<Rating> getUserRatingByMovieId(@PathVariable Long movieId) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return ResponseEntity.ok(ratingService.getRatingByMovieIdAndUserName(movieId, username));
+    public ResponseEntity<RatingView> getUserRatingByMovieId(@PathVariable Long movieId) {
+        Long userId = userService.getCurrentUserId();
+        return ResponseEntity.ok(ratingService.getRatingByMovieIdAndUserId(movieId, userId));
     }
 
+    /**
+     * Retrieves the score distribution of a movie.
+     * @param movieId the ID of the movie
+     * @return count per score with mean and median
+     */
+    @GetMapping("/histogram")
+    public ResponseEntity<RatingHistogram> getRatingHistogram(@PathVariable Long movieId) {
+        return ResponseEntity.ok(ratingService.getRatingHistogram(movieId));
+    }
+
+    /**
+     * Saves or updates the rating of the current user. In write-behind mode the
+     * rating is queued and 202 is returned before it is stored.
+     * @param movieId the ID of the movie
+     * @param score the rating score
+     * @return the saved or accepted rating
+     */
     @PostMapping
     public ResponseEntity<Rating> saveOrUpdateRating(
             @PathVariable Long movieId,
             @RequestBody RatingRequest score) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        log.info("User {} is saving or updating rating for movie ID {} with score {}", username, movieId, score.getScore());
-        Rating savedRating = ratingService.saveOrUpdateRating(movieId, score.getScore(), username);
+        Long userId = userService.getCurrentUserId();
+        if (ratingWriteBehindService.isEnabled()) {
+            log.debug("User ID {} queued rating for movie ID {} with score {}", userId, movieId, score.getScore());
+            return ResponseEntity.accepted().body(ratingWriteBehindService.enqueue(movieId, score.getScore(), userId));
+        }
+        log.info("User ID {} is saving or updating rating for movie ID {} with score {}", userId, movieId, score.getScore());
+        Rating savedRating = ratingService.saveOrUpdateRating(movieId, score.getScore(), userId);
         return ResponseEntity.status(201).body(savedRating);
     }
 
     @DeleteMapping
     public ResponseEntity<Void> deleteRating(
             @PathVariable Long movieId) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        ratingService.deleteUserRating(movieId, username);
+        ratingService.deleteUserRating(movieId, userService.getCurrentUserId());
         return ResponseEntity.noContent().build();
     }
 
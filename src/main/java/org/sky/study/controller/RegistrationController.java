@@ -1,11 +1,15 @@
 package org.sky.study.controller;
 
+import org.sky.study.dto.DeletionJob;
 import org.sky.study.model.jpa.User;
 import org.sky.study.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+
 @RestController
 @RequestMapping("/register")
 public class RegistrationController {
@@ -26,9 +30,27 @@ public class RegistrationController {
         return ResponseEntity.ok("User registered successfully!");
     }
 
+    /**
+     * Deletes a user, either the current user or any user when called by an admin.
+     * Users with many ratings are deleted in the background and 202 is returned with
+     * the job. Only admins get its location, since deleting a user revokes the tokens
+     * of that user.
+     * @param id the ID of the user to delete
+     * @param authentication the current user
+     * @return 200 once deleted, or 202 with the running deletion job
+     */
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> deleteUser(@PathVariable Long id) {
-        userService.deleteUserById(id);
-        return ResponseEntity.ok("User deleted successfully!");
+    public ResponseEntity<?> deleteUser(@PathVariable Long id, Authentication authentication) {
+        DeletionJob job = userService.deleteUserById(id);
+        if (job.isFinished()) {
+            return ResponseEntity.ok("User deleted successfully!");
+        }
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(auth -> "ROLE_ADMIN".equals(auth.getAuthority()));
+        ResponseEntity.BodyBuilder accepted = ResponseEntity.accepted();
+        if (isAdmin) {
+            accepted.location(URI.create("/admin/deletions/" + job.getId()));
+        }
+        return accepted.body(job);
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package org.sky.study.controller;
+
+import org.sky.study.service.RatingService;
+import org.sky.study.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/users/me/ratings")
+public class UserRatingController {
+
+    private final RatingService ratingService;
+    private final UserService userService;
+
+    @Autowired
+    public UserRatingController(RatingService ratingService, UserService userService) {
+        this.ratingService = ratingService;
+        this.userService = userService;
+    }
+
+    /**
+     * Retrieves the current user's scores for a batch of movies.
+     * @param movieIds comma-separated IDs of the movies
+     * @return score per movie ID; movies the user has not rated are left out
+     */
+    @GetMapping
+    public ResponseEntity<Map<Long, Integer>> getMyScores(@RequestParam List<Long> movieIds) {
+        return ResponseEntity.ok(ratingService.getUserScores(movieIds, userService.getCurrentUserId()));
+    }
+}
@@ -0,0 +1,27 @@
+package org.sky.study.dto;
+
+public class BulkIngestError {
+    private long line;
+    private String message;
+
+    public BulkIngestError(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,79 @@
+package org.sky.study.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkIngestResult {
+    private long received;
+    private long inserted;
+    private long updated;
+    private long superseded;
+    private long failed;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<BulkIngestError> errors = new ArrayList<>();
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getSuperseded() {
+        return superseded;
+    }
+
+    public void setSuperseded(long superseded) {
+        this.superseded = superseded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<BulkIngestError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BulkIngestError> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,43 @@
+package org.sky.study.dto;
+
+import org.sky.study.model.jpa.ChangeEvent;
+
+import java.util.List;
+
+public class ChangeFeedPage {
+    private List<ChangeEvent> changes;
+    private long next;
+    private boolean hasMore;
+
+    public ChangeFeedPage(List<ChangeEvent> changes, long next, boolean hasMore) {
+        this.changes = changes;
+        this.next = next;
+        this.hasMore = hasMore;
+    }
+
+    public ChangeFeedPage() {}
+
+    public List<ChangeEvent> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<ChangeEvent> changes) {
+        this.changes = changes;
+    }
+
+    public long getNext() {
+        return next;
+    }
+
+    public void setNext(long next) {
+        this.next = next;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,89 @@
+package org.sky.study.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * Progress of deleting a movie or a user together with its ratings.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DeletionJob {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final String entityType;
+    private final Long entityId;
+    private final long totalRatings;
+    private final Instant startedAt;
+    private volatile Status status = Status.RUNNING;
+    private volatile long deletedRatings;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public DeletionJob(String id, String entityType, Long entityId, long totalRatings) {
+        this.id = id;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.totalRatings = totalRatings;
+        this.startedAt = Instant.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public long getTotalRatings() {
+        return totalRatings;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getDeletedRatings() {
+        return deletedRatings;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void addDeletedRatings(long deleted) {
+        this.deletedRatings += deleted;
+    }
+
+    public void completed() {
+        this.finishedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+}
@@ -0,0 +1,64 @@
+package org.sky.study.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last movie of a cursor page: the sort key, the value of
+ * that key and the ID of the movie. Clients receive it as an opaque URL-safe
+ * string and pass it back unchanged to get the following page.
+ */
+public class MovieCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final MovieSortKey sort;
+    private final Long movieId;
+    private final String value;
+
+    public MovieCursor(MovieSortKey sort, Long movieId, String value) {
+        this.sort = sort;
+        this.movieId = movieId;
+        this.value = value;
+    }
+
+    public MovieSortKey getSort() {
+        return sort;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    /**
+     * @return the sort value of the last movie, or null if the movie has none
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public String encode() {
+        String raw = sort.getValue() + SEPARATOR + movieId + (value == null ? "" : SEPARATOR + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a cursor returned by an earlier page.
+     * @param cursor the opaque cursor
+     * @return the decoded position
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+     */
+    public static MovieCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 3);
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new MovieCursor(MovieSortKey.fromValue(parts[0]), Long.parseLong(parts[1]),
+                    parts.length == 3 ? parts[2] : null);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.sky.study.dto;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Columns movies can be walked by in cursor mode. The movie ID breaks ties, so
+ * every key gives a total order.
+ */
+public enum MovieSortKey {
+    ID("id", "id"),
+    TITLE("title", "title"),
+    RELEASE_YEAR("releaseYear", "releaseYear");
+
+    private final String value;
+    private final String attribute;
+
+    MovieSortKey(String value, String attribute) {
+        this.value = value;
+        this.attribute = attribute;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public static MovieSortKey fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(key -> key.value.equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Sort must be one of " +
+                        Arrays.stream(values()).map(MovieSortKey::getValue).collect(Collectors.joining(", "))));
+    }
+}
@@ -0,0 +1,59 @@
+package org.sky.study.dto;
+
+import java.util.Map;
+
+public class RatingHistogram {
+    private Long movieId;
+    private Map<Integer, Integer> counts;
+    private Integer totalCount;
+    private Double mean;
+    private Double median;
+
+    public RatingHistogram(Long movieId, Map<Integer, Integer> counts, Integer totalCount, Double mean, Double median) {
+        this.movieId = movieId;
+        this.counts = counts;
+        this.totalCount = totalCount;
+        this.mean = mean;
+        this.median = median;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(Long movieId) {
+        this.movieId = movieId;
+    }
+
+    public Map<Integer, Integer> getCounts() {
+        return counts;
+    }
+
+    public void setCounts(Map<Integer, Integer> counts) {
+        this.counts = counts;
+    }
+
+    public Integer getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(Integer totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public Double getMean() {
+        return mean;
+    }
+
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+
+    public Double getMedian() {
+        return median;
+    }
+
+    public void setMedian(Double median) {
+        this.median = median;
+    }
+}
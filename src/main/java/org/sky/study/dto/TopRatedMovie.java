@@ -1,14 +1,28 @@
 package org.sky.study.dto;
 
 public class TopRatedMovie {
+    private Long id;
     private String name;
+    private String genre;
+    private Integer releaseYear;
     private Double averageRating;
 
-    public TopRatedMovie(String name, Double averageRating) {
+    public TopRatedMovie(Long id, String name, String genre, Integer releaseYear, Double averageRating) {
+        this.id = id;
         this.name = name;
+        this.genre = genre;
+        this.releaseYear = releaseYear;
         this.averageRating = averageRating;
     }
 
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
@@ -17,6 +31,22 @@ public class TopRatedMovie {
         this.name = name;
     }
 
+    public String getGenre() {
+        return genre;
+    }
+
+    public void setGenre(String genre) {
+        this.genre = genre;
+    }
+
+    public Integer getReleaseYear() {
+        return releaseYear;
+    }
+
+    public void setReleaseYear(Integer releaseYear) {
+        this.releaseYear = releaseYear;
+    }
+
     public Double getAverageRating() {
         return averageRating;
     }
@@ -0,0 +1,37 @@
+package org.sky.study.dto;
+
+public class TrendingMovie {
+    private Long id;
+    private String name;
+    private Integer ratingCount;
+
+    public TrendingMovie(Long id, String name, Integer ratingCount) {
+        this.id = id;
+        this.name = name;
+        this.ratingCount = ratingCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(Integer ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+}
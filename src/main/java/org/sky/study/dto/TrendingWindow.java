@@ -0,0 +1,44 @@
+package org.sky.study.dto;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Time windows the trending ranking can be requested for. The last hour is
+ * counted with minute precision, longer windows with hour precision.
+ */
+public enum TrendingWindow {
+    ONE_HOUR("1h", false, 60),
+    ONE_DAY("1d", true, 24),
+    ONE_WEEK("1w", true, 168);
+
+    private final String value;
+    private final boolean hourly;
+    private final int buckets;
+
+    TrendingWindow(String value, boolean hourly, int buckets) {
+        this.value = value;
+        this.hourly = hourly;
+        this.buckets = buckets;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isHourly() {
+        return hourly;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public static TrendingWindow fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(window -> window.value.equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Window must be one of " +
+                        Arrays.stream(values()).map(TrendingWindow::getValue).collect(Collectors.joining(", "))));
+    }
+}
@@ -0,0 +1,17 @@
+package org.sky.study.event;
+
+/**
+ * Published whenever a movie is deleted together with its ratings.
+ */
+public class MovieDeletedEvent {
+
+    private final Long movieId;
+
+    public MovieDeletedEvent(Long movieId) {
+        this.movieId = movieId;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+}
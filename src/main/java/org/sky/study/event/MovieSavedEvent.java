@@ -0,0 +1,35 @@
+package org.sky.study.event;
+
+/**
+ * Published whenever a movie is created or updated.
+ */
+public class MovieSavedEvent {
+
+    private final Long movieId;
+    private final String title;
+    private final String genre;
+    private final Integer releaseYear;
+
+    public MovieSavedEvent(Long movieId, String title, String genre, Integer releaseYear) {
+        this.movieId = movieId;
+        this.title = title;
+        this.genre = genre;
+        this.releaseYear = releaseYear;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+
+    public Integer getReleaseYear() {
+        return releaseYear;
+    }
+}
@@ -0,0 +1,38 @@
+package org.sky.study.event;
+
+/**
+ * Published whenever a rating is created, changed or removed.
+ * A missing old score means the rating was created, a missing new score means it was removed.
+ */
+public class RatingChangedEvent {
+
+    private final Long movieId;
+    private final Integer oldScore;
+    private final Integer newScore;
+
+    public RatingChangedEvent(Long movieId, Integer oldScore, Integer newScore) {
+        this.movieId = movieId;
+        this.oldScore = oldScore;
+        this.newScore = newScore;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public Integer getOldScore() {
+        return oldScore;
+    }
+
+    public Integer getNewScore() {
+        return newScore;
+    }
+
+    public long getSumDelta() {
+        return (newScore == null ? 0 : newScore) - (oldScore == null ? 0 : oldScore);
+    }
+
+    public long getCountDelta() {
+        return (newScore == null ? 0 : 1) - (oldScore == null ? 0 : 1);
+    }
+}
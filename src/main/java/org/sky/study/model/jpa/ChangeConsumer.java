@@ -0,0 +1,49 @@
+package org.sky.study.model.jpa;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Position up to which a named consumer has read the change feed.
+ * Change events behind every consumer are trimmed by the retention job.
+ */
+@Entity
+@Table(name = "CHANGE_CONSUMERS")
+public class ChangeConsumer {
+
+    public ChangeConsumer(String name, Long position) {
+        this.name = name;
+        this.position = position;
+        this.updatedAt = Instant.now();
+    }
+
+    public ChangeConsumer() {}
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private Long position;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+        this.updatedAt = Instant.now();
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,104 @@
+package org.sky.study.model.jpa;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Outbox entry describing one change of a movie or a rating. Entries are
+ * written in the same transaction as the change they describe. The position
+ * is assigned after commit by the change feed and is the cursor consumers page by.
+ */
+@Entity
+@Table(name = "CHANGE_EVENTS",
+        indexes = @Index(name = "idx_change_events_position", columnList = "position", unique = true))
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeEvent {
+
+    public enum EntityType { MOVIE, RATING }
+
+    public enum Operation { CREATED, UPDATED, DELETED }
+
+    public ChangeEvent(EntityType entityType, Operation operation, Long movieId, Long userId, Integer score) {
+        this.entityType = entityType;
+        this.operation = operation;
+        this.movieId = movieId;
+        this.userId = userId;
+        this.score = score;
+        this.occurredAt = Instant.now();
+    }
+
+    public ChangeEvent() {}
+
+    @JsonIgnore
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long position;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Operation operation;
+
+    @Column(name = "movie_id", nullable = false)
+    private Long movieId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    private Integer score;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    public static ChangeEvent movie(Operation operation, Long movieId) {
+        return new ChangeEvent(EntityType.MOVIE, operation, movieId, null, null);
+    }
+
+    public static ChangeEvent rating(Operation operation, Long movieId, Long userId, Integer score) {
+        return new ChangeEvent(EntityType.RATING, operation, movieId, userId, score);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -5,7 +5,11 @@ import jakarta.persistence.*;
 import java.util.Set;
 
 @Entity
-@Table(name = "MOVIES")
+@Table(name = "MOVIES",
+        indexes = {
+                @Index(name = "idx_movies_title_id", columnList = "title, id"),
+                @Index(name = "idx_movies_release_year_id", columnList = "release_year, id")
+        })
 public class Movie {
 
     public Movie(Long id, String title, String genre) {
@@ -26,6 +30,10 @@ public class Movie {
 
     private Integer releaseYear;
 
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     @JsonIgnore
     @OneToMany(mappedBy = "movie", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Rating> ratings;
@@ -70,4 +78,12 @@ public class Movie {
         this.releaseYear = releaseYear;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
 }
@@ -0,0 +1,67 @@
+package org.sky.study.model.jpa;
+
+import jakarta.persistence.*;
+
+/**
+ * Per-movie rating aggregate, maintained incrementally on every rating write
+ * so that rankings never have to aggregate the RATINGS table.
+ */
+@Entity
+@Table(name = "MOVIE_RATING_STATS",
+        indexes = @Index(name = "idx_movie_rating_stats_average", columnList = "average_rating DESC, movie_id"))
+public class MovieRatingStats {
+
+    public MovieRatingStats(Long movieId, Long ratingSum, Long ratingCount, Double averageRating) {
+        this.movieId = movieId;
+        this.ratingSum = ratingSum;
+        this.ratingCount = ratingCount;
+        this.averageRating = averageRating;
+    }
+
+    public MovieRatingStats() {}
+
+    @Id
+    @Column(name = "movie_id")
+    private Long movieId;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum;
+
+    @Column(name = "rating_count", nullable = false)
+    private Long ratingCount;
+
+    @Column(name = "average_rating")
+    private Double averageRating;
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(Long movieId) {
+        this.movieId = movieId;
+    }
+
+    public Long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(Long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Long getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(Long ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(Double averageRating) {
+        this.averageRating = averageRating;
+    }
+}
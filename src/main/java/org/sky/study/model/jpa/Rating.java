@@ -3,10 +3,20 @@ package org.sky.study.model.jpa;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity
-@Table(name = "RATINGS")
+@Table(name = "RATINGS",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ratings_user_movie", columnNames = {"user_id", "movie_id"}),
+        indexes = {
+                @Index(name = "idx_ratings_rated_at", columnList = "rated_at"),
+                @Index(name = "idx_ratings_movie_id", columnList = "movie_id")
+        })
 public class Rating {
 
+    public static final int MIN_SCORE = 1;
+    public static final int MAX_SCORE = 10;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -14,15 +24,25 @@ public class Rating {
     private Integer score;
 
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
     private User user;
 
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "movie_id", referencedColumnName = "id", nullable = false)
     private Movie movie;
 
+    @Column(name = "rated_at")
+    private Instant ratedAt;
+
+    /**
+     * Score overwritten by the last upsert, null if the rating was never updated.
+     */
+    @JsonIgnore
+    @Column(name = "previous_score")
+    private Integer previousScore;
+
     public Integer getScore() {
         return score;
     }
@@ -46,4 +66,20 @@ public class Rating {
     public void setMovie(Movie movie) {
         this.movie = movie;
     }
-}
\ No newline at end of file
+
+    public Instant getRatedAt() {
+        return ratedAt;
+    }
+
+    public void setRatedAt(Instant ratedAt) {
+        this.ratedAt = ratedAt;
+    }
+
+    public Integer getPreviousScore() {
+        return previousScore;
+    }
+
+    public void setPreviousScore(Integer previousScore) {
+        this.previousScore = previousScore;
+    }
+}
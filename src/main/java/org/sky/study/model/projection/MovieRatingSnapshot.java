@@ -0,0 +1,13 @@
+package org.sky.study.model.projection;
+
+/**
+ * Rating aggregate of a movie joined with the movie attributes needed for rankings.
+ */
+public interface MovieRatingSnapshot {
+    Long getMovieId();
+    String getTitle();
+    String getGenre();
+    Integer getReleaseYear();
+    Long getRatingSum();
+    Long getRatingCount();
+}
@@ -0,0 +1,9 @@
+package org.sky.study.model.projection;
+
+/**
+ * Score of a single rating together with the rated movie.
+ */
+public interface MovieScore {
+    Long getMovieId();
+    Integer getScore();
+}
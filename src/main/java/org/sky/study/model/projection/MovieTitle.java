@@ -0,0 +1,9 @@
+package org.sky.study.model.projection;
+
+/**
+ * ID and title of a movie.
+ */
+public interface MovieTitle {
+    Long getId();
+    String getTitle();
+}
@@ -0,0 +1,10 @@
+package org.sky.study.model.projection;
+
+/**
+ * Number of ratings a movie received within a recent period.
+ */
+public interface RatingActivity {
+    Long getMovieId();
+    String getTitle();
+    Long getRatingCount();
+}
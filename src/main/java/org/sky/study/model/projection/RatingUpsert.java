@@ -0,0 +1,13 @@
+package org.sky.study.model.projection;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a rating upsert: the stored score and, if an existing rating
+ * was overwritten, the score it held before.
+ */
+public interface RatingUpsert {
+    Integer getScore();
+    Integer getPreviousScore();
+    Instant getRatedAt();
+}
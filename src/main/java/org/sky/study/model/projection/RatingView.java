@@ -0,0 +1,11 @@
+package org.sky.study.model.projection;
+
+import java.time.Instant;
+
+/**
+ * Score and time of a rating as returned to its author, without the user and movie rows.
+ */
+public interface RatingView {
+    Integer getScore();
+    Instant getRatedAt();
+}
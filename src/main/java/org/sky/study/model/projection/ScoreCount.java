@@ -0,0 +1,10 @@
+package org.sky.study.model.projection;
+
+/**
+ * Number of ratings with a given score for a movie.
+ */
+public interface ScoreCount {
+    Long getMovieId();
+    Integer getScore();
+    Long getRatingCount();
+}
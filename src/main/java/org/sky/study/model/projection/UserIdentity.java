@@ -0,0 +1,9 @@
+package org.sky.study.model.projection;
+
+/**
+ * ID and username of a user, without credentials or ratings.
+ */
+public interface UserIdentity {
+    Long getId();
+    String getUsername();
+}
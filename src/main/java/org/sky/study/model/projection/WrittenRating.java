@@ -0,0 +1,12 @@
+package org.sky.study.model.projection;
+
+/**
+ * Rating stored by a batch upsert, with the score it overwrote if the user
+ * had already rated the movie.
+ */
+public interface WrittenRating {
+    Long getMovieId();
+    Long getUserId();
+    Integer getScore();
+    Integer getPreviousScore();
+}
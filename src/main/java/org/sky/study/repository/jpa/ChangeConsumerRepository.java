@@ -0,0 +1,17 @@
+package org.sky.study.repository.jpa;
+
+import org.sky.study.model.jpa.ChangeConsumer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChangeConsumerRepository extends JpaRepository<ChangeConsumer, String> {
+
+    /**
+     * Finds the position every registered consumer has read up to.
+     * @return the lowest consumer position, or null if there are no consumers
+     */
+    @Query("SELECT MIN(c.position) FROM ChangeConsumer c")
+    Long findMinPosition();
+}
@@ -0,0 +1,70 @@
+package org.sky.study.repository.jpa;
+
+import org.sky.study.model.jpa.ChangeEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ChangeEventRepository extends JpaRepository<ChangeEvent, Long> {
+
+    /**
+     * Takes the transaction-scoped advisory lock that serializes position assignment.
+     * @param key the advisory lock key
+     * @return always 1
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:key)", nativeQuery = true)
+    Integer lockSequencer(@Param("key") long key);
+
+    /**
+     * Assigns positions to committed change events that do not have one yet, in insertion order.
+     * The positions are drawn while reading the materialized ID order, since an UPDATE
+     * evaluates nextval in whatever order it visits the rows.
+     * @return number of sequenced change events
+     */
+    @Modifying
+    @Query(value = "WITH unsequenced AS MATERIALIZED " +
+        "(SELECT id FROM change_events WHERE position IS NULL ORDER BY id), " +
+        "sequenced AS (SELECT id, nextval('change_events_position_seq') AS position FROM unsequenced) " +
+        "UPDATE change_events e SET position = s.position FROM sequenced s WHERE e.id = s.id",
+        nativeQuery = true)
+    int assignPositions();
+
+    /**
+     * Finds the sequenced change events after a position.
+     * @param position the position to read after
+     * @param limit the maximum number of change events
+     * @return change events ordered by position
+     */
+    List<ChangeEvent> findByPositionGreaterThanOrderByPositionAsc(Long position, Limit limit);
+
+    /**
+     * Deletes one chunk of change events at or before a position.
+     * @param position the last position to delete
+     * @param chunkSize the maximum number of rows to delete
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query(value = "DELETE FROM change_events WHERE id IN " +
+        "(SELECT id FROM change_events WHERE position <= :position LIMIT :chunkSize)",
+        nativeQuery = true)
+    int deleteUpToPosition(@Param("position") long position, @Param("chunkSize") int chunkSize);
+
+    /**
+     * Deletes one chunk of change events that occurred before a time.
+     * @param before the cut-off time
+     * @param chunkSize the maximum number of rows to delete
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query(value = "DELETE FROM change_events WHERE id IN " +
+        "(SELECT id FROM change_events WHERE occurred_at < :before LIMIT :chunkSize)",
+        nativeQuery = true)
+    int deleteOccurredBefore(@Param("before") Instant before, @Param("chunkSize") int chunkSize);
+}
@@ -0,0 +1,207 @@
+package org.sky.study.repository.jpa;
+
+import org.sky.study.dto.TopRatedMovie;
+import org.sky.study.model.jpa.MovieRatingStats;
+import org.sky.study.model.projection.MovieRatingSnapshot;
+import org.sky.study.model.projection.MovieScore;
+import org.sky.study.model.projection.ScoreCount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MovieRatingStatsRepository extends JpaRepository<MovieRatingStats, Long> {
+
+    /**
+     * Retrieves top-rated movies with their average rating, served by the average rating index.
+     * @param genre optional genre filter
+     * @param releaseYearFrom optional lower bound of the release year
+     * @param releaseYearTo optional upper bound of the release year
+     * @param pageable the number of movies to retrieve
+     * @return list of top-rated movies
+     */
+    @Query("SELECT new org.sky.study.dto.TopRatedMovie(m.id, m.title, m.genre, m.releaseYear, s.averageRating) " +
+        "FROM MovieRatingStats s JOIN Movie m ON m.id = s.movieId " +
+        "WHERE s.ratingCount > 0 " +
+        "AND (:genre IS NULL OR m.genre = :genre) " +
+        "AND (:releaseYearFrom IS NULL OR m.releaseYear >= :releaseYearFrom) " +
+        "AND (:releaseYearTo IS NULL OR m.releaseYear <= :releaseYearTo) " +
+        "ORDER BY s.averageRating DESC, s.movieId")
+    List<TopRatedMovie> findTopRatedMovies(String genre, Integer releaseYearFrom, Integer releaseYearTo,
+                                           Pageable pageable);
+
+    /**
+     * Retrieves the aggregates of all rated movies, used to seed in-memory rankings.
+     * @return aggregates of all rated movies
+     */
+    @Query("SELECT s.movieId AS movieId, m.title AS title, m.genre AS genre, m.releaseYear AS releaseYear, " +
+        "s.ratingSum AS ratingSum, s.ratingCount AS ratingCount " +
+        "FROM MovieRatingStats s JOIN Movie m ON m.id = s.movieId WHERE s.ratingCount > 0")
+    List<MovieRatingSnapshot> findAllRatedSnapshots();
+
+    /**
+     * Retrieves the committed aggregate of one movie, read past the persistence context.
+     * @param movieId the ID of the movie
+     * @return aggregate of the movie, or empty if it has no ratings
+     */
+    @Query("SELECT s.movieId AS movieId, m.title AS title, m.genre AS genre, m.releaseYear AS releaseYear, " +
+        "s.ratingSum AS ratingSum, s.ratingCount AS ratingCount " +
+        "FROM MovieRatingStats s JOIN Movie m ON m.id = s.movieId WHERE s.movieId = :movieId AND s.ratingCount > 0")
+    Optional<MovieRatingSnapshot> findRatedSnapshot(@Param("movieId") Long movieId);
+
+    /**
+     * Atomically applies a delta to the aggregate of a movie, creating the row if it does not exist yet.
+     * @param movieId the ID of the movie
+     * @param sumDelta the change of the rating sum
+     * @param countDelta the change of the rating count
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO movie_rating_stats AS s (movie_id, rating_sum, rating_count, average_rating) " +
+        "VALUES (:movieId, :sumDelta, :countDelta, CAST(:sumDelta AS double precision) / NULLIF(:countDelta, 0)) " +
+        "ON CONFLICT (movie_id) DO UPDATE SET " +
+        "rating_sum = s.rating_sum + EXCLUDED.rating_sum, " +
+        "rating_count = s.rating_count + EXCLUDED.rating_count, " +
+        "average_rating = CAST(s.rating_sum + EXCLUDED.rating_sum AS double precision) " +
+        "/ NULLIF(s.rating_count + EXCLUDED.rating_count, 0)",
+        nativeQuery = true)
+    int applyDelta(@Param("movieId") Long movieId, @Param("sumDelta") long sumDelta, @Param("countDelta") long countDelta);
+
+    /**
+     * Atomically changes the number of ratings with a score for a movie, creating the row if it does not exist yet.
+     * @param movieId the ID of the movie
+     * @param score the score
+     * @param countDelta the change of the rating count
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO movie_score_counts AS c (movie_id, score, rating_count) " +
+        "VALUES (:movieId, :score, :countDelta) " +
+        "ON CONFLICT (movie_id, score) DO UPDATE SET rating_count = c.rating_count + EXCLUDED.rating_count",
+        nativeQuery = true)
+    int applyScoreDelta(@Param("movieId") Long movieId, @Param("score") int score, @Param("countDelta") long countDelta);
+
+    /**
+     * Retrieves the number of ratings per score of a movie.
+     * @param movieId the ID of the movie
+     * @return rating count per score, without the scores the movie never received
+     */
+    @Query(value = "SELECT movie_id AS \"movieId\", score AS \"score\", rating_count AS \"ratingCount\" " +
+        "FROM movie_score_counts WHERE movie_id = :movieId",
+        nativeQuery = true)
+    List<ScoreCount> findScoreCounts(@Param("movieId") Long movieId);
+
+    /**
+     * Deletes the score counts of a movie.
+     * @param movieId the ID of the movie
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query(value = "DELETE FROM movie_score_counts WHERE movie_id = :movieId", nativeQuery = true)
+    int deleteScoreCounts(@Param("movieId") Long movieId);
+
+    /**
+     * Deletes up to {@code limit} ratings of a user and subtracts them from the aggregates
+     * and score counts of the rated movies in the same statement.
+     * @param userId the ID of the user
+     * @param limit the maximum number of ratings to delete
+     * @return movie ID and score of every deleted rating
+     */
+    @Query(value = "WITH deleted AS (DELETE FROM ratings WHERE id IN " +
+        "(SELECT id FROM ratings WHERE user_id = :userId LIMIT :limit) RETURNING movie_id, score), " +
+        "removed AS (SELECT movie_id, SUM(score) AS score_sum, COUNT(*) AS score_count FROM deleted GROUP BY movie_id), " +
+        "updated AS (UPDATE movie_rating_stats s SET " +
+        "rating_sum = s.rating_sum - r.score_sum, " +
+        "rating_count = s.rating_count - r.score_count, " +
+        "average_rating = CAST(s.rating_sum - r.score_sum AS double precision) / NULLIF(s.rating_count - r.score_count, 0) " +
+        "FROM removed r WHERE s.movie_id = r.movie_id RETURNING s.movie_id), " +
+        "scored AS (UPDATE movie_score_counts c SET rating_count = c.rating_count - d.score_count " +
+        "FROM (SELECT movie_id, score, COUNT(*) AS score_count FROM deleted GROUP BY movie_id, score) d " +
+        "JOIN updated u ON u.movie_id = d.movie_id " +
+        "WHERE c.movie_id = d.movie_id AND c.score = d.score) " +
+        "SELECT movie_id AS \"movieId\", score AS \"score\" FROM deleted",
+        nativeQuery = true)
+    List<MovieScore> deleteUserRatings(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * Deletes up to {@code limit} ratings of a movie and subtracts them from its aggregate
+     * and score counts in the same statement.
+     * @param movieId the ID of the movie
+     * @param limit the maximum number of ratings to delete
+     * @return number of deleted ratings
+     */
+    @Query(value = "WITH deleted AS (DELETE FROM ratings WHERE id IN " +
+        "(SELECT id FROM ratings WHERE movie_id = :movieId LIMIT :limit) RETURNING score), " +
+        "removed AS (SELECT COALESCE(SUM(score), 0) AS score_sum, COUNT(*) AS score_count FROM deleted), " +
+        "updated AS (UPDATE movie_rating_stats s SET " +
+        "rating_sum = s.rating_sum - r.score_sum, " +
+        "rating_count = s.rating_count - r.score_count, " +
+        "average_rating = CAST(s.rating_sum - r.score_sum AS double precision) / NULLIF(s.rating_count - r.score_count, 0) " +
+        "FROM removed r WHERE s.movie_id = :movieId AND r.score_count > 0 RETURNING s.movie_id), " +
+        "scored AS (UPDATE movie_score_counts c SET rating_count = c.rating_count - d.score_count " +
+        "FROM (SELECT score, COUNT(*) AS score_count FROM deleted GROUP BY score) d " +
+        "JOIN updated u ON u.movie_id = :movieId " +
+        "WHERE c.movie_id = :movieId AND c.score = d.score) " +
+        "SELECT score_count FROM removed",
+        nativeQuery = true)
+    long deleteMovieRatings(@Param("movieId") Long movieId, @Param("limit") int limit);
+
+    /**
+     * Blocks rating writes, which update the aggregates and score counts in their own transaction,
+     * until the current transaction ends, and waits for those in progress to commit.
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE movie_rating_stats, movie_score_counts IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockAgainstWriters();
+
+    /**
+     * Recomputes all aggregates from the RATINGS table.
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO movie_rating_stats (movie_id, rating_sum, rating_count, average_rating) " +
+        "SELECT movie_id, SUM(score), COUNT(*), CAST(AVG(score) AS double precision) FROM ratings GROUP BY movie_id " +
+        "ON CONFLICT (movie_id) DO UPDATE SET " +
+        "rating_sum = EXCLUDED.rating_sum, " +
+        "rating_count = EXCLUDED.rating_count, " +
+        "average_rating = EXCLUDED.average_rating",
+        nativeQuery = true)
+    int recomputeAll();
+
+    /**
+     * Removes aggregates of movies that no longer have any ratings.
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query(value = "DELETE FROM movie_rating_stats s " +
+        "WHERE NOT EXISTS (SELECT 1 FROM ratings r WHERE r.movie_id = s.movie_id)",
+        nativeQuery = true)
+    int deleteUnrated();
+
+    /**
+     * Recomputes all score counts from the RATINGS table.
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO movie_score_counts (movie_id, score, rating_count) " +
+        "SELECT movie_id, score, COUNT(*) FROM ratings GROUP BY movie_id, score " +
+        "ON CONFLICT (movie_id, score) DO UPDATE SET rating_count = EXCLUDED.rating_count",
+        nativeQuery = true)
+    int recomputeScoreCounts();
+
+    /**
+     * Removes score counts of scores a movie no longer has any rating with.
+     * @return number of affected rows
+     */
+    @Modifying
+    @Query(value = "DELETE FROM movie_score_counts c " +
+        "WHERE NOT EXISTS (SELECT 1 FROM ratings r WHERE r.movie_id = c.movie_id AND r.score = c.score)",
+        nativeQuery = true)
+    int deleteUnscored();
+}
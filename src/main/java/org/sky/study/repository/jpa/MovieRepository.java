@@ -1,24 +1,60 @@
 package org.sky.study.repository.jpa;
 
-import org.sky.study.dto.TopRatedMovie;
 import org.sky.study.model.jpa.Movie;
+import org.sky.study.model.projection.MovieTitle;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MovieRepository extends JpaRepository<Movie, Long>, JpaSpecificationExecutor<Movie> {
 
+    /**
+     * Checks which of several movies exist.
+     * @param ids the IDs to check
+     * @return IDs of the existing movies
+     */
+    @Query("SELECT m.id FROM Movie m WHERE m.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Finds the titles of several movies without loading the entities.
+     * @param ids the IDs of the movies
+     * @return ID and title of the existing movies
+     */
+    @Query("SELECT m.id AS id, m.title AS title FROM Movie m WHERE m.id IN :ids")
+    List<MovieTitle> findTitlesByIdIn(Collection<Long> ids);
+
+    /**
+     * Finds the titles of all movies without loading the entities.
+     * @return ID and title of every movie, ordered by ID
+     */
+    @Query("SELECT m.id AS id, m.title AS title FROM Movie m ORDER BY m.id")
+    List<MovieTitle> findAllTitles();
+
+    /**
+     * Locks a movie row until the end of the transaction. Inserting a rating checks its
+     * foreign key with a lock that conflicts with this one, so no rating of the movie can
+     * be added until the transaction ends, and ratings being added are committed first.
+     * @param id the ID of the movie
+     * @return the ID if the movie exists
+     */
+    @Query(value = "SELECT id FROM movies WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockMovieRow(@Param("id") Long id);
 
     /**
-     * Retrieves top-rated movies with their average rating.
-     * @return list of top-rated movies
+     * Deletes a movie row without cascading to its ratings, which must already be gone.
+     * @param id the ID of the movie
+     * @return number of deleted rows
      */
-    @Query("SELECT new org.sky.study.dto.TopRatedMovie(m.title, AVG(r.score)) " +
-        "FROM Movie m JOIN m.ratings r GROUP BY m.id, m.title " +
-        "ORDER BY AVG(r.score) DESC")
-    List<TopRatedMovie> findTopRatedMovies();
+    @Modifying
+    @Query("DELETE FROM Movie m WHERE m.id = :id")
+    int deleteMovieRow(Long id);
 }
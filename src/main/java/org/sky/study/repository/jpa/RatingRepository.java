@@ -1,21 +1,97 @@
 package org.sky.study.repository.jpa;
 
 import org.sky.study.model.jpa.Rating;
+import org.sky.study.model.projection.MovieScore;
+import org.sky.study.model.projection.RatingActivity;
+import org.sky.study.model.projection.RatingUpsert;
+import org.sky.study.model.projection.RatingView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RatingRepository extends JpaRepository<Rating, Long> {
+public interface RatingRepository extends JpaRepository<Rating, Long>, RatingRepositoryCustom {
 
     /**
-     * Finds a rating by movie ID and username.
+     * Finds the score and time of a user's rating of a movie without loading the user or the movie,
+     * served by the unique (user_id, movie_id) index.
      * @param movieId the ID of the movie
-     * @param username the username of the user
-     * @return the rating if found, otherwise null
+     * @param userId the ID of the user
+     * @return the rating if found
      */
-    @Query("SELECT r FROM Rating r WHERE r.movie.id = :movieId AND r.user.username = :username")
-    Optional<Rating> findByMovieIdAndUsername(Long movieId, String username);
+    @Query("SELECT r.score AS score, r.ratedAt AS ratedAt FROM Rating r WHERE r.movie.id = :movieId AND r.user.id = :userId")
+    Optional<RatingView> findViewByMovieIdAndUserId(Long movieId, Long userId);
+
+    /**
+     * Deletes a user's rating of a movie in a single statement.
+     * @param movieId the ID of the movie
+     * @param userId the ID of the user
+     * @return the score of the deleted rating, or empty if there was none
+     */
+    @Query(value = "DELETE FROM ratings WHERE movie_id = :movieId AND user_id = :userId RETURNING score",
+        nativeQuery = true)
+    Optional<Integer> deleteReturningScore(@Param("movieId") Long movieId, @Param("userId") Long userId);
+
+    /**
+     * Inserts a user's rating of a movie or overwrites the score of the existing one in a single statement.
+     * The unique (user_id, movie_id) constraint serializes concurrent upserts of the same rating, and the
+     * overwritten score is kept in previous_score so it can be returned together with the new one.
+     * @param movieId the ID of the movie
+     * @param userId the ID of the user
+     * @param score the rating score
+     * @param ratedAt the time of the rating
+     * @return the stored score with the previous one, or empty if the movie does not exist
+     */
+    @Query(value = "INSERT INTO ratings AS r (score, user_id, movie_id, rated_at) " +
+        "SELECT :score, :userId, m.id, :ratedAt FROM movies m WHERE m.id = :movieId " +
+        "ON CONFLICT (user_id, movie_id) DO UPDATE SET " +
+        "previous_score = r.score, score = EXCLUDED.score, rated_at = EXCLUDED.rated_at " +
+        "RETURNING r.score AS \"score\", r.previous_score AS \"previousScore\", r.rated_at AS \"ratedAt\"",
+        nativeQuery = true)
+    Optional<RatingUpsert> upsertRating(@Param("movieId") Long movieId,
+                                        @Param("userId") Long userId,
+                                        @Param("score") Integer score,
+                                        @Param("ratedAt") Instant ratedAt);
+
+    /**
+     * Counts the ratings of a movie.
+     * @param movieId the ID of the movie
+     * @return number of ratings
+     */
+    long countByMovieId(Long movieId);
+
+    /**
+     * Counts the ratings of a user.
+     * @param userId the ID of the user
+     * @return number of ratings
+     */
+    long countByUserId(Long userId);
+
+    /**
+     * Finds the scores a user gave to the given movies in one query.
+     * @param userId the ID of the user
+     * @param movieIds the IDs of the movies
+     * @return movie ID and score of the user's ratings among those movies
+     */
+    @Query("SELECT r.movie.id AS movieId, r.score AS score FROM Rating r WHERE r.user.id = :userId AND r.movie.id IN :movieIds")
+    List<MovieScore> findMovieScoresByUserIdAndMovieIdIn(Long userId, Collection<Long> movieIds);
+
+    /**
+     * Retrieves the movies whose ratings were given or last changed most often since a point
+     * in time, served by the rated_at index.
+     * @param since the start of the counted period
+     * @param limit maximum number of movies to return
+     * @return rating count per movie, most rated first
+     */
+    @Query(value = "SELECT r.movie_id AS \"movieId\", m.title AS \"title\", COUNT(*) AS \"ratingCount\" " +
+        "FROM ratings r JOIN movies m ON m.id = r.movie_id WHERE r.rated_at >= :since " +
+        "GROUP BY r.movie_id, m.title ORDER BY COUNT(*) DESC, r.movie_id LIMIT :limit",
+        nativeQuery = true)
+    List<RatingActivity> findMostRatedSince(@Param("since") Instant since, @Param("limit") int limit);
 }
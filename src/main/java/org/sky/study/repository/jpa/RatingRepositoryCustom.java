@@ -0,0 +1,11 @@
+package org.sky.study.repository.jpa;
+
+import org.sky.study.model.projection.WrittenRating;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RatingRepositoryCustom {
+
+    List<WrittenRating> upsertRatings(Long[] userIds, Long[] movieIds, Integer[] scores, Instant[] ratedAts);
+}
@@ -0,0 +1,88 @@
+package org.sky.study.repository.jpa;
+
+import org.sky.study.model.projection.WrittenRating;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batch rating writes that Spring Data queries cannot express, since the
+ * ratings are bound as one Postgres array per column.
+ */
+public class RatingRepositoryCustomImpl implements RatingRepositoryCustom {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO ratings AS r (score, user_id, movie_id, rated_at) " +
+            "SELECT v.score, u.id, m.id, v.rated_at " +
+            "FROM unnest(?, ?, ?, ?) AS v(user_id, movie_id, score, rated_at) " +
+            "JOIN users u ON u.id = v.user_id " +
+            "JOIN movies m ON m.id = v.movie_id " +
+            "ON CONFLICT (user_id, movie_id) DO UPDATE SET " +
+            "previous_score = r.score, score = EXCLUDED.score, rated_at = EXCLUDED.rated_at " +
+            "RETURNING r.movie_id, r.user_id, r.score, r.previous_score";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RatingRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts or updates a batch of ratings in one statement. Ratings of users or movies
+     * that do not exist are skipped. A user and movie pair must occur at most once.
+     * @param userIds the IDs of the rating users
+     * @param movieIds the IDs of the rated movies
+     * @param scores the rating scores
+     * @param ratedAts the times of the ratings
+     * @return the stored ratings with the scores they overwrote
+     */
+    @Override
+    public List<WrittenRating> upsertRatings(Long[] userIds, Long[] movieIds, Integer[] scores, Instant[] ratedAts) {
+        Timestamp[] timestamps = Arrays.stream(ratedAts).map(Timestamp::from).toArray(Timestamp[]::new);
+        return jdbcTemplate.query(UPSERT_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", userIds));
+            ps.setArray(2, connection.createArrayOf("bigint", movieIds));
+            ps.setArray(3, connection.createArrayOf("integer", scores));
+            ps.setArray(4, connection.createArrayOf("timestamptz", timestamps));
+        }, (rs, rowNum) -> new Row(rs.getLong(1), rs.getLong(2), rs.getInt(3), (Integer) rs.getObject(4)));
+    }
+
+    private static final class Row implements WrittenRating {
+        private final Long movieId;
+        private final Long userId;
+        private final Integer score;
+        private final Integer previousScore;
+
+        private Row(Long movieId, Long userId, Integer score, Integer previousScore) {
+            this.movieId = movieId;
+            this.userId = userId;
+            this.score = score;
+            this.previousScore = previousScore;
+        }
+
+        @Override
+        public Long getMovieId() {
+            return movieId;
+        }
+
+        @Override
+        public Long getUserId() {
+            return userId;
+        }
+
+        @Override
+        public Integer getScore() {
+            return score;
+        }
+
+        @Override
+        public Integer getPreviousScore() {
+            return previousScore;
+        }
+    }
+}
@@ -1,12 +1,53 @@
 package org.sky.study.repository.jpa;
 
 import org.sky.study.model.jpa.User;
+import org.sky.study.model.projection.UserIdentity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    /**
+     * Resolves the ID of a user without loading the credentials.
+     * @param username the username
+     * @return the ID if the user exists
+     */
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(String username);
+
+    /**
+     * Resolves the IDs of several users at once.
+     * @param usernames the usernames to resolve
+     * @return ID and username of every existing user among them
+     */
+    @Query("SELECT u.id AS id, u.username AS username FROM User u WHERE u.username IN :usernames")
+    List<UserIdentity> findIdentitiesByUsernameIn(Collection<String> usernames);
+
+    /**
+     * Locks a user row until the end of the transaction. Inserting a rating checks its
+     * foreign key with a lock that conflicts with this one, so no rating of the user can
+     * be added until the transaction ends, and ratings being added are committed first.
+     * @param id the ID of the user
+     * @return the ID if the user exists
+     */
+    @Query(value = "SELECT id FROM users WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockUserRow(@Param("id") Long id);
+
+    /**
+     * Deletes a user row without cascading to its ratings, which must already be gone.
+     * @param id the ID of the user
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteUserRow(Long id);
 }
@@ -25,16 +25,23 @@ import java.io.IOException;
 /**
  * This filter checks for the presence of a JWT in the Authorization header,
  * validates it, and sets the authentication in the SecurityContext if valid.
+ * In stateless mode the user is built from the verified claims alone; deleted
+ * users and role changes are handled by revoking the user's tokens instead of
+ * loading the user on every request. Tokens issued without the user ID are
+ * rejected there, since neither their revocation nor a deleted user whose
+ * username was registered again could be detected.
  */
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtServiceImpl jwtService;
     private final UserDetailsService userService;
+    private final boolean stateless;
 
-    public JwtAuthenticationFilter(JwtServiceImpl jwtService, UserDetailsService userService) {
+    public JwtAuthenticationFilter(JwtServiceImpl jwtService, UserDetailsService userService, boolean stateless) {
         this.jwtService = jwtService;
         this.userService = userService;
+        this.stateless = stateless;
     }
 
     @Override
@@ -44,18 +51,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             Claims claims = jwtService.getClaims(authHeader);
             String username = claims.getSubject();
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userService.loadUserByUsername(username);
-                if (!jwtService.isBlacklisted(authHeader.substring(7))) {
-                    UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                            userDetails.getUsername(),
-                            userDetails.getPassword(),
-                            userDetails.getAuthorities());
-                    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && !jwtService.isRevoked(authHeader.substring(7), claims)) {
+                if (stateless) {
+                    UserPrincipal principal = jwtService.getPrincipal(claims);
+                    if (principal.getId() != null) {
+                        authenticate(request, principal);
+                    }
+                } else {
+                    UserDetails userDetails = userService.loadUserByUsername(username);
+                    if (isSameUser(claims, userDetails)) {
+                        authenticate(request, userDetails);
+                    }
                 }
             }
         }
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private void authenticate(HttpServletRequest request, UserDetails userDetails) {
+        // the principal carries the user ID so ratings can be addressed by key
+        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                userDetails.getPassword(),
+                userDetails.getAuthorities());
+        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    }
+
+    /**
+     * Rejects tokens of a deleted user whose username has been registered again.
+     */
+    private boolean isSameUser(Claims claims, UserDetails userDetails) {
+        Long tokenUserId = jwtService.getUserId(claims);
+        return tokenUserId == null
+                || !(userDetails instanceof UserPrincipal principal)
+                || tokenUserId.equals(principal.getId());
+    }
+}
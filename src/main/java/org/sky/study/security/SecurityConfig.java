@@ -1,9 +1,11 @@
 package org.sky.study.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.sky.study.service.impl.JwtServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -26,11 +28,14 @@ public class SecurityConfig {
 
     private final JwtServiceImpl jwtService;
     private final UserDetailsService userService;
+    private final boolean stateless;
 
     @Autowired
-    public SecurityConfig(JwtServiceImpl jwtService, @Lazy UserDetailsService userService) {
+    public SecurityConfig(JwtServiceImpl jwtService, @Lazy UserDetailsService userService,
+                          @Value("${jwt.stateless:true}") boolean stateless) {
         this.jwtService = jwtService;
         this.userService = userService;
+        this.stateless = stateless;
     }
 
     /**
@@ -46,13 +51,19 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/auth/**", "/register").permitAll()
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**", "/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+                        .requestMatchers("/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/changes").hasRole("ADMIN")
                         .requestMatchers("/movies/top-rated").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/movies/*/ratings/histogram").permitAll()
                         .requestMatchers("/movies/*/ratings").authenticated()
                         .requestMatchers(HttpMethod.POST,"/movies").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/movies/*").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/movies/export").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/movies/*").permitAll()
                         .requestMatchers(HttpMethod.GET, "/movies").permitAll()
                         .requestMatchers(HttpMethod.DELETE, "/register/*").authenticated()
+                        .requestMatchers("/users/me/**").authenticated()
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
@@ -64,13 +75,17 @@ public class SecurityConfig {
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtService, userService);
+        return new JwtAuthenticationFilter(jwtService, userService, stateless);
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        // Use BCryptPasswordEncoder for password encoding
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${password.hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+                                           @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${password.hashing.queue-timeout-ms:2000}") long queueTimeoutMillis) {
+        // Use BCryptPasswordEncoder for password encoding, off the request threads
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, queueTimeoutMillis,
+                meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,11 @@
+package org.sky.study.service;
+
+import org.sky.study.dto.BulkIngestResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BulkRatingIngestService {
+
+    BulkIngestResult ingest(InputStream ndjson) throws IOException;
+}
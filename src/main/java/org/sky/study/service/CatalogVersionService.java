@@ -0,0 +1,11 @@
+package org.sky.study.service;
+
+import java.util.Optional;
+
+public interface CatalogVersionService {
+
+    Optional<Long> getCatalogVersion();
+    Optional<Long> getRatingsVersion();
+    void catalogChanged();
+    void ratingsChanged();
+}
@@ -0,0 +1,14 @@
+package org.sky.study.service;
+
+import org.sky.study.dto.ChangeFeedPage;
+import org.sky.study.model.jpa.ChangeEvent;
+
+import java.util.List;
+
+public interface ChangeFeedService {
+
+    void append(ChangeEvent event);
+    void appendAll(List<ChangeEvent> events);
+    ChangeFeedPage getChanges(Long after, Integer limit, String consumer);
+    int trim();
+}
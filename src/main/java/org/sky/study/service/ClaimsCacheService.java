@@ -0,0 +1,9 @@
+package org.sky.study.service;
+
+import io.jsonwebtoken.Claims;
+
+public interface ClaimsCacheService {
+
+    Claims get(String token);
+    void put(String token, Claims claims);
+}
@@ -0,0 +1,10 @@
+package org.sky.study.service;
+
+import org.sky.study.dto.DeletionJob;
+
+public interface EntityDeletionService {
+
+    DeletionJob deleteMovie(Long movieId);
+    DeletionJob deleteUser(Long userId);
+    DeletionJob getJob(String jobId);
+}
@@ -0,0 +1,11 @@
+package org.sky.study.service;
+
+import org.sky.study.dto.TopRatedMovie;
+
+import java.util.List;
+
+public interface LeaderboardService {
+
+    List<TopRatedMovie> getTopRatedMovies(String genre, Integer releaseYearFrom, Integer releaseYearTo, int limit);
+    int rebuild();
+}
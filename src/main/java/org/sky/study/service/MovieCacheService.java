@@ -0,0 +1,13 @@
+package org.sky.study.service;
+
+import org.sky.study.model.jpa.Movie;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+public interface MovieCacheService {
+
+    Movie get(Long movieId, Function<Long, Movie> loader);
+    Optional<Long> getVersion(Long movieId);
+    void invalidate(Long movieId);
+}
@@ -0,0 +1,9 @@
+package org.sky.study.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface MovieExportService {
+
+    long exportMovies(OutputStream ndjson) throws IOException;
+}
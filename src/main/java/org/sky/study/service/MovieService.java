@@ -1,7 +1,10 @@
 package org.sky.study.service;
 
+import org.sky.study.dto.DeletionJob;
 import org.sky.study.dto.TopRatedMovie;
+import org.sky.study.dto.TrendingMovie;
 import org.sky.study.model.jpa.Movie;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
 
@@ -10,8 +13,13 @@ import java.util.Optional;
 
 public interface MovieService {
     PagedModel<EntityModel<Movie>> getAllMoviesWithFilters(int page, int size, String title, String genre, Integer releaseYear);
+    List<Movie> getMovieListWithFilters(int page, int size, String title, String genre, Integer releaseYear);
+    CollectionModel<EntityModel<Movie>> getMoviesAfterCursor(String cursor, int size, String sort, String title, String genre, Integer releaseYear);
+    long countMoviesWithFilters(String title, String genre, Integer releaseYear);
     Movie getMovieById(Long movieId);
-    List<TopRatedMovie> getTopRatedMovies();
+    Optional<Long> getCachedMovieVersion(Long movieId);
+    List<TopRatedMovie> getTopRatedMovies(String genre, Integer releaseYearFrom, Integer releaseYearTo, int limit);
+    List<TrendingMovie> getTrendingMovies(String window, int limit);
     Movie saveOrUpdateMovie(Movie movie);
-    void deleteMovie(Long movieId);
+    DeletionJob deleteMovie(Long movieId);
 }
@@ -0,0 +1,8 @@
+package org.sky.study.service;
+
+import org.sky.study.dto.RatingHistogram;
+
+public interface RatingHistogramService {
+
+    RatingHistogram getHistogram(Long movieId);
+}
@@ -1,13 +1,19 @@
 package org.sky.study.service;
 
+import org.sky.study.dto.RatingHistogram;
 import org.sky.study.model.jpa.Rating;
+import org.sky.study.model.projection.RatingView;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface RatingService {
 
-    Rating getRatingByMovieIdAndUserName(Long movieId, String username);
-    Rating saveOrUpdateRating(Long movieId, Integer score, String username);
-    void deleteUserRating(Long movieId, String username);
+    RatingView getRatingByMovieIdAndUserId(Long movieId, Long userId);
+    Map<Long, Integer> getUserScores(Collection<Long> movieIds, Long userId);
+    Rating saveOrUpdateRating(Long movieId, Integer score, Long userId);
+    void deleteUserRating(Long movieId, Long userId);
+    RatingHistogram getRatingHistogram(Long movieId);
 
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package org.sky.study.service;
+
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.model.projection.MovieScore;
+
+import java.util.List;
+
+public interface RatingStatsService {
+
+    void ratingAdded(Long movieId, Integer score);
+    void ratingChanged(Long movieId, Integer oldScore, Integer newScore);
+    void ratingRemoved(Long movieId, Integer score);
+    void ratingsChanged(List<RatingChangedEvent> changes);
+    List<MovieScore> removeUserRatings(Long userId, int limit);
+    long removeMovieRatings(Long movieId, int limit);
+    void movieRemoved(Long movieId);
+    int rebuild();
+}
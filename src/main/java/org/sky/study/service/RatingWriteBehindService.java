@@ -0,0 +1,11 @@
+package org.sky.study.service;
+
+import org.sky.study.model.jpa.Rating;
+
+public interface RatingWriteBehindService {
+
+    boolean isEnabled();
+    Rating enqueue(Long movieId, Integer score, Long userId);
+    int flush();
+    int getPendingCount();
+}
@@ -0,0 +1,10 @@
+package org.sky.study.service;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface TitleIndexService {
+
+    Optional<List<Long>> findMovieIds(String term);
+    int rebuild();
+}
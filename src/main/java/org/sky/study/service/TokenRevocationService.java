@@ -0,0 +1,12 @@
+package org.sky.study.service;
+
+import java.util.Optional;
+
+public interface TokenRevocationService {
+
+    boolean isSynchronized();
+    boolean mightBeBlacklisted(String tokenId, long expiresAt);
+    Optional<Long> getRevokedBefore(Long userId);
+    void tokenBlacklisted(String tokenId, long expiresAt);
+    void userTokensRevoked(Long userId, long revokedBefore);
+}
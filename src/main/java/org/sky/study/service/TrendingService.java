@@ -0,0 +1,11 @@
+package org.sky.study.service;
+
+import org.sky.study.dto.TrendingMovie;
+import org.sky.study.dto.TrendingWindow;
+
+import java.util.List;
+
+public interface TrendingService {
+
+    List<TrendingMovie> getTrendingMovies(TrendingWindow window, int limit);
+}
@@ -1,11 +1,14 @@
 package org.sky.study.service;
 
+import org.sky.study.dto.DeletionJob;
 import org.sky.study.model.jpa.User;
 
 public interface UserService {
 
     User getUser(Long id);
-    void deleteUserById(Long id);
+    DeletionJob deleteUserById(Long id);
+    void revokeUserTokens(Long id);
     void registerUser(User user);
     boolean isUserExists(String username);
+    Long getCurrentUserId();
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+package org.sky.study.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.sky.study.service.TokenRevocationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mirrors the revoked tokens kept in Redis on each node, so that checking a
+ * token does not need a Redis round trip. Blacklisted tokens go into a
+ * {@link TimePartitionedBloomFilter} partitioned by token expiry, and Redis is
+ * only asked about a token the filter may contain. The revoked-before times of
+ * users are few and kept exactly. Every revocation is published on
+ * {@value #REVOCATION_CHANNEL}, and the node copies all revocations from Redis
+ * once it is subscribed, so it misses none made before. Until then, and
+ * whenever the subscription is lost, the node reports itself as not
+ * synchronized and callers must ask Redis.
+ */
+@Service
+public class BloomFilterTokenRevocationServiceImpl implements TokenRevocationService, MessageListener {
+
+    static final String REVOCATION_CHANNEL = "tokens:revoked";
+
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long partitionMillis;
+    private final TimePartitionedBloomFilter blacklist;
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+    private volatile boolean synced;
+
+    private final Counter negativeCounter;
+    private final Counter possibleCounter;
+
+    private static final Logger log = LoggerFactory.getLogger(BloomFilterTokenRevocationServiceImpl.class);
+
+    public BloomFilterTokenRevocationServiceImpl(RedisTemplate<String, String> redisTemplate,
+                                                 RedisMessageListenerContainer listenerContainer,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${jwt.revocation.partition-minutes:5}") long partitionMinutes,
+                                                 @Value("${jwt.revocation.expected-tokens:10000}") int expectedTokens,
+                                                 @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.partitionMillis = TimeUnit.MINUTES.toMillis(partitionMinutes);
+        this.blacklist = new TimePartitionedBloomFilter(partitionMillis, expectedTokens, falsePositiveRate);
+
+        Gauge.builder("jwt.revocation.users", revokedBefore, Map::size)
+                .description("Users whose tokens were revoked within the token lifetime")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocation.filter.partitions", blacklist, TimePartitionedBloomFilter::getPartitionCount)
+                .description("Partitions of the blacklisted token filter")
+                .register(meterRegistry);
+        this.negativeCounter = Counter.builder("jwt.revocation.filter.checks")
+                .description("Tokens checked against the blacklisted token filter")
+                .tag("result", "negative")
+                .register(meterRegistry);
+        this.possibleCounter = Counter.builder("jwt.revocation.filter.checks")
+                .description("Tokens checked against the blacklisted token filter")
+                .tag("result", "possible")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(REVOCATION_CHANNEL));
+    }
+
+    /**
+     * Checks whether this node has seen every revocation, so it can answer without Redis.
+     * @return true if subscribed to revocations and copied those made before
+     */
+    @Override
+    public boolean isSynchronized() {
+        if (!listenerContainer.isListening()) {
+            synced = false;
+        }
+        return synced;
+    }
+
+    /**
+     * Checks the local filter for a blacklisted token.
+     * @param tokenId the ID of the token
+     * @param expiresAt the expiry of the token in epoch millis
+     * @return false if the token is certainly not blacklisted, true if Redis must be asked
+     */
+    @Override
+    public boolean mightBeBlacklisted(String tokenId, long expiresAt) {
+        if (blacklist.mightContain(tokenId, expiresAt)) {
+            possibleCounter.increment();
+            return true;
+        }
+        negativeCounter.increment();
+        return false;
+    }
+
+    /**
+     * Retrieves the time before which the tokens of a user were revoked.
+     * @param userId the ID of the user
+     * @return the revocation time in epoch millis, or empty if the user's tokens were not revoked
+     */
+    @Override
+    public Optional<Long> getRevokedBefore(Long userId) {
+        return Optional.ofNullable(revokedBefore.get(userId));
+    }
+
+    /**
+     * Records a blacklisted token on this node and tells the other nodes about it.
+     * @param tokenId the ID of the token
+     * @param expiresAt the expiry of the token in epoch millis
+     */
+    @Override
+    public void tokenBlacklisted(String tokenId, long expiresAt) {
+        publish(JwtServiceImpl.BLACKLIST_PREFIX + tokenId, Long.toString(expiresAt));
+    }
+
+    /**
+     * Records the revocation of a user's tokens on this node and tells the other nodes about it.
+     * @param userId the ID of the user
+     * @param revokedBefore the revocation time in epoch millis
+     */
+    @Override
+    public void userTokensRevoked(Long userId, long revokedBefore) {
+        publish(JwtServiceImpl.REVOKED_BEFORE_PREFIX + userId, Long.toString(revokedBefore));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(' ');
+        if (separator < 0) {
+            log.warn("Ignoring malformed token revocation: {}", body);
+            return;
+        }
+        record(body.substring(0, separator), body.substring(separator + 1));
+    }
+
+    /**
+     * Subscribes to revocations, retrying until Redis is reachable, and then copies
+     * the revocations stored in Redis.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.subscribe-retry-ms:10000}")
+    public void synchronize() {
+        if (isSynchronized()) {
+            return;
+        }
+        try {
+            if (!listenerContainer.isRunning()) {
+                listenerContainer.start();
+            }
+            if (!listenerContainer.isListening()) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            int count = load(JwtServiceImpl.BLACKLIST_PREFIX) + load(JwtServiceImpl.REVOKED_BEFORE_PREFIX);
+            synced = true;
+            log.info("Loaded {} token revocations from Redis in {} ms", count, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("Could not load token revocations, checking every token in Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the revocations of tokens that have expired by now.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.expire-ms:60000}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        blacklist.expire(now);
+        revokedBefore.values().removeIf(time -> time + JwtServiceImpl.VALIDITY < now);
+    }
+
+    private void publish(String key, String value) {
+        record(key, value);
+        try {
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, key + " " + value);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish token revocation {}", key, e);
+        }
+    }
+
+    private int load(String prefix) {
+        int count = 0;
+        List<String> keys = new ArrayList<>(SCAN_BATCH_SIZE);
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(SCAN_BATCH_SIZE).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                keys.add(cursor.next());
+                if (keys.size() == SCAN_BATCH_SIZE) {
+                    count += load(keys);
+                    keys.clear();
+                }
+            }
+        }
+        return count + load(keys);
+    }
+
+    private int load(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        int count = 0;
+        for (int i = 0; values != null && i < keys.size(); i++) {
+            if (values.get(i) != null) {
+                record(keys.get(i), values.get(i));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void record(String key, String value) {
+        if (key.startsWith(JwtServiceImpl.BLACKLIST_PREFIX)) {
+            String tokenId = key.substring(JwtServiceImpl.BLACKLIST_PREFIX.length());
+            Long expiresAt = parse(value);
+            if (expiresAt != null) {
+                blacklist.put(tokenId, expiresAt);
+            } else {
+                // written without the expiry, so put it where any token still valid may be looked up
+                long now = System.currentTimeMillis();
+                for (long time = now; time < now + JwtServiceImpl.VALIDITY + partitionMillis; time += partitionMillis) {
+                    blacklist.put(tokenId, time);
+                }
+            }
+        } else if (key.startsWith(JwtServiceImpl.REVOKED_BEFORE_PREFIX)) {
+            Long userId = parse(key.substring(JwtServiceImpl.REVOKED_BEFORE_PREFIX.length()));
+            Long time = parse(value);
+            if (userId != null && time != null) {
+                revokedBefore.merge(userId, time, Math::max);
+            }
+        }
+    }
+
+    private static Long parse(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
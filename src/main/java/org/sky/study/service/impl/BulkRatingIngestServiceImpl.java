@@ -0,0 +1,300 @@
+package org.sky.study.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.sky.study.dto.BulkIngestError;
+import org.sky.study.dto.BulkIngestResult;
+import org.sky.study.dto.BulkRatingRow;
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.model.jpa.ChangeEvent;
+import org.sky.study.model.jpa.Rating;
+import org.sky.study.model.projection.UserIdentity;
+import org.sky.study.model.projection.WrittenRating;
+import org.sky.study.repository.jpa.MovieRepository;
+import org.sky.study.repository.jpa.RatingRepository;
+import org.sky.study.repository.jpa.UserRepository;
+import org.sky.study.service.BulkRatingIngestService;
+import org.sky.study.service.ChangeFeedService;
+import org.sky.study.service.RatingStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Loads newline-delimited JSON rating dumps of {"username", "movieId", "score"} rows.
+ * The body is read as a stream and processed in chunks: users and movies of a chunk
+ * are resolved with one IN query each, and the ratings are written by a single
+ * upsert statement whose RETURNING clause yields the overwritten scores, so a
+ * rating stored concurrently by another request is updated rather than failing
+ * the chunk, and the aggregates see the score it actually replaced. Each chunk
+ * commits on its own together with its aggregate updates and change events, so
+ * a failing chunk does not undo the chunks before it. Invalid rows are skipped
+ * and reported with their line number. A row replaced by a later row of the same
+ * chunk for the same user and movie is counted as superseded.
+ */
+@Service
+public class BulkRatingIngestServiceImpl implements BulkRatingIngestService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final UserRepository userRepository;
+    private final MovieRepository movieRepository;
+    private final RatingRepository ratingRepository;
+    private final RatingStatsService ratingStatsService;
+    private final ChangeFeedService changeFeedService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${ratings.bulk.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(BulkRatingIngestServiceImpl.class);
+
+    public BulkRatingIngestServiceImpl(UserRepository userRepository,
+                                       MovieRepository movieRepository,
+                                       RatingRepository ratingRepository,
+                                       RatingStatsService ratingStatsService,
+                                       ChangeFeedService changeFeedService,
+                                       TransactionTemplate transactionTemplate,
+                                       ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.movieRepository = movieRepository;
+        this.ratingRepository = ratingRepository;
+        this.ratingStatsService = ratingStatsService;
+        this.changeFeedService = changeFeedService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Ingests a rating dump.
+     * @param ndjson one JSON rating per line
+     * @return counts of inserted, updated, superseded and failed rows, throughput and per-row errors
+     * @throws IOException if the body cannot be read
+     */
+    @Override
+    public BulkIngestResult ingest(InputStream ndjson) throws IOException {
+        long started = System.nanoTime();
+        BulkIngestResult result = new BulkIngestResult();
+        List<ParsedRow> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.setReceived(result.getReceived() + 1);
+                ParsedRow row = parse(lineNumber, line, result);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() >= chunkSize) {
+                    processChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, result);
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        result.setElapsedMillis(elapsedMillis);
+        result.setRowsPerSecond(result.getReceived() * 1000.0 / elapsedMillis);
+        log.info("Bulk ingested {} ratings in {} ms: {} inserted, {} updated, {} superseded, {} failed",
+                result.getReceived(), elapsedMillis, result.getInserted(), result.getUpdated(),
+                result.getSuperseded(), result.getFailed());
+        return result;
+    }
+
+    private ParsedRow parse(long lineNumber, String line, BulkIngestResult result) {
+        BulkRatingRow row;
+        try {
+            row = objectMapper.readValue(line, BulkRatingRow.class);
+        } catch (JsonProcessingException e) {
+            fail(result, lineNumber, "Malformed JSON");
+            return null;
+        }
+        if (row.getUsername() == null || row.getUsername().isBlank() || row.getMovieId() == null || row.getScore() == null) {
+            fail(result, lineNumber, "username, movieId and score are required");
+            return null;
+        }
+        if (row.getScore() < Rating.MIN_SCORE || row.getScore() > Rating.MAX_SCORE) {
+            fail(result, lineNumber, "Score must be between " + Rating.MIN_SCORE + " and " + Rating.MAX_SCORE);
+            return null;
+        }
+        return new ParsedRow(lineNumber, row);
+    }
+
+    private void processChunk(List<ParsedRow> chunk, BulkIngestResult result) {
+        Set<String> usernames = new HashSet<>();
+        Set<Long> movieIds = new HashSet<>();
+        chunk.forEach(row -> {
+            usernames.add(row.row.getUsername());
+            movieIds.add(row.row.getMovieId());
+        });
+
+        try {
+            ChunkOutcome outcome = transactionTemplate.execute(status -> {
+                Map<String, Long> userIds = new HashMap<>();
+                for (UserIdentity user : userRepository.findIdentitiesByUsernameIn(usernames)) {
+                    userIds.put(user.getUsername(), user.getId());
+                }
+                Set<Long> existingMovieIds = new HashSet<>(movieRepository.findExistingIds(movieIds));
+
+                Map<RatingKey, PendingRating> pending = new LinkedHashMap<>();
+                List<BulkIngestError> errors = new ArrayList<>();
+                int superseded = 0;
+                for (ParsedRow parsed : chunk) {
+                    Long userId = userIds.get(parsed.row.getUsername());
+                    if (userId == null) {
+                        errors.add(new BulkIngestError(parsed.line, "User not found: " + parsed.row.getUsername()));
+                    } else if (!existingMovieIds.contains(parsed.row.getMovieId())) {
+                        errors.add(new BulkIngestError(parsed.line, "Movie not found with ID: " + parsed.row.getMovieId()));
+                    } else {
+                        PendingRating rating = pending.computeIfAbsent(
+                                new RatingKey(userId, parsed.row.getMovieId()), PendingRating::new);
+                        if (rating.score != null) {
+                            // a later line of the chunk rates the same movie again and replaces this one
+                            superseded++;
+                        }
+                        rating.line = parsed.line;
+                        rating.score = parsed.row.getScore();
+                    }
+                }
+                return write(pending, superseded, errors);
+            });
+            result.setInserted(result.getInserted() + outcome.inserted);
+            result.setUpdated(result.getUpdated() + outcome.updated);
+            result.setSuperseded(result.getSuperseded() + outcome.superseded);
+            outcome.errors.forEach(error -> fail(result, error.getLine(), error.getMessage()));
+        } catch (RuntimeException e) {
+            log.error("Bulk rating chunk starting at line {} failed", chunk.get(0).line, e);
+            chunk.forEach(row -> fail(result, row.line, "Chunk failed: " + e.getMessage()));
+        }
+    }
+
+    private ChunkOutcome write(Map<RatingKey, PendingRating> pending, int superseded, List<BulkIngestError> errors) {
+        if (pending.isEmpty()) {
+            return new ChunkOutcome(0, 0, superseded, errors);
+        }
+        Long[] userIds = new Long[pending.size()];
+        Long[] movieIds = new Long[pending.size()];
+        Integer[] scores = new Integer[pending.size()];
+        Instant[] ratedAts = new Instant[pending.size()];
+        Instant ratedAt = Instant.now();
+        int i = 0;
+        for (PendingRating rating : pending.values()) {
+            userIds[i] = rating.key.userId;
+            movieIds[i] = rating.key.movieId;
+            scores[i] = rating.score;
+            ratedAts[i++] = ratedAt;
+        }
+        List<WrittenRating> rows = ratingRepository.upsertRatings(userIds, movieIds, scores, ratedAts);
+
+        int inserted = 0;
+        List<RatingChangedEvent> changes = new ArrayList<>();
+        List<ChangeEvent> changeEvents = new ArrayList<>();
+        Set<RatingKey> written = new HashSet<>();
+        for (WrittenRating row : rows) {
+            written.add(new RatingKey(row.getUserId(), row.getMovieId()));
+            if (row.getPreviousScore() == null) {
+                inserted++;
+                changes.add(new RatingChangedEvent(row.getMovieId(), null, row.getScore()));
+                changeEvents.add(ChangeEvent.rating(ChangeEvent.Operation.CREATED, row.getMovieId(), row.getUserId(),
+                        row.getScore()));
+            } else if (!row.getPreviousScore().equals(row.getScore())) {
+                changes.add(new RatingChangedEvent(row.getMovieId(), row.getPreviousScore(), row.getScore()));
+                changeEvents.add(ChangeEvent.rating(ChangeEvent.Operation.UPDATED, row.getMovieId(), row.getUserId(),
+                        row.getScore()));
+            }
+        }
+        // the user or movie was deleted after the chunk looked it up
+        pending.forEach((key, rating) -> {
+            if (!written.contains(key)) {
+                errors.add(new BulkIngestError(rating.line, "User or movie no longer exists"));
+            }
+        });
+        if (!changes.isEmpty()) {
+            ratingStatsService.ratingsChanged(changes);
+        }
+        changeFeedService.appendAll(changeEvents);
+        return new ChunkOutcome(inserted, rows.size() - inserted, superseded, errors);
+    }
+
+    private static void fail(BulkIngestResult result, long line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new BulkIngestError(line, message));
+        }
+    }
+
+    private static final class ParsedRow {
+        private final long line;
+        private final BulkRatingRow row;
+
+        private ParsedRow(long line, BulkRatingRow row) {
+            this.line = line;
+            this.row = row;
+        }
+    }
+
+    private static final class RatingKey {
+        private final long userId;
+        private final long movieId;
+
+        private RatingKey(long userId, long movieId) {
+            this.userId = userId;
+            this.movieId = movieId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RatingKey)) return false;
+            RatingKey other = (RatingKey) o;
+            return userId == other.userId && movieId == other.movieId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, movieId);
+        }
+    }
+
+    private static final class PendingRating {
+        private final RatingKey key;
+        private long line;
+        private Integer score;
+
+        private PendingRating(RatingKey key) {
+            this.key = key;
+        }
+    }
+
+    private static final class ChunkOutcome {
+        private final int inserted;
+        private final int updated;
+        private final int superseded;
+        private final List<BulkIngestError> errors;
+
+        private ChunkOutcome(int inserted, int updated, int superseded, List<BulkIngestError> errors) {
+            this.inserted = inserted;
+            this.updated = updated;
+            this.superseded = superseded;
+            this.errors = errors;
+        }
+    }
+}
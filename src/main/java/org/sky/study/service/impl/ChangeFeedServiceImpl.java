@@ -0,0 +1,181 @@
+package org.sky.study.service.impl;
+
+import org.sky.study.dto.ChangeFeedPage;
+import org.sky.study.model.jpa.ChangeConsumer;
+import org.sky.study.model.jpa.ChangeEvent;
+import org.sky.study.repository.jpa.ChangeConsumerRepository;
+import org.sky.study.repository.jpa.ChangeEventRepository;
+import org.sky.study.service.ChangeFeedService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Change feed backed by the change_events outbox table. Writers append events in
+ * their own transaction without a position, so appending never contends on a
+ * shared counter. Readers first sequence whatever has been committed since the
+ * last read under an advisory lock; positions therefore follow commit order and
+ * a consumer paging by position never skips an event committed late by a slow
+ * transaction. Named consumers have their position stored, and events behind
+ * every consumer, or older than the maximum age, are trimmed in chunks.
+ */
+@Service
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+
+    public static final int DEFAULT_LIMIT = 500;
+    public static final int MAX_LIMIT = 5000;
+    private static final long SEQUENCER_LOCK_KEY = 0x63686e67L;
+    private static final int MAX_CONSUMER_NAME_LENGTH = 64;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO change_events (entity_type, operation, movie_id, user_id, score, occurred_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final ChangeEventRepository changeEventRepository;
+    private final ChangeConsumerRepository changeConsumerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxAge;
+    private final int chunkSize;
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedServiceImpl.class);
+
+    public ChangeFeedServiceImpl(ChangeEventRepository changeEventRepository,
+                                 ChangeConsumerRepository changeConsumerRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${changes.retention.max-age-hours:168}") long maxAgeHours,
+                                 @Value("${changes.retention.chunk-size:10000}") int chunkSize) {
+        this.changeEventRepository = changeEventRepository;
+        this.changeConsumerRepository = changeConsumerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAge = Duration.ofHours(maxAgeHours);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Appends a change event within the caller's transaction.
+     * @param event the change event
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(ChangeEvent event) {
+        changeEventRepository.save(event);
+    }
+
+    /**
+     * Appends change events as one JDBC batch within the caller's transaction.
+     * @param events the change events
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<ChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (ChangeEvent event : events) {
+            rows.add(new Object[]{event.getEntityType().name(), event.getOperation().name(), event.getMovieId(),
+                    event.getUserId(), event.getScore(), Timestamp.from(event.getOccurredAt())});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * Reads the changes after a position. Passing a consumer name stores the position
+     * read from as that consumer's acknowledged position, and a consumer reading
+     * without a position resumes from the stored one.
+     * @param after the position to read after, or null for the consumer's stored position
+     * @param limit the maximum number of changes, defaults to {@value #DEFAULT_LIMIT}
+     * @param consumer the optional consumer name
+     * @return the changes with the cursor to read the next page from
+     */
+    @Override
+    @Transactional
+    public ChangeFeedPage getChanges(Long after, Integer limit, String consumer) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (after != null && after < 0) {
+            throw new IllegalArgumentException("Cursor must not be negative");
+        }
+        if (consumer != null && (consumer.isBlank() || consumer.length() > MAX_CONSUMER_NAME_LENGTH)) {
+            throw new IllegalArgumentException("Consumer name must be 1 to " + MAX_CONSUMER_NAME_LENGTH + " characters");
+        }
+
+        long position = after != null ? after : 0L;
+        if (consumer != null) {
+            ChangeConsumer stored = changeConsumerRepository.findById(consumer).orElse(null);
+            if (after == null && stored != null) {
+                position = stored.getPosition();
+            }
+            if (stored == null) {
+                changeConsumerRepository.save(new ChangeConsumer(consumer, position));
+            } else if (stored.getPosition() != position) {
+                stored.setPosition(position);
+            }
+        }
+
+        changeEventRepository.lockSequencer(SEQUENCER_LOCK_KEY);
+        int sequenced = changeEventRepository.assignPositions();
+        if (sequenced > 0) {
+            log.debug("Sequenced {} change events", sequenced);
+        }
+
+        List<ChangeEvent> changes = changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(position, Limit.of(pageSize + 1));
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+        long next = changes.isEmpty() ? position : changes.get(changes.size() - 1).getPosition();
+        return new ChangeFeedPage(new ArrayList<>(changes), next, hasMore);
+    }
+
+    /**
+     * Deletes change events every consumer has read and those older than the maximum age,
+     * one chunk per transaction.
+     * @return number of deleted change events
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${changes.retention.interval-ms:600000}",
+            initialDelayString = "${changes.retention.interval-ms:600000}")
+    public int trim() {
+        int deleted = 0;
+        Long consumed = changeConsumerRepository.findMinPosition();
+        if (consumed != null) {
+            deleted += deleteInChunks(size -> changeEventRepository.deleteUpToPosition(consumed, size));
+        }
+        Instant cutoff = Instant.now().minus(maxAge);
+        deleted += deleteInChunks(size -> changeEventRepository.deleteOccurredBefore(cutoff, size));
+        if (deleted > 0) {
+            log.info("Trimmed {} change events", deleted);
+        }
+        return deleted;
+    }
+
+    private int deleteInChunks(IntUnaryOperator deleteChunk) {
+        int total = 0;
+        int deleted;
+        do {
+            Integer chunk = transactionTemplate.execute(status -> deleteChunk.applyAsInt(chunkSize));
+            deleted = chunk == null ? 0 : chunk;
+            total += deleted;
+        } while (deleted >= chunkSize);
+        return total;
+    }
+}
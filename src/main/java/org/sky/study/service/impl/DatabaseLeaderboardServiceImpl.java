@@ -0,0 +1,70 @@
+package org.sky.study.service.impl;
+
+import org.sky.study.dto.TopRatedMovie;
+import org.sky.study.event.MovieDeletedEvent;
+import org.sky.study.event.MovieSavedEvent;
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.repository.jpa.MovieRatingStatsRepository;
+import org.sky.study.service.CatalogVersionService;
+import org.sky.study.service.LeaderboardService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Serves top-rated movies straight from the rating aggregate index. The ranking
+ * reflects every change once it is committed, so the versions are bumped at once.
+ */
+@Service
+@ConditionalOnProperty(name = "movies.top-rated.mode", havingValue = "database", matchIfMissing = true)
+public class DatabaseLeaderboardServiceImpl implements LeaderboardService {
+
+    private final MovieRatingStatsRepository ratingStatsRepository;
+    private final CatalogVersionService catalogVersionService;
+
+    public DatabaseLeaderboardServiceImpl(MovieRatingStatsRepository ratingStatsRepository,
+                                          CatalogVersionService catalogVersionService) {
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    /**
+     * Retrieves top-rated movies from the aggregates.
+     * @param genre optional genre filter
+     * @param releaseYearFrom optional lower bound of the release year
+     * @param releaseYearTo optional upper bound of the release year
+     * @param limit maximum number of movies to return
+     * @return list of top-rated movies
+     */
+    @Override
+    public List<TopRatedMovie> getTopRatedMovies(String genre, Integer releaseYearFrom, Integer releaseYearTo, int limit) {
+        return ratingStatsRepository.findTopRatedMovies(genre, releaseYearFrom, releaseYearTo, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Nothing to rebuild, the ranking is read from the aggregates directly.
+     * @return number of ranked movies
+     */
+    @Override
+    public int rebuild() {
+        return (int) ratingStatsRepository.count();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        catalogVersionService.ratingsChanged();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieSaved(MovieSavedEvent event) {
+        catalogVersionService.catalogChanged();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        catalogVersionService.catalogChanged();
+    }
+}
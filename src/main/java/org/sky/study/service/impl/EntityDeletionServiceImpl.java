@@ -0,0 +1,238 @@
+package org.sky.study.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import org.sky.study.dto.DeletionJob;
+import org.sky.study.event.MovieDeletedEvent;
+import org.sky.study.exception.ResourceNotFoundException;
+import org.sky.study.model.jpa.ChangeEvent;
+import org.sky.study.model.projection.MovieScore;
+import org.sky.study.repository.jpa.MovieRepository;
+import org.sky.study.repository.jpa.RatingRepository;
+import org.sky.study.repository.jpa.UserRepository;
+import org.sky.study.service.ChangeFeedService;
+import org.sky.study.service.EntityDeletionService;
+import org.sky.study.service.RatingStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * Deletes movies and users without loading their ratings. Ratings are removed
+ * with set-based DELETE statements of at most chunk-size rows that subtract
+ * them from the aggregates in the same statement, and the entity row itself is
+ * deleted last with a bulk statement, so the JPA cascade is never triggered.
+ * Entities with up to async-threshold ratings are deleted in the caller's
+ * transaction. Larger ones are deleted on a background thread with one
+ * transaction per chunk, and the returned job can be polled for progress.
+ * The final transaction locks the entity row before removing the remaining
+ * ratings, so a rating added concurrently is either committed first and
+ * removed with the others, or rejected because the entity is gone.
+ */
+@Service
+public class EntityDeletionServiceImpl implements EntityDeletionService {
+
+    static final String MOVIE = "MOVIE";
+    static final String USER = "USER";
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final MovieRepository movieRepository;
+    private final UserRepository userRepository;
+    private final RatingRepository ratingRepository;
+    private final RatingStatsService ratingStatsService;
+    private final ChangeFeedService changeFeedService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final long asyncThreshold;
+
+    private final Map<String, DeletionJob> jobs = new LinkedHashMap<>();
+    private final Map<String, DeletionJob> runningByEntity = new HashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "entity-deleter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Logger log = LoggerFactory.getLogger(EntityDeletionServiceImpl.class);
+
+    public EntityDeletionServiceImpl(MovieRepository movieRepository,
+                                     UserRepository userRepository,
+                                     RatingRepository ratingRepository,
+                                     RatingStatsService ratingStatsService,
+                                     ChangeFeedService changeFeedService,
+                                     TransactionTemplate transactionTemplate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     @Value("${ratings.delete.chunk-size:1000}") int chunkSize,
+                                     @Value("${ratings.delete.async-threshold:10000}") long asyncThreshold) {
+        this.movieRepository = movieRepository;
+        this.userRepository = userRepository;
+        this.ratingRepository = ratingRepository;
+        this.ratingStatsService = ratingStatsService;
+        this.changeFeedService = changeFeedService;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.asyncThreshold = asyncThreshold;
+    }
+
+    /**
+     * Deletes a movie with its ratings and aggregate.
+     * @param movieId the ID of the movie
+     * @return the completed job, or the running job if the movie has more than async-threshold ratings
+     */
+    @Override
+    public DeletionJob deleteMovie(Long movieId) {
+        if (movieId == null) {
+            throw new IllegalArgumentException("Movie ID must not be null");
+        }
+        DeletionJob running = findRunning(MOVIE, movieId);
+        if (running != null) {
+            return running;
+        }
+        if (!movieRepository.existsById(movieId)) {
+            throw new ResourceNotFoundException("Attempted to delete non-existent movie with id: " + movieId);
+        }
+        long totalRatings = ratingRepository.countByMovieId(movieId);
+        DeletionJob job = new DeletionJob(UUID.randomUUID().toString(), MOVIE, movieId, totalRatings);
+        return run(job, () -> movieRepository.lockMovieRow(movieId),
+                () -> ratingStatsService.removeMovieRatings(movieId, chunkSize), () -> {
+            ratingStatsService.movieRemoved(movieId);
+            movieRepository.deleteMovieRow(movieId);
+            changeFeedService.append(ChangeEvent.movie(ChangeEvent.Operation.DELETED, movieId));
+            eventPublisher.publishEvent(new MovieDeletedEvent(movieId));
+        });
+    }
+
+    /**
+     * Deletes a user with their ratings. The caller is responsible for authorization.
+     * @param userId the ID of the user
+     * @return the completed job, or the running job if the user has more than async-threshold ratings
+     */
+    @Override
+    public DeletionJob deleteUser(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID must not be null");
+        }
+        DeletionJob running = findRunning(USER, userId);
+        if (running != null) {
+            return running;
+        }
+        long totalRatings = ratingRepository.countByUserId(userId);
+        DeletionJob job = new DeletionJob(UUID.randomUUID().toString(), USER, userId, totalRatings);
+        return run(job, () -> userRepository.lockUserRow(userId), () -> {
+            List<MovieScore> removed = ratingStatsService.removeUserRatings(userId, chunkSize);
+            changeFeedService.appendAll(removed.stream()
+                    .map(score -> ChangeEvent.rating(ChangeEvent.Operation.DELETED, score.getMovieId(), userId, null))
+                    .toList());
+            return removed.size();
+        }, () -> userRepository.deleteUserRow(userId));
+    }
+
+    /**
+     * Retrieves a running or recently finished deletion job.
+     * @param jobId the ID of the job
+     * @return the job
+     */
+    @Override
+    public DeletionJob getJob(String jobId) {
+        synchronized (jobs) {
+            DeletionJob job = jobs.get(jobId);
+            if (job == null) {
+                throw new ResourceNotFoundException("Deletion job not found with ID: " + jobId);
+            }
+            return job;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private DeletionJob run(DeletionJob job, Runnable lockEntity, LongSupplier deleteChunk, Runnable deleteEntity) {
+        if (job.getTotalRatings() <= asyncThreshold) {
+            transactionTemplate.executeWithoutResult(status -> {
+                lockEntity.run();
+                deleteRatings(job, deleteChunk);
+                deleteEntity.run();
+            });
+            job.completed();
+            return job;
+        }
+
+        synchronized (jobs) {
+            DeletionJob running = runningByEntity.putIfAbsent(key(job.getEntityType(), job.getEntityId()), job);
+            if (running != null) {
+                return running;
+            }
+            register(job);
+        }
+        log.info("Deleting {} ID {} with {} ratings in the background as job {}",
+                job.getEntityType(), job.getEntityId(), job.getTotalRatings(), job.getId());
+        executor.execute(() -> {
+            try {
+                Long deleted;
+                do {
+                    deleted = transactionTemplate.execute(status -> deleteChunk.getAsLong());
+                    job.addDeletedRatings(deleted == null ? 0 : deleted);
+                } while (deleted != null && deleted >= chunkSize);
+                transactionTemplate.executeWithoutResult(status -> {
+                    lockEntity.run();
+                    deleteRatings(job, deleteChunk);
+                    deleteEntity.run();
+                });
+                job.completed();
+                log.info("Deletion job {} removed {} ratings", job.getId(), job.getDeletedRatings());
+            } catch (RuntimeException e) {
+                log.error("Deletion job {} failed after {} ratings", job.getId(), job.getDeletedRatings(), e);
+                job.failed(e.getMessage());
+            } finally {
+                synchronized (jobs) {
+                    runningByEntity.remove(key(job.getEntityType(), job.getEntityId()));
+                }
+            }
+        });
+        return job;
+    }
+
+    private void deleteRatings(DeletionJob job, LongSupplier deleteChunk) {
+        long deleted;
+        do {
+            deleted = deleteChunk.getAsLong();
+            job.addDeletedRatings(deleted);
+        } while (deleted >= chunkSize);
+    }
+
+    private DeletionJob findRunning(String entityType, Long entityId) {
+        synchronized (jobs) {
+            return runningByEntity.get(key(entityType, entityId));
+        }
+    }
+
+    /**
+     * Keeps the job for status queries, evicting the oldest finished jobs beyond {@value #MAX_FINISHED_JOBS}.
+     */
+    private void register(DeletionJob job) {
+        jobs.put(job.getId(), job);
+        int finished = (int) jobs.values().stream().filter(DeletionJob::isFinished).count();
+        Iterator<DeletionJob> iterator = jobs.values().iterator();
+        while (finished > MAX_FINISHED_JOBS && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+
+    private static String key(String entityType, Long entityId) {
+        return entityType + ":" + entityId;
+    }
+}
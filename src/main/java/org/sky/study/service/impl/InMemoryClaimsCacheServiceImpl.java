@@ -0,0 +1,120 @@
+package org.sky.study.service.impl;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.sky.study.service.ClaimsCacheService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the claims of verified tokens by the SHA-256 digest of the token, so a
+ * token reused across requests is parsed and its signature checked only once.
+ * Only claims that passed verification are put here, and a token that differs
+ * in any character, signature included, has a different digest. An entry is
+ * never returned at or after the expiry of its token, and expired entries are
+ * dropped every {@code jwt.claims-cache.evict-ms}. When {@code max-size}
+ * unexpired tokens are cached, further tokens are parsed on every request
+ * instead of displacing cached ones.
+ */
+@Service
+public class InMemoryClaimsCacheServiceImpl implements ClaimsCacheService {
+
+    private final int maxSize;
+    private final Map<String, Claims> claimsByDigest = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public InMemoryClaimsCacheServiceImpl(MeterRegistry meterRegistry,
+                                          @Value("${jwt.claims-cache.max-size:100000}") int maxSize) {
+        this.maxSize = maxSize;
+
+        Gauge.builder("jwt.claims.cache.size", claimsByDigest, Map::size)
+                .description("Verified tokens whose claims are cached")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("jwt.claims.cache.requests")
+                .description("Token parses answered from or missing in the claims cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("jwt.claims.cache.requests")
+                .description("Token parses answered from or missing in the claims cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retrieves the cached claims of a token.
+     * @param token the JWT token without the Bearer prefix
+     * @return the claims, or null if the token is not cached or has expired
+     */
+    @Override
+    public Claims get(String token) {
+        String digest = digest(token);
+        Claims claims = claimsByDigest.get(digest);
+        if (claims != null && !isExpired(claims, System.currentTimeMillis())) {
+            hitCounter.increment();
+            return claims;
+        }
+        if (claims != null) {
+            claimsByDigest.remove(digest, claims);
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * Caches the claims of a verified token until the token expires.
+     * Tokens without an expiry are not cached.
+     * @param token the JWT token without the Bearer prefix
+     * @param claims the claims the token was verified with
+     */
+    @Override
+    public void put(String token, Claims claims) {
+        if (claims.getExpiration() == null) {
+            return;
+        }
+        if (claimsByDigest.size() >= maxSize) {
+            evictExpired();
+            if (claimsByDigest.size() >= maxSize) {
+                return;
+            }
+        }
+        claimsByDigest.put(digest(token), claims);
+    }
+
+    /**
+     * Drops the claims of tokens that have expired.
+     */
+    @Scheduled(fixedDelayString = "${jwt.claims-cache.evict-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        claimsByDigest.values().removeIf(claims -> isExpired(claims, now));
+    }
+
+    public int getSize() {
+        return claimsByDigest.size();
+    }
+
+    private static boolean isExpired(Claims claims, long now) {
+        return now >= claims.getExpiration().getTime();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package org.sky.study.service.impl;
+
+import org.sky.study.dto.TopRatedMovie;
+import org.sky.study.event.MovieDeletedEvent;
+import org.sky.study.event.MovieSavedEvent;
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.model.projection.MovieRatingSnapshot;
+import org.sky.study.repository.jpa.MovieRatingStatsRepository;
+import org.sky.study.service.CatalogVersionService;
+import org.sky.study.service.LeaderboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Keeps the top-rated rankings in skip lists ordered by average rating, so that
+ * reading the first K movies costs O(K) and never touches the database.
+ * Besides the global ranking, every movie is ranked within its genre, its
+ * release decade and the combination of both (see {@link LeaderboardPartitions}).
+ * The rankings are seeded from the rating aggregates at startup and updated
+ * after every committed rating change from the movie's committed aggregate, so
+ * a change that a rebuild has already read is not counted twice. Writers are
+ * serialized; readers are lock-free and may briefly miss a movie while it is
+ * being re-ranked. A rebuild fills new rankings and swaps them in while holding
+ * the writer lock, so readers never see them half-filled. The catalog and
+ * ratings versions are bumped after each change is applied.
+ * The rankings only see the changes made through this node, so this mode is
+ * meant for a single instance.
+ */
+@Service
+@ConditionalOnProperty(name = "movies.top-rated.mode", havingValue = "memory")
+public class InMemoryLeaderboardServiceImpl implements LeaderboardService {
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingDouble((Entry entry) -> entry.averageRating).reversed()
+            .thenComparingLong(entry -> entry.movieId);
+
+    private final MovieRatingStatsRepository ratingStatsRepository;
+    private final CatalogVersionService catalogVersionService;
+
+    private volatile Rankings rankings = new Rankings();
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryLeaderboardServiceImpl.class);
+
+    public InMemoryLeaderboardServiceImpl(MovieRatingStatsRepository ratingStatsRepository,
+                                          CatalogVersionService catalogVersionService) {
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    /**
+     * Retrieves top-rated movies from the in-memory rankings. Scopes spanning
+     * several decades are answered by merging the sorted decade rankings.
+     * @param genre optional genre filter
+     * @param releaseYearFrom optional lower bound of the release year
+     * @param releaseYearTo optional upper bound of the release year
+     * @param limit maximum number of movies to return
+     * @return list of top-rated movies
+     */
+    @Override
+    public List<TopRatedMovie> getTopRatedMovies(String genre, Integer releaseYearFrom, Integer releaseYearTo, int limit) {
+        Rankings current = rankings;
+        PriorityQueue<PeekingIterator> heads = new PriorityQueue<>(
+                Comparator.comparing((PeekingIterator iterator) -> iterator.head, RANKING));
+        for (String partition : LeaderboardPartitions.covering(genre, releaseYearFrom, releaseYearTo, current.decades)) {
+            ConcurrentSkipListSet<Entry> ranking = current.partitions.get(partition);
+            if (ranking != null) {
+                PeekingIterator iterator = new PeekingIterator(ranking.iterator());
+                if (iterator.head != null) {
+                    heads.add(iterator);
+                }
+            }
+        }
+
+        List<TopRatedMovie> topRatedMovies = new ArrayList<>(limit);
+        while (topRatedMovies.size() < limit && !heads.isEmpty()) {
+            PeekingIterator iterator = heads.poll();
+            Entry entry = iterator.head;
+            if (LeaderboardPartitions.matches(entry.genre, entry.releaseYear, genre, releaseYearFrom, releaseYearTo)) {
+                topRatedMovies.add(new TopRatedMovie(entry.movieId, entry.title, entry.genre,
+                        entry.releaseYear, entry.averageRating));
+            }
+            if (iterator.advance()) {
+                heads.add(iterator);
+            }
+        }
+        return topRatedMovies;
+    }
+
+    /**
+     * Reloads the rankings from the rating aggregates. Rating changes wait until the
+     * new rankings are in place and are then applied to them.
+     * @return number of ranked movies
+     */
+    @Override
+    public synchronized int rebuild() {
+        Rankings rebuilt = new Rankings();
+        for (MovieRatingSnapshot snapshot : ratingStatsRepository.findAllRatedSnapshots()) {
+            rebuilt.put(new Entry(snapshot));
+        }
+        rankings = rebuilt;
+        log.info("Seeded in-memory leaderboard with {} movies", rebuilt.entries.size());
+        return rebuilt.entries.size();
+    }
+
+    /**
+     * Seeds the rankings from the rating aggregates once they have been rebuilt.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    public void seed() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        try {
+            rerank(event);
+        } finally {
+            catalogVersionService.ratingsChanged();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieSaved(MovieSavedEvent event) {
+        try {
+            updateAttributes(event);
+        } finally {
+            catalogVersionService.catalogChanged();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        try {
+            removeMovie(event.getMovieId());
+        } finally {
+            catalogVersionService.catalogChanged();
+        }
+    }
+
+    /**
+     * Re-ranks the movie by its committed aggregate rather than by the delta of the
+     * event, which the last rebuild may already have read.
+     */
+    private synchronized void rerank(RatingChangedEvent event) {
+        Optional<MovieRatingSnapshot> snapshot = ratingStatsRepository.findRatedSnapshot(event.getMovieId());
+        Rankings current = rankings;
+        current.remove(event.getMovieId());
+        snapshot.ifPresent(rated -> current.put(new Entry(rated)));
+    }
+
+    private synchronized void updateAttributes(MovieSavedEvent event) {
+        Rankings current = rankings;
+        Entry ranked = current.entries.get(event.getMovieId());
+        if (ranked != null) {
+            current.remove(event.getMovieId());
+            current.put(new Entry(ranked.movieId, event.getTitle(), event.getGenre(), event.getReleaseYear(),
+                    ranked.ratingSum, ranked.ratingCount));
+        }
+    }
+
+    private synchronized void removeMovie(Long movieId) {
+        rankings.remove(movieId);
+    }
+
+    /**
+     * The rankings of one rebuild; changed only by the writer holding the lock.
+     */
+    private static final class Rankings {
+        private final Map<String, ConcurrentSkipListSet<Entry>> partitions = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<Integer> decades = new ConcurrentSkipListSet<>();
+        private final Map<Long, Entry> entries = new HashMap<>();
+
+        private void put(Entry entry) {
+            entries.put(entry.movieId, entry);
+            for (String partition : LeaderboardPartitions.of(entry.genre, entry.releaseYear)) {
+                partitions.computeIfAbsent(partition, key -> new ConcurrentSkipListSet<>(RANKING)).add(entry);
+            }
+            if (entry.releaseYear != null) {
+                decades.add(LeaderboardPartitions.decadeOf(entry.releaseYear));
+            }
+        }
+
+        private void remove(Long movieId) {
+            Entry previous = entries.remove(movieId);
+            if (previous == null) {
+                return;
+            }
+            for (String partition : LeaderboardPartitions.of(previous.genre, previous.releaseYear)) {
+                ConcurrentSkipListSet<Entry> ranking = partitions.get(partition);
+                if (ranking != null) {
+                    ranking.remove(previous);
+                }
+            }
+            Integer decade = LeaderboardPartitions.decadeOf(previous.releaseYear);
+            if (decade != null) {
+                ConcurrentSkipListSet<Entry> ranking = partitions.get(LeaderboardPartitions.ofDecade(decade));
+                if (ranking == null || ranking.isEmpty()) {
+                    // range queries would otherwise keep merging the empty decade
+                    decades.remove(decade);
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long movieId;
+        private final String title;
+        private final String genre;
+        private final Integer releaseYear;
+        private final long ratingSum;
+        private final long ratingCount;
+        private final double averageRating;
+
+        private Entry(long movieId, String title, String genre, Integer releaseYear, long ratingSum, long ratingCount) {
+            this.movieId = movieId;
+            this.title = title;
+            this.genre = genre;
+            this.releaseYear = releaseYear;
+            this.ratingSum = ratingSum;
+            this.ratingCount = ratingCount;
+            this.averageRating = (double) ratingSum / ratingCount;
+        }
+
+        private Entry(MovieRatingSnapshot snapshot) {
+            this(snapshot.getMovieId(), snapshot.getTitle(), snapshot.getGenre(), snapshot.getReleaseYear(),
+                    snapshot.getRatingSum(), snapshot.getRatingCount());
+        }
+    }
+
+    private static final class PeekingIterator {
+        private final Iterator<Entry> iterator;
+        private Entry head;
+
+        private PeekingIterator(Iterator<Entry> iterator) {
+            this.iterator = iterator;
+            advance();
+        }
+
+        private boolean advance() {
+            head = iterator.hasNext() ? iterator.next() : null;
+            return head != null;
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package org.sky.study.service.impl;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.sky.study.security.UserPrincipal;
+import org.sky.study.service.ClaimsCacheService;
+import org.sky.study.service.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -22,46 +32,184 @@ public class JwtServiceImpl {
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
-    private static final String BLACKLIST_PREFIX = "blacklist:";
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private ClaimsCacheService claimsCacheService;
+
+    static final String BLACKLIST_PREFIX = "blacklist:";
+
+    static final String REVOKED_BEFORE_PREFIX = "revoked-before:";
 
-    private static final Long VALIDITY = TimeUnit.MINUTES.toMillis(30);
+    private static final String USER_ID_CLAIM = "uid";
+
+    private static final String ROLES_CLAIM = "roles";
+
+    static final Long VALIDITY = TimeUnit.MINUTES.toMillis(30);
+
+    private static final SecureRandom TOKEN_IDS = new SecureRandom();
 
     /**
      * Generates a JWT token for the given user details.
+     * The token gets a random ID as the jti claim, and the user ID is added as the uid claim
+     * when the details carry it.
      *
      * @param userDetails the user details for which the token is generated
      * @return a JWT token as a String
      */
     public String generateToken(UserDetails userDetails) {
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .setId(newTokenId())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt( Date.from(Instant.now()) )
-                .claim("roles", userDetails.getAuthorities().toString())
+                .claim(ROLES_CLAIM, userDetails.getAuthorities().toString());
+        if (userDetails instanceof UserPrincipal principal) {
+            builder.claim(USER_ID_CLAIM, principal.getId());
+        }
+        return builder
                 .setExpiration(Date.from(Instant.now().plusMillis(VALIDITY)))
                 .signWith(SignatureAlgorithm.HS256, secretKey)
                 .compact();
     }
 
+    /**
+     * Parses and verifies a token, or returns the claims cached when the same token was verified before.
+     * @param token the Authorization header value, starting with the Bearer prefix
+     * @return the claims of the token
+     */
     public Claims getClaims(String token) {
-        return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token.substring(7)).getBody();
+        String jwt = token.substring(7);
+        Claims claims = claimsCacheService.get(jwt);
+        if (claims == null) {
+            claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(jwt).getBody();
+            claimsCacheService.put(jwt, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Reads the user ID of a token.
+     * @param claims the claims of the token
+     * @return the user ID, or null for tokens issued without it
+     */
+    public Long getUserId(Claims claims) {
+        Object userId = claims.get(USER_ID_CLAIM);
+        return userId instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * Builds the authenticated user from the claims of a verified token, without a database lookup.
+     * @param claims the claims of the token
+     * @return the user with the ID and roles the token was issued with
+     */
+    public UserPrincipal getPrincipal(Claims claims) {
+        return new UserPrincipal(getUserId(claims), claims.getSubject(), "", getAuthorities(claims));
+    }
+
+    /**
+     * Reads the roles of a token, written as the string form of the authority list, e.g. [ROLE_ADMIN].
+     * @param claims the claims of the token
+     * @return the granted authorities
+     */
+    public List<GrantedAuthority> getAuthorities(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (roles == null) {
+            return List.of();
+        }
+        String list = roles.toString().replaceAll("^\\[|]$", "");
+        return Arrays.stream(list.split(","))
+                .map(String::trim)
+                .filter(role -> !role.isEmpty())
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    /**
+     * Revokes every token issued to a user so far, e.g. after the user was deleted or
+     * their roles changed. Tokens issued within the same second are revoked too.
+     * @param userId the ID of the user
+     */
+    public void revokeUserTokens(Long userId) {
+        long now = System.currentTimeMillis();
+        redisTemplate.opsForValue().set(REVOKED_BEFORE_PREFIX + userId, Long.toString(now),
+                VALIDITY, TimeUnit.MILLISECONDS);
+        tokenRevocationService.userTokensRevoked(userId, now);
     }
 
     /**
-     * Add JWT token to Redis blacklist.
+     * Checks whether a token was blacklisted or issued before its user's tokens were revoked.
+     * Answered from the local copy of the revocations when this node is synchronized, asking
+     * Redis only about tokens that may be blacklisted; otherwise in a single Redis round trip.
+     * @param token the JWT token without the Bearer prefix
+     * @param claims the claims of the token
+     * @return true if the token must no longer be accepted
+     */
+    public boolean isRevoked(String token, Claims claims) {
+        String tokenId = getTokenId(token, claims);
+        Long userId = getUserId(claims);
+        if (tokenRevocationService.isSynchronized()) {
+            if (userId != null && tokenRevocationService.getRevokedBefore(userId)
+                    .filter(revokedBefore -> isIssuedBefore(claims, revokedBefore)).isPresent()) {
+                return true;
+            }
+            return tokenRevocationService.mightBeBlacklisted(tokenId, claims.getExpiration().getTime())
+                    && isBlacklisted(tokenId);
+        }
+        if (userId == null) {
+            return isBlacklisted(tokenId);
+        }
+        List<String> values = redisTemplate.opsForValue()
+                .multiGet(List.of(BLACKLIST_PREFIX + tokenId, REVOKED_BEFORE_PREFIX + userId));
+        if (values == null || values.get(0) != null) {
+            return true;
+        }
+        String revokedBefore = values.get(1);
+        return revokedBefore != null && isIssuedBefore(claims, Long.parseLong(revokedBefore));
+    }
+
+    /**
+     * Add JWT token to Redis blacklist by its ID until it expires, and tell all nodes about it.
+     * The entry holds the expiry of the token, so nodes can file it by expiry when loading it.
      * @param token - JWT token to blacklist
+     * @param claims - the claims of the token
      */
-    public void addToBlacklist(String token) {
-        String key = BLACKLIST_PREFIX + token;
-        redisTemplate.opsForValue().set(key, "true", VALIDITY);
+    public void addToBlacklist(String token, Claims claims) {
+        String tokenId = getTokenId(token, claims);
+        long expiresAt = claims.getExpiration().getTime();
+        long remaining = Math.max(1, expiresAt - System.currentTimeMillis());
+        redisTemplate.opsForValue().set(BLACKLIST_PREFIX + tokenId, Long.toString(expiresAt),
+                remaining, TimeUnit.MILLISECONDS);
+        tokenRevocationService.tokenBlacklisted(tokenId, expiresAt);
     }
 
     /**
      * Check if a JWT token is blacklisted.
-     * @param token - JWT token to check
+     * @param tokenId - ID of the JWT token to check, see {@link #getTokenId(String, Claims)}
      * @return true if the token is blacklisted, false otherwise
      */
-    public boolean isBlacklisted(String token) {
-        String key = BLACKLIST_PREFIX + token;
+    public boolean isBlacklisted(String tokenId) {
+        String key = BLACKLIST_PREFIX + tokenId;
         return redisTemplate.hasKey(key);
     }
+
+    /**
+     * Reads the ID revocations of a token are keyed by.
+     * @param token the JWT token without the Bearer prefix
+     * @param claims the claims of the token
+     * @return the jti claim, or the whole token for tokens issued without it
+     */
+    public String getTokenId(String token, Claims claims) {
+        return claims.getId() != null ? claims.getId() : token;
+    }
+
+    private static String newTokenId() {
+        byte[] id = new byte[16];
+        TOKEN_IDS.nextBytes(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+    }
+
+    private static boolean isIssuedBefore(Claims claims, long revokedBefore) {
+        return claims.getIssuedAt() != null && claims.getIssuedAt().getTime() <= revokedBefore;
+    }
 }
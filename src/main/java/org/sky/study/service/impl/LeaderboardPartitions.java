@@ -0,0 +1,96 @@
+package org.sky.study.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+
+/**
+ * Naming of the scoped rankings shared by the leaderboard implementations.
+ * Every rated movie is ranked globally, within its genre, within its release
+ * decade and within the combination of both.
+ */
+final class LeaderboardPartitions {
+
+    static final String GLOBAL = "";
+
+    private LeaderboardPartitions() {}
+
+    static Integer decadeOf(Integer releaseYear) {
+        return releaseYear == null ? null : Math.floorDiv(releaseYear, 10) * 10;
+    }
+
+    /**
+     * Partitions a movie is ranked in.
+     */
+    static List<String> of(String genre, Integer releaseYear) {
+        List<String> partitions = new ArrayList<>(4);
+        partitions.add(GLOBAL);
+        Integer decade = decadeOf(releaseYear);
+        if (genre != null) {
+            partitions.add(genre(genre));
+        }
+        if (decade != null) {
+            partitions.add(decade(decade));
+        }
+        if (genre != null && decade != null) {
+            partitions.add(genre(genre) + decade(decade));
+        }
+        return partitions;
+    }
+
+    /**
+     * Partition ranking all movies of a decade.
+     */
+    static String ofDecade(Integer decade) {
+        return decade(decade);
+    }
+
+    /**
+     * Partitions covering a query. Without a year filter a single partition is returned,
+     * otherwise one per known decade within the requested range.
+     */
+    static List<String> covering(String genre, Integer releaseYearFrom, Integer releaseYearTo,
+                                 NavigableSet<Integer> knownDecades) {
+        String prefix = genre == null ? GLOBAL : genre(genre);
+        if (releaseYearFrom == null && releaseYearTo == null) {
+            return List.of(prefix);
+        }
+        if (knownDecades.isEmpty()) {
+            return List.of();
+        }
+        int fromDecade = releaseYearFrom == null ? knownDecades.first() : decadeOf(releaseYearFrom);
+        int toDecade = releaseYearTo == null ? knownDecades.last() : decadeOf(releaseYearTo);
+        if (fromDecade > toDecade) {
+            return List.of();
+        }
+        List<String> partitions = new ArrayList<>();
+        for (Integer decade : knownDecades.subSet(fromDecade, true, toDecade, true)) {
+            partitions.add(prefix + decade(decade));
+        }
+        return partitions;
+    }
+
+    /**
+     * Whether a movie falls into the requested scope; decade partitions at the
+     * edges of a year range may contain movies outside of it.
+     */
+    static boolean matches(String genre, Integer releaseYear,
+                           String genreFilter, Integer releaseYearFrom, Integer releaseYearTo) {
+        if (genreFilter != null && !Objects.equals(genre, genreFilter)) {
+            return false;
+        }
+        if (releaseYearFrom != null && (releaseYear == null || releaseYear < releaseYearFrom)) {
+            return false;
+        }
+        return releaseYearTo == null || (releaseYear != null && releaseYear <= releaseYearTo);
+    }
+
+    private static String genre(String genre) {
+        return ":genre:" + genre;
+    }
+
+    private static String decade(Integer decade) {
+        return ":decade:" + decade;
+    }
+}
@@ -0,0 +1,99 @@
+package org.sky.study.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.sky.study.service.MovieExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Streams the whole movie catalog as newline-delimited JSON. The movies are read
+ * through a forward-only JDBC cursor that fetches fetch-size rows at a time and
+ * every row is written to the output as soon as it is read, so neither the rows
+ * nor the response are held in memory, whatever the size of the catalog.
+ * Postgres only honours the fetch size inside a transaction; outside of one the
+ * driver would load the whole result set.
+ */
+@Service
+public class MovieExportServiceImpl implements MovieExportService {
+
+    private static final String EXPORT_SQL =
+            "SELECT id, title, genre, release_year, version FROM movies ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    private static final Logger log = LoggerFactory.getLogger(MovieExportServiceImpl.class);
+
+    public MovieExportServiceImpl(JdbcTemplate jdbcTemplate,
+                                  ObjectMapper objectMapper,
+                                  @Value("${movies.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes every movie as one JSON object per line, ordered by ID.
+     * @param ndjson the stream to write to, left open
+     * @return number of exported movies
+     * @throws IOException if the stream cannot be written, e.g. because the client went away
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportMovies(OutputStream ndjson) throws IOException {
+        long startedAt = System.nanoTime();
+        long[] exported = new long[1];
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(ndjson)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, (RowCallbackHandler) row -> {
+                try {
+                    writeMovie(generator, row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            log.warn("Movie export aborted after {} movies: {}", exported[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        log.info("Exported {} movies in {} ms", exported[0], (System.nanoTime() - startedAt) / 1_000_000);
+        return exported[0];
+    }
+
+    private static void writeMovie(JsonGenerator generator, ResultSet row) throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.getLong("id"));
+        generator.writeStringField("title", row.getString("title"));
+        generator.writeStringField("genre", row.getString("genre"));
+        int releaseYear = row.getInt("release_year");
+        if (row.wasNull()) {
+            generator.writeNullField("releaseYear");
+        } else {
+            generator.writeNumberField("releaseYear", releaseYear);
+        }
+        generator.writeNumberField("version", row.getLong("version"));
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+}
@@ -0,0 +1,48 @@
+package org.sky.study.service.impl;
+
+import org.sky.study.controller.MovieController;
+import org.sky.study.model.jpa.Movie;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+
+/**
+ * Builds the self links of movies by appending the ID to the movies base URI.
+ * The base URI is resolved from the current request once, instead of once per
+ * movie through a {@code linkTo(methodOn(...))} proxy invocation, and yields the
+ * same href, host and context path included.
+ */
+public final class MovieLinkTemplate {
+
+    private final String prefix;
+
+    public MovieLinkTemplate(String moviesUri) {
+        this.prefix = moviesUri.endsWith("/") ? moviesUri : moviesUri + "/";
+    }
+
+    /**
+     * Resolves the movies base URI against the current request.
+     * @return the template for this request
+     */
+    public static MovieLinkTemplate fromCurrentRequest() {
+        return new MovieLinkTemplate(WebMvcLinkBuilder.linkTo(MovieController.class).toUri().toString());
+    }
+
+    /**
+     * Builds the self link of a movie.
+     * @param movieId the ID of the movie
+     * @return the link to {@code GET /movies/{movieId}}
+     */
+    public Link self(Long movieId) {
+        return Link.of(prefix + movieId);
+    }
+
+    /**
+     * Wraps a movie together with its self link.
+     * @param movie the movie
+     * @return the movie model
+     */
+    public EntityModel<Movie> toModel(Movie movie) {
+        return EntityModel.of(movie, self(movie.getId()));
+    }
+}
@@ -1,24 +1,50 @@
 package org.sky.study.service.impl;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import org.sky.study.controller.MovieController;
+import org.sky.study.dto.DeletionJob;
+import org.sky.study.dto.MovieCursor;
+import org.sky.study.dto.MovieSortKey;
 import org.sky.study.dto.TopRatedMovie;
+import org.sky.study.dto.TrendingMovie;
+import org.sky.study.dto.TrendingWindow;
+import org.sky.study.event.MovieSavedEvent;
 import org.sky.study.exception.ResourceNotFoundException;
+import org.sky.study.model.jpa.ChangeEvent;
 import org.sky.study.model.jpa.Movie;
 import org.sky.study.repository.jpa.MovieRepository;
+import org.sky.study.service.ChangeFeedService;
+import org.sky.study.service.EntityDeletionService;
+import org.sky.study.service.LeaderboardService;
+import org.sky.study.service.MovieCacheService;
 import org.sky.study.service.MovieService;
+import org.sky.study.service.TitleIndexService;
+import org.sky.study.service.TrendingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -26,15 +52,44 @@ import java.util.stream.Collectors;
 public class MovieServiceImpl implements MovieService {
 
     private final MovieRepository movieRepository;
+    private final LeaderboardService leaderboardService;
+    private final TrendingService trendingService;
+    private final ChangeFeedService changeFeedService;
+    private final EntityDeletionService entityDeletionService;
+    private final TitleIndexService titleIndexService;
+    private final MovieCacheService movieCacheService;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final Logger log = LoggerFactory.getLogger(MovieServiceImpl.class);
 
-    public MovieServiceImpl(MovieRepository movieRepository) {
+    private static final int MAX_TOP_RATED_LIMIT = 100;
+    private static final int MAX_TRENDING_LIMIT = 100;
+    private static final int MAX_TITLE_CANDIDATES = 1000;
+    private static final char LIKE_ESCAPE = '\\';
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    public MovieServiceImpl(MovieRepository movieRepository,
+                            LeaderboardService leaderboardService,
+                            TrendingService trendingService,
+                            ChangeFeedService changeFeedService,
+                            EntityDeletionService entityDeletionService,
+                            TitleIndexService titleIndexService,
+                            MovieCacheService movieCacheService,
+                            ApplicationEventPublisher eventPublisher) {
         this.movieRepository = movieRepository;
+        this.leaderboardService = leaderboardService;
+        this.trendingService = trendingService;
+        this.changeFeedService = changeFeedService;
+        this.entityDeletionService = entityDeletionService;
+        this.titleIndexService = titleIndexService;
+        this.movieCacheService = movieCacheService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Retrieves all movies with optional filters for title, genre, and release year.
+     * The title filter is resolved to movie IDs by the title index; only terms the
+     * index cannot answer, or that match too many movies to list, fall back to LIKE.
      * @param page the page number
      * @param size the size of the page
      * @param title optional filter for movie title
@@ -47,16 +102,137 @@ public class MovieServiceImpl implements MovieService {
 
         log.info("Fetching all movies with filters - title: {}, genre: {}, releaseYear: {}, page: {}, size: {}",
                 title, genre, releaseYear, page, size);
+        Page<Movie> moviePage = findPage(page, size, title, genre, releaseYear);
+        MovieLinkTemplate itemLinks = MovieLinkTemplate.fromCurrentRequest();
+        List<EntityModel<Movie>> movieModels = moviePage.getContent().stream()
+                .map(itemLinks::toModel)
+                .collect(Collectors.toList());
+        return PagedModel.of(movieModels,
+                new PagedModel.PageMetadata(moviePage.getSize(), moviePage.getNumber(),
+                        moviePage.getTotalElements(), moviePage.getTotalPages()),
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(MovieController.class)
+                        .getAllMovies(page, size, title, genre, releaseYear, null, null, null, null)).withSelfRel());
+    }
+
+    /**
+     * Retrieves a page of movies as a plain list, without links or page metadata.
+     * @param page the page number
+     * @param size the size of the page
+     * @param title optional filter for movie title
+     * @param genre optional filter for movie genre
+     * @param releaseYear optional filter for movie release year
+     * @return the movies of the page
+     */
+    @Override
+    public List<Movie> getMovieListWithFilters(int page, int size, String title, String genre, Integer releaseYear) {
+        log.info("Fetching movie list with filters - title: {}, genre: {}, releaseYear: {}, page: {}, size: {}",
+                title, genre, releaseYear, page, size);
+        return findPage(page, size, title, genre, releaseYear).getContent();
+    }
+
+    private Page<Movie> findPage(int page, int size, String title, String genre, Integer releaseYear) {
         if (page < 0 || size <= 0) {
             log.warn("Invalid pagination parameters - page: {}, size: {}", page, size);
             throw new IllegalArgumentException("Page and size parameters must be greater than zero");
         }
         Pageable pageable = PageRequest.of(page, size);
+        Specification<Movie> spec = filters(title, genre, releaseYear);
+        Page<Movie> moviePage = movieRepository.findAll(spec, pageable);
+        if (moviePage.isEmpty()) {
+            throw new ResourceNotFoundException("No movies found for the given filters");
+        }
+        return moviePage;
+    }
+
+    /**
+     * Retrieves the movies following a cursor, ordered by a sort key and then by ID.
+     * Each page is a single seek query for size + 1 rows, plus one for the movies
+     * without a key when a page runs past the last keyed movie; no count query is run.
+     * @param cursor the cursor of the previous page, or an empty string for the first page
+     * @param size the number of movies per page
+     * @param sort the sort key, one of id, title or releaseYear; defaults to id
+     * @param title optional filter for movie title
+     * @param genre optional filter for movie genre
+     * @param releaseYear optional filter for movie release year
+     * @return the movies with a next link unless this is the last page
+     */
+    @Override
+    public CollectionModel<EntityModel<Movie>> getMoviesAfterCursor(String cursor, int size, String sort,
+                                                                     String title, String genre, Integer releaseYear) {
+        log.info("Fetching movies after cursor '{}' sorted by {} with filters - title: {}, genre: {}, releaseYear: {}, size: {}",
+                cursor, sort, title, genre, releaseYear, size);
+        if (size <= 0 || size > MAX_CURSOR_PAGE_SIZE) {
+            log.warn("Invalid cursor page size: {}", size);
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        MovieSortKey sortKey = sort == null ? MovieSortKey.ID : MovieSortKey.fromValue(sort);
+        MovieCursor after = cursor == null || cursor.isEmpty() ? null : MovieCursor.decode(cursor);
+        if (after != null && after.getSort() != sortKey) {
+            throw new IllegalArgumentException("Cursor was issued for sort " + after.getSort().getValue());
+        }
+
+        Specification<Movie> spec = filters(title, genre, releaseYear);
+        if (after != null) {
+            spec = spec.and(seek(after));
+        }
+        List<Movie> movies = movieRepository.findBy(spec, query -> query
+                .sortBy(Sort.by(sortKey.getAttribute()).and(Sort.by("id")))
+                .limit(size + 1)
+                .all());
+        if (movies.size() <= size && after != null && sortKey != MovieSortKey.ID && after.getValue() != null) {
+            int remaining = size + 1 - movies.size();
+            movies = new ArrayList<>(movies);
+            movies.addAll(movieRepository.findBy(filters(title, genre, releaseYear).and(keyMissing(sortKey)),
+                    query -> query.sortBy(Sort.by("id")).limit(remaining).all()));
+        }
+        if (movies.isEmpty() && after == null) {
+            throw new ResourceNotFoundException("No movies found for the given filters");
+        }
+
+        boolean hasMore = movies.size() > size;
+        MovieLinkTemplate itemLinks = MovieLinkTemplate.fromCurrentRequest();
+        List<EntityModel<Movie>> movieModels = movies.stream()
+                .limit(size)
+                .map(itemLinks::toModel)
+                .collect(Collectors.toList());
+        List<Link> links = new ArrayList<>();
+        links.add(cursorLink(IanaLinkRelations.SELF, cursor == null ? "" : cursor, size, sortKey, title, genre, releaseYear));
+        if (hasMore) {
+            Movie last = movies.get(size - 1);
+            links.add(cursorLink(IanaLinkRelations.NEXT, cursorAfter(last, sortKey).encode(), size, sortKey,
+                    title, genre, releaseYear));
+        }
+        return CollectionModel.of(movieModels, links);
+    }
+
+    /**
+     * Counts the movies matching the filters.
+     * @param title optional filter for movie title
+     * @param genre optional filter for movie genre
+     * @param releaseYear optional filter for movie release year
+     * @return number of matching movies
+     */
+    @Override
+    public long countMoviesWithFilters(String title, String genre, Integer releaseYear) {
+        return movieRepository.count(filters(title, genre, releaseYear));
+    }
+
+    private Specification<Movie> filters(String title, String genre, Integer releaseYear) {
         Specification<Movie> spec = Specification.where(null);
 
         if (title != null && !title.trim().isEmpty()) {
-            spec = spec.and((root, query, criteriaBuilder) ->
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), "%" + title.toLowerCase() + "%"));
+            Optional<List<Long>> titleMatches = titleIndexService.findMovieIds(title);
+            if (titleMatches.isPresent() && titleMatches.get().isEmpty()) {
+                throw new ResourceNotFoundException("No movies found for the given filters");
+            }
+            if (titleMatches.isPresent() && titleMatches.get().size() <= MAX_TITLE_CANDIDATES) {
+                List<Long> movieIds = titleMatches.get();
+                spec = spec.and((root, query, criteriaBuilder) -> root.get("id").in(movieIds));
+            } else {
+                String pattern = "%" + escapeLike(title.toLowerCase(Locale.ROOT)) + "%";
+                spec = spec.and((root, query, criteriaBuilder) ->
+                        criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), pattern, LIKE_ESCAPE));
+            }
         }
         if (genre != null && !genre.trim().isEmpty()) {
             spec = spec.and((root, query, criteriaBuilder) ->
@@ -66,30 +242,109 @@ public class MovieServiceImpl implements MovieService {
             spec = spec.and((root, query, criteriaBuilder) ->
                     criteriaBuilder.equal(root.get("releaseYear"), releaseYear));
         }
-        Page<Movie> moviePage = movieRepository.findAll(spec, pageable);
-        if (moviePage.isEmpty()) {
-            throw new ResourceNotFoundException("No movies found for the given filters");
+        return spec;
+    }
+
+    /**
+     * Escapes the LIKE wildcards in a term, so it matches as a literal substring like the title index.
+     */
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\")
+                .replace("%", LIKE_ESCAPE + "%")
+                .replace("_", LIKE_ESCAPE + "_");
+    }
+
+    /**
+     * Matches the movies with a key ordered after the cursor, or, for a cursor in the
+     * movies without a key, those of them with a greater ID. Either is a single range
+     * of the (key, id) order; the movies without a key that follow a keyed cursor are
+     * fetched by {@link #keyMissing(MovieSortKey)} instead.
+     */
+    private static Specification<Movie> seek(MovieCursor after) {
+        Long movieId = after.getMovieId();
+        MovieSortKey sortKey = after.getSort();
+        if (sortKey == MovieSortKey.ID) {
+            return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get("id"), movieId);
         }
-        List<EntityModel<Movie>> movieModels = moviePage.getContent().stream()
-                .map(movie -> EntityModel.of(movie,
-                        WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(MovieController.class)
-                                .getMovieById(movie.getId())).withSelfRel()))
-                .collect(Collectors.toList());
-        return PagedModel.of(movieModels,
-                new PagedModel.PageMetadata(moviePage.getSize(), moviePage.getNumber(),
-                        moviePage.getTotalElements(), moviePage.getTotalPages()),
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(MovieController.class)
-                        .getAllMovies(page, size, title, genre, releaseYear)).withSelfRel());
+        if (after.getValue() == null) {
+            return keyMissing(sortKey).and((root, query, criteriaBuilder) ->
+                    criteriaBuilder.greaterThan(root.get("id"), movieId));
+        }
+        if (sortKey == MovieSortKey.RELEASE_YEAR) {
+            Integer releaseYear = Integer.valueOf(after.getValue());
+            return (root, query, criteriaBuilder) ->
+                    after(criteriaBuilder, root.get("releaseYear"), releaseYear, root.get("id"), movieId);
+        }
+        String value = after.getValue();
+        return (root, query, criteriaBuilder) ->
+                after(criteriaBuilder, root.get(sortKey.getAttribute()), value, root.get("id"), movieId);
+    }
+
+    private static Specification<Movie> keyMissing(MovieSortKey sortKey) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.isNull(root.get(sortKey.getAttribute()));
     }
 
     /**
-     * Retrieves top-rated movies.
+     * Matches the rows ordered after (value, movieId) by key and then ID. Rows without
+     * a key never match.
+     */
+    private static <Y extends Comparable<? super Y>> Predicate after(CriteriaBuilder criteriaBuilder,
+                                                                      Path<Y> key, Y value,
+                                                                      Path<Long> id, Long movieId) {
+        return criteriaBuilder.or(
+                criteriaBuilder.greaterThan(key, value),
+                criteriaBuilder.and(criteriaBuilder.equal(key, value), criteriaBuilder.greaterThan(id, movieId)));
+    }
+
+    private static MovieCursor cursorAfter(Movie movie, MovieSortKey sortKey) {
+        String value = switch (sortKey) {
+            case ID -> null;
+            case TITLE -> movie.getTitle();
+            case RELEASE_YEAR -> movie.getReleaseYear() == null ? null : movie.getReleaseYear().toString();
+        };
+        return new MovieCursor(sortKey, movie.getId(), value);
+    }
+
+    private static Link cursorLink(LinkRelation rel, String cursor, int size, MovieSortKey sortKey,
+                                   String title, String genre, Integer releaseYear) {
+        UriComponentsBuilder builder = WebMvcLinkBuilder.linkTo(MovieController.class).toUriComponentsBuilder()
+                .queryParam("cursor", cursor)
+                .queryParam("size", size)
+                .queryParam("sort", sortKey.getValue());
+        if (title != null) {
+            builder.queryParam("title", title);
+        }
+        if (genre != null) {
+            builder.queryParam("genre", genre);
+        }
+        if (releaseYear != null) {
+            builder.queryParam("releaseYear", releaseYear);
+        }
+        return Link.of(builder.build().encode().toUriString(), rel);
+    }
+
+    /**
+     * Retrieves top-rated movies, optionally scoped to a genre and a release year range.
+     * @param genre optional genre filter
+     * @param releaseYearFrom optional lower bound of the release year
+     * @param releaseYearTo optional upper bound of the release year
+     * @param limit maximum number of movies to return
      * @return list of top-rated movies
      */
     @Override
-    public List<TopRatedMovie> getTopRatedMovies() {
-        log.info("Fetching top-rated movies");
-        List<TopRatedMovie> topRatedMovies = movieRepository.findTopRatedMovies();
+    public List<TopRatedMovie> getTopRatedMovies(String genre, Integer releaseYearFrom, Integer releaseYearTo, int limit) {
+        log.info("Fetching top {} rated movies with filters - Genre: {}, Release years: {} to {}",
+                limit, genre, releaseYearFrom, releaseYearTo);
+        if (limit <= 0 || limit > MAX_TOP_RATED_LIMIT) {
+            log.warn("Invalid top-rated limit: {}", limit);
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_TOP_RATED_LIMIT);
+        }
+        if (releaseYearFrom != null && releaseYearTo != null && releaseYearFrom > releaseYearTo) {
+            log.warn("Invalid release year range: {} to {}", releaseYearFrom, releaseYearTo);
+            throw new IllegalArgumentException("releaseYearFrom must not be greater than releaseYearTo");
+        }
+        List<TopRatedMovie> topRatedMovies =
+                leaderboardService.getTopRatedMovies(genre, releaseYearFrom, releaseYearTo, limit);
         if (topRatedMovies == null || topRatedMovies.isEmpty()) {
             log.info("No top-rated movies found");
             throw new ResourceNotFoundException("No top-rated movies found");
@@ -99,47 +354,93 @@ public class MovieServiceImpl implements MovieService {
     }
 
     /**
-     * Retrieves a movie by its ID.
+     * Retrieves the movies rated most often within a recent time window.
+     * @param window the time window, one of 1h, 1d or 1w
+     * @param limit maximum number of movies to return
+     * @return list of trending movies
+     */
+    @Override
+    public List<TrendingMovie> getTrendingMovies(String window, int limit) {
+        log.info("Fetching top {} trending movies for window {}", limit, window);
+        if (limit <= 0 || limit > MAX_TRENDING_LIMIT) {
+            log.warn("Invalid trending limit: {}", limit);
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_TRENDING_LIMIT);
+        }
+        List<TrendingMovie> trendingMovies = trendingService.getTrendingMovies(TrendingWindow.fromValue(window), limit);
+        if (trendingMovies == null || trendingMovies.isEmpty()) {
+            log.info("No trending movies found");
+            throw new ResourceNotFoundException("No trending movies found");
+        }
+        log.info("Retrieved {} trending movies", trendingMovies.size());
+        return trendingMovies;
+    }
+
+    /**
+     * Retrieves a movie by its ID through the movie cache.
      * @param movieId the ID of the movie
      * @return the movie if found
      */
     @Override
     public Movie getMovieById(Long movieId) {
         log.info("Fetching movie with ID: {}", movieId);
-        return movieRepository.findById(movieId)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie with ID " + movieId + " not found"));
+        return movieCacheService.get(movieId, id -> movieRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie with ID " + id + " not found")));
+    }
+
+    /**
+     * Retrieves the version of a movie if it is at hand without a lookup.
+     * @param movieId the ID of the movie
+     * @return the version of the movie, or empty if it is not cached on this node
+     */
+    @Override
+    public Optional<Long> getCachedMovieVersion(Long movieId) {
+        return movieCacheService.getVersion(movieId);
     }
 
     /**
      * Saves or updates a movie.
+     * An update copies the fields onto the stored movie, which bumps its version.
      * @param movie the movie to save or update
      * @return saved movie
      */
     @Override
+    @Transactional
     public Movie saveOrUpdateMovie(Movie movie) {
         log.info("Saving or updating movie: {}", movie);
         if (movie == null) {
             log.error("Attempted to save or update a null movie");
             throw new IllegalArgumentException("Movie must not be null");
         }
-        return movieRepository.save(movie);
+        Movie existing = movie.getId() == null ? null : movieRepository.findById(movie.getId()).orElse(null);
+        ChangeEvent.Operation operation = existing == null ? ChangeEvent.Operation.CREATED : ChangeEvent.Operation.UPDATED;
+        Movie savedMovie;
+        if (existing == null) {
+            movie.setId(null);
+            movie.setVersion(null);
+            savedMovie = movieRepository.save(movie);
+        } else {
+            existing.setTitle(movie.getTitle());
+            existing.setGenre(movie.getGenre());
+            existing.setReleaseYear(movie.getReleaseYear());
+            savedMovie = movieRepository.save(existing);
+        }
+        changeFeedService.append(ChangeEvent.movie(operation, savedMovie.getId()));
+        eventPublisher.publishEvent(new MovieSavedEvent(savedMovie.getId(), savedMovie.getTitle(),
+                savedMovie.getGenre(), savedMovie.getReleaseYear()));
+        return savedMovie;
     }
 
     /**
-     * Deletes a movie by id.
+     * Deletes a movie by id together with its ratings.
      * @param movieId the id of the movie to delete
+     * @return the deletion job, still running if the movie has many ratings
      */
     @Override
-    public void deleteMovie(Long movieId) {
+    public DeletionJob deleteMovie(Long movieId) {
         log.info("Deleting movie with ID: {}", movieId);
         if (movieId == null) {
             throw new IllegalArgumentException("Movie ID must not be null");
         }
-        movieRepository.findById(movieId).ifPresentOrElse(
-                movie -> movieRepository.deleteById(movieId),
-                () -> {
-                    throw new ResourceNotFoundException("Attempted to delete non-existent movie with id: " + movieId);
-                }
-        );
+        return entityDeletionService.deleteMovie(movieId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package org.sky.study.service.impl;
+
+import org.sky.study.dto.RatingHistogram;
+import org.sky.study.model.jpa.Rating;
+import org.sky.study.model.projection.ScoreCount;
+import org.sky.study.repository.jpa.MovieRatingStatsRepository;
+import org.sky.study.service.RatingHistogramService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds the score distribution of a movie from its score counts, which are
+ * kept in the MOVIE_SCORE_COUNTS table in the same transaction as every rating
+ * write (see {@link RatingStatsServiceImpl}). Every node therefore reads the
+ * same counts, and a read fetches at most ten rows by primary key instead of
+ * aggregating rating rows.
+ */
+@Service
+public class RatingHistogramServiceImpl implements RatingHistogramService {
+
+    private static final int TOTAL = 0;
+
+    private final MovieRatingStatsRepository ratingStatsRepository;
+
+    private static final Logger log = LoggerFactory.getLogger(RatingHistogramServiceImpl.class);
+
+    public RatingHistogramServiceImpl(MovieRatingStatsRepository ratingStatsRepository) {
+        this.ratingStatsRepository = ratingStatsRepository;
+    }
+
+    /**
+     * Retrieves the score distribution of a movie.
+     * @param movieId the ID of the movie
+     * @return count per score with mean and median, all counts zero if the movie has no ratings
+     */
+    @Override
+    public RatingHistogram getHistogram(Long movieId) {
+        int[] counts = new int[Rating.MAX_SCORE + 1];
+        for (ScoreCount scoreCount : ratingStatsRepository.findScoreCounts(movieId)) {
+            if (!isValidScore(scoreCount.getScore())) {
+                log.warn("Skipping {} ratings of movie ID {} with invalid score {}",
+                        scoreCount.getRatingCount(), movieId, scoreCount.getScore());
+                continue;
+            }
+            int count = Math.toIntExact(scoreCount.getRatingCount());
+            counts[scoreCount.getScore()] += count;
+            counts[TOTAL] += count;
+        }
+
+        Map<Integer, Integer> countsByScore = new LinkedHashMap<>();
+        long sum = 0;
+        for (int score = Rating.MIN_SCORE; score <= Rating.MAX_SCORE; score++) {
+            countsByScore.put(score, counts[score]);
+            sum += (long) score * counts[score];
+        }
+        int total = counts[TOTAL];
+        Double mean = total == 0 ? null : (double) sum / total;
+        Double median = total == 0 ? null : (scoreAt(counts, (total - 1) / 2) + scoreAt(counts, total / 2)) / 2.0;
+        return new RatingHistogram(movieId, countsByScore, total, mean, median);
+    }
+
+    private static boolean isValidScore(Integer score) {
+        return score != null && score >= Rating.MIN_SCORE && score <= Rating.MAX_SCORE;
+    }
+
+    private static int scoreAt(int[] counts, int position) {
+        int seen = 0;
+        for (int score = Rating.MIN_SCORE; score <= Rating.MAX_SCORE; score++) {
+            seen += counts[score];
+            if (position < seen) {
+                return score;
+            }
+        }
+        return Rating.MAX_SCORE;
+    }
+}
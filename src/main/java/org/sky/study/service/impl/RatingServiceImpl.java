@@ -1,100 +1,162 @@
 package org.sky.study.service.impl;
 
+import org.sky.study.dto.RatingHistogram;
 import org.sky.study.exception.ResourceNotFoundException;
-import org.sky.study.model.jpa.Movie;
+import org.sky.study.model.jpa.ChangeEvent;
 import org.sky.study.model.jpa.Rating;
-import org.sky.study.model.jpa.User;
+import org.sky.study.model.projection.RatingUpsert;
+import org.sky.study.model.projection.RatingView;
 import org.sky.study.repository.jpa.MovieRepository;
 import org.sky.study.repository.jpa.RatingRepository;
-import org.sky.study.repository.jpa.UserRepository;
+import org.sky.study.service.ChangeFeedService;
+import org.sky.study.service.RatingHistogramService;
 import org.sky.study.service.RatingService;
+import org.sky.study.service.RatingStatsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class RatingServiceImpl implements RatingService {
 
     private final RatingRepository ratingRepository;
     private final MovieRepository  movieRepository;
-    private final UserRepository userRepository;
+    private final RatingStatsService ratingStatsService;
+    private final RatingHistogramService ratingHistogramService;
+    private final ChangeFeedService changeFeedService;
 
     private static final Logger log = LoggerFactory.getLogger(RatingServiceImpl.class);
 
+    public static final int MAX_SCORE_LOOKUP_SIZE = 100;
+
     public RatingServiceImpl(RatingRepository ratingRepository,
                              MovieRepository movieRepository,
-                             UserRepository userRepository) {
+                             RatingStatsService ratingStatsService,
+                             RatingHistogramService ratingHistogramService,
+                             ChangeFeedService changeFeedService) {
         this.movieRepository = movieRepository;
-        this.userRepository = userRepository;
         this.ratingRepository = ratingRepository;
+        this.ratingStatsService = ratingStatsService;
+        this.ratingHistogramService = ratingHistogramService;
+        this.changeFeedService = changeFeedService;
     }
 
     /**
-     * Saves or updates a movie rating.
+     * Saves or updates a movie rating with a single upsert statement.
      * @param movieId the ID of the movie
      * @param score the rating score
-     * @param username the username of the user rating the movie
+     * @param userId the ID of the user rating the movie
      * @return the saved or updated rating
      */
     @Override
-    public Rating saveOrUpdateRating(Long movieId, Integer score, String username) {
-        if (movieId == null || score == null || username == null || username.isBlank()) {
+    @Transactional
+    public Rating saveOrUpdateRating(Long movieId, Integer score, Long userId) {
+        if (movieId == null || score == null || userId == null) {
             throw new IllegalArgumentException("Invalid input parameters");
         }
+        if (score < Rating.MIN_SCORE || score > Rating.MAX_SCORE) {
+            throw new IllegalArgumentException("Score must be between " + Rating.MIN_SCORE + " and " + Rating.MAX_SCORE);
+        }
 
-        return ratingRepository.findByMovieIdAndUsername(movieId, username)
-                .map(existingRating -> updateExistingRating(existingRating, score, username, movieId))
-                .orElseGet(() -> createNewRating(movieId, score, username));
-    }
-
-    private Rating updateExistingRating(Rating existingRating, Integer score, String username, Long movieId) {
-        existingRating.setScore(score);
-        log.info("Updating existing rating for user {} and movie ID {}", username, movieId);
-        return ratingRepository.save(existingRating);
-    }
-
-    private Rating createNewRating(Long movieId, Integer score, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
-        Movie movie = movieRepository.findById(movieId)
+        RatingUpsert upsert = ratingRepository.upsertRating(movieId, userId, score, Instant.now())
                 .orElseThrow(() -> new ResourceNotFoundException("Movie not found with ID: " + movieId));
+        if (upsert.getPreviousScore() == null) {
+            log.info("Created new rating for user ID {} and movie ID {}", userId, movieId);
+            ratingStatsService.ratingAdded(movieId, score);
+            changeFeedService.append(ChangeEvent.rating(ChangeEvent.Operation.CREATED, movieId, userId, score));
+        } else {
+            log.info("Updated existing rating for user ID {} and movie ID {}", userId, movieId);
+            ratingStatsService.ratingChanged(movieId, upsert.getPreviousScore(), score);
+            if (!upsert.getPreviousScore().equals(score)) {
+                changeFeedService.append(ChangeEvent.rating(ChangeEvent.Operation.UPDATED, movieId, userId, score));
+            }
+        }
 
-        Rating newRating = new Rating();
-        newRating.setMovie(movie);
-        newRating.setScore(score);
-        newRating.setUser(user);
-        log.info("Creating new rating for user {} and movie {}", user.getUsername(), movie.getTitle());
-        return ratingRepository.save(newRating);
+        Rating rating = new Rating();
+        rating.setScore(upsert.getScore());
+        rating.setRatedAt(upsert.getRatedAt());
+        return rating;
     }
 
     /**
-     * Deletes a movie rating by movie ID.
+     * Deletes a movie rating by movie ID with a single statement.
      * @param movieId the ID of the movie
-     * @param username the Name of the user who rated the movie
+     * @param userId the ID of the user who rated the movie
      */
     @Override
-    public void deleteUserRating(Long movieId, String username) {
-        log.info("Deleting rating for user {} and movie ID {}", username, movieId);
-        Rating rating = ratingRepository.findByMovieIdAndUsername(movieId, username)
-                .orElseThrow(() -> new ResourceNotFoundException("Rating not found for movie ID: " + movieId + " and username: " + username));
-        ratingRepository.delete(rating);
+    @Transactional
+    public void deleteUserRating(Long movieId, Long userId) {
+        log.info("Deleting rating for user ID {} and movie ID {}", userId, movieId);
+        Integer score = ratingRepository.deleteReturningScore(movieId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Rating not found for movie ID: " + movieId + " and user ID: " + userId));
+        ratingStatsService.ratingRemoved(movieId, score);
+        changeFeedService.append(ChangeEvent.rating(ChangeEvent.Operation.DELETED, movieId, userId, null));
     }
 
     /**
-     * Retrieves a rating by movie ID and username.
+     * Retrieves the score and time of a rating by movie ID and user ID.
      * @param movieId the ID of the movie
-     * @param username the username of the user
-     * @return an Optional containing the rating if found, otherwise empty
+     * @param userId the ID of the user
+     * @return the rating if found
      */
     @Override
-    public Rating getRatingByMovieIdAndUserName(Long movieId, String username) {
-        log.info("Fetching ratings for movie ID {} by user {}", movieId, username);
-        if (movieId == null || username == null || username.isBlank()) {
-            throw new IllegalArgumentException("Invalid input parameters: movieId and username must not be null or blank");
+    public RatingView getRatingByMovieIdAndUserId(Long movieId, Long userId) {
+        log.info("Fetching ratings for movie ID {} by user ID {}", movieId, userId);
+        if (movieId == null || userId == null) {
+            throw new IllegalArgumentException("Invalid input parameters: movieId and userId must not be null");
         }
-        return ratingRepository.findByMovieIdAndUsername(movieId, username).orElseThrow(() -> {;
-            log.warn("Rating not found for movie ID {} added by {}", movieId, username);
-            return new ResourceNotFoundException("Rating not found for movie ID " + movieId + " added by " + username);
+        return ratingRepository.findViewByMovieIdAndUserId(movieId, userId).orElseThrow(() -> {
+            log.warn("Rating not found for movie ID {} added by user ID {}", movieId, userId);
+            return new ResourceNotFoundException("Rating not found for movie ID " + movieId + " added by user ID " + userId);
         });
     }
+
+    /**
+     * Retrieves the scores a user gave to several movies with a single query.
+     * @param movieIds the IDs of the movies, at most {@value #MAX_SCORE_LOOKUP_SIZE}
+     * @param userId the ID of the user
+     * @return score per movie ID; movies the user has not rated are left out
+     */
+    @Override
+    public Map<Long, Integer> getUserScores(Collection<Long> movieIds, Long userId) {
+        if (movieIds == null || movieIds.isEmpty() || userId == null) {
+            throw new IllegalArgumentException("Invalid input parameters: movieIds must not be empty and userId must not be null");
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(movieIds);
+        if (distinctIds.contains(null)) {
+            throw new IllegalArgumentException("Movie IDs must not be null");
+        }
+        if (distinctIds.size() > MAX_SCORE_LOOKUP_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_SCORE_LOOKUP_SIZE + " movie IDs can be looked up at once");
+        }
+        log.info("Fetching scores of user ID {} for {} movies", userId, distinctIds.size());
+
+        Map<Long, Integer> scores = new LinkedHashMap<>();
+        ratingRepository.findMovieScoresByUserIdAndMovieIdIn(userId, distinctIds)
+                .forEach(score -> scores.put(score.getMovieId(), score.getScore()));
+        return scores;
+    }
+
+    /**
+     * Retrieves the score distribution of a movie.
+     * @param movieId the ID of the movie
+     * @return count per score with mean and median
+     */
+    @Override
+    public RatingHistogram getRatingHistogram(Long movieId) {
+        log.info("Fetching rating histogram for movie ID {}", movieId);
+        RatingHistogram histogram = ratingHistogramService.getHistogram(movieId);
+        if (histogram.getTotalCount() == 0 && !movieRepository.existsById(movieId)) {
+            throw new ResourceNotFoundException("Movie not found with ID: " + movieId);
+        }
+        return histogram;
+    }
 }
\ No newline at end of file
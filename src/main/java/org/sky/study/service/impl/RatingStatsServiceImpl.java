@@ -0,0 +1,198 @@
+package org.sky.study.service.impl;
+
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.model.projection.MovieScore;
+import org.sky.study.repository.jpa.MovieRatingStatsRepository;
+import org.sky.study.service.RatingStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the per-movie rating aggregates and score counts in step with the
+ * RATINGS table. All update methods join the caller's transaction, so neither
+ * diverges from the rating write that caused it. Every change is also
+ * published as a {@link RatingChangedEvent} for in-memory views.
+ */
+@Service
+public class RatingStatsServiceImpl implements RatingStatsService {
+
+    private final MovieRatingStatsRepository ratingStatsRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${ratings.stats.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    private static final Logger log = LoggerFactory.getLogger(RatingStatsServiceImpl.class);
+
+    public RatingStatsServiceImpl(MovieRatingStatsRepository ratingStatsRepository,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Adds a new rating to the aggregate of a movie.
+     * @param movieId the ID of the movie
+     * @param score the score of the new rating
+     */
+    @Override
+    @Transactional
+    public void ratingAdded(Long movieId, Integer score) {
+        ratingStatsRepository.applyDelta(movieId, score, 1);
+        ratingStatsRepository.applyScoreDelta(movieId, score, 1);
+        eventPublisher.publishEvent(new RatingChangedEvent(movieId, null, score));
+    }
+
+    /**
+     * Replaces the score of an existing rating in the aggregate of a movie.
+     * @param movieId the ID of the movie
+     * @param oldScore the previous score
+     * @param newScore the new score
+     */
+    @Override
+    @Transactional
+    public void ratingChanged(Long movieId, Integer oldScore, Integer newScore) {
+        if (oldScore.equals(newScore)) {
+            return;
+        }
+        ratingStatsRepository.applyDelta(movieId, (long) newScore - oldScore, 0);
+        ratingStatsRepository.applyScoreDelta(movieId, oldScore, -1);
+        ratingStatsRepository.applyScoreDelta(movieId, newScore, 1);
+        eventPublisher.publishEvent(new RatingChangedEvent(movieId, oldScore, newScore));
+    }
+
+    /**
+     * Removes a rating from the aggregate of a movie.
+     * @param movieId the ID of the movie
+     * @param score the score of the removed rating
+     */
+    @Override
+    @Transactional
+    public void ratingRemoved(Long movieId, Integer score) {
+        ratingStatsRepository.applyDelta(movieId, -score, -1);
+        ratingStatsRepository.applyScoreDelta(movieId, score, -1);
+        eventPublisher.publishEvent(new RatingChangedEvent(movieId, score, null));
+    }
+
+    /**
+     * Applies a batch of rating changes with a single aggregate update per movie
+     * and a single count update per movie and score.
+     * @param changes the rating changes, in the order they were written
+     */
+    @Override
+    @Transactional
+    public void ratingsChanged(List<RatingChangedEvent> changes) {
+        Map<Long, long[]> deltas = new HashMap<>();
+        Map<Long, Map<Integer, Long>> scoreDeltas = new HashMap<>();
+        for (RatingChangedEvent change : changes) {
+            long[] delta = deltas.computeIfAbsent(change.getMovieId(), id -> new long[2]);
+            delta[0] += change.getSumDelta();
+            delta[1] += change.getCountDelta();
+            Map<Integer, Long> movieScoreDeltas = scoreDeltas.computeIfAbsent(change.getMovieId(), id -> new HashMap<>());
+            if (change.getOldScore() != null) {
+                movieScoreDeltas.merge(change.getOldScore(), -1L, Long::sum);
+            }
+            if (change.getNewScore() != null) {
+                movieScoreDeltas.merge(change.getNewScore(), 1L, Long::sum);
+            }
+        }
+        deltas.forEach((movieId, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) {
+                ratingStatsRepository.applyDelta(movieId, delta[0], delta[1]);
+            }
+            scoreDeltas.get(movieId).forEach((score, countDelta) -> {
+                if (countDelta != 0) {
+                    ratingStatsRepository.applyScoreDelta(movieId, score, countDelta);
+                }
+            });
+        });
+        changes.forEach(eventPublisher::publishEvent);
+    }
+
+    /**
+     * Deletes up to {@code limit} ratings of a user and subtracts them from the aggregates in one statement.
+     * @param userId the ID of the user
+     * @param limit the maximum number of ratings to delete
+     * @return movie ID and score of the deleted ratings
+     */
+    @Override
+    @Transactional
+    public List<MovieScore> removeUserRatings(Long userId, int limit) {
+        List<MovieScore> removedScores = ratingStatsRepository.deleteUserRatings(userId, limit);
+        log.debug("Removed {} ratings of user ID {}", removedScores.size(), userId);
+        removedScores.forEach(removed -> eventPublisher.publishEvent(
+                new RatingChangedEvent(removed.getMovieId(), removed.getScore(), null)));
+        return removedScores;
+    }
+
+    /**
+     * Deletes up to {@code limit} ratings of a movie and subtracts them from its aggregate in one statement.
+     * No per-rating events are published; in-memory views drop the movie when it is deleted.
+     * @param movieId the ID of the movie
+     * @param limit the maximum number of ratings to delete
+     * @return number of deleted ratings
+     */
+    @Override
+    @Transactional
+    public long removeMovieRatings(Long movieId, int limit) {
+        long removed = ratingStatsRepository.deleteMovieRatings(movieId, limit);
+        log.debug("Removed {} ratings of movie ID {}", removed, movieId);
+        return removed;
+    }
+
+    /**
+     * Drops the aggregate and score counts of a deleted movie.
+     * @param movieId the ID of the movie
+     */
+    @Override
+    @Transactional
+    public void movieRemoved(Long movieId) {
+        if (ratingStatsRepository.existsById(movieId)) {
+            ratingStatsRepository.deleteById(movieId);
+        }
+        ratingStatsRepository.deleteScoreCounts(movieId);
+    }
+
+    /**
+     * Recomputes all aggregates and score counts from the RATINGS table, e.g. after ratings
+     * were changed outside the service. Rating writes wait until the rebuild commits and then apply
+     * their deltas on top of it, so no concurrent change is lost or counted twice.
+     * @return number of recomputed aggregates
+     */
+    @Override
+    @Transactional
+    public int rebuild() {
+        ratingStatsRepository.lockAgainstWriters();
+        int removed = ratingStatsRepository.deleteUnrated();
+        int recomputed = ratingStatsRepository.recomputeAll();
+        ratingStatsRepository.deleteUnscored();
+        ratingStatsRepository.recomputeScoreCounts();
+        log.info("Rebuilt rating aggregates: {} recomputed, {} removed", recomputed, removed);
+        return recomputed;
+    }
+
+    /**
+     * Rebuilds the aggregates once the application is ready, if enabled. Off by default,
+     * since it scans the whole RATINGS table on every start of every node.
+     * Runs before in-memory views are seeded from the aggregates.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    @Transactional
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package org.sky.study.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.exception.TooManyRequestsException;
+import org.sky.study.model.jpa.ChangeEvent;
+import org.sky.study.model.jpa.Rating;
+import org.sky.study.model.projection.WrittenRating;
+import org.sky.study.repository.jpa.RatingRepository;
+import org.sky.study.service.ChangeFeedService;
+import org.sky.study.service.RatingStatsService;
+import org.sky.study.service.RatingWriteBehindService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts ratings into a bounded in-memory queue and writes them to the database
+ * in batches on a dedicated writer thread. Repeated ratings of the same movie by
+ * the same user are coalesced while queued, so only the latest score is written.
+ * Each batch is a single upsert statement whose RETURNING clause yields the
+ * overwritten scores, and the aggregates and change events of a batch are
+ * written in the same transaction. Ratings that could not be written are put back into the queue
+ * and dropped after {@code max-attempts} failed writes. A batch rejected by a constraint is
+ * written one rating at a time instead, and only the ratings rejected on their own are dropped,
+ * so a rating that can never be stored does not block the queue.
+ * Enabled with ratings.write-behind.enabled; otherwise ratings are written synchronously.
+ */
+@Service
+public class RatingWriteBehindServiceImpl implements RatingWriteBehindService {
+
+    private final RatingRepository ratingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RatingStatsService ratingStatsService;
+    private final ChangeFeedService changeFeedService;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int maxAttempts;
+
+    private final Object lock = new Object();
+    private final Object flushLock = new Object();
+    private LinkedHashMap<PendingKey, PendingRating> pending = new LinkedHashMap<>();
+    private ScheduledExecutorService writer;
+
+    private final Counter coalescedCounter;
+    private final Counter rejectedCounter;
+    private final Counter droppedCounter;
+    private final Counter rejectedByDatabaseCounter;
+    private final Counter attemptsExhaustedCounter;
+    private final Timer flushTimer;
+    private final Timer lagTimer;
+
+    private static final Logger log = LoggerFactory.getLogger(RatingWriteBehindServiceImpl.class);
+
+    public RatingWriteBehindServiceImpl(RatingRepository ratingRepository,
+                                        TransactionTemplate transactionTemplate,
+                                        RatingStatsService ratingStatsService,
+                                        ChangeFeedService changeFeedService,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${ratings.write-behind.enabled:false}") boolean enabled,
+                                        @Value("${ratings.write-behind.capacity:10000}") int capacity,
+                                        @Value("${ratings.write-behind.batch-size:500}") int batchSize,
+                                        @Value("${ratings.write-behind.flush-interval-ms:200}") long flushIntervalMillis,
+                                        @Value("${ratings.write-behind.max-attempts:10}") int maxAttempts) {
+        this.ratingRepository = ratingRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ratingStatsService = ratingStatsService;
+        this.changeFeedService = changeFeedService;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxAttempts = maxAttempts;
+
+        Gauge.builder("ratings.write_behind.pending", this, RatingWriteBehindServiceImpl::getPendingCount)
+                .description("Ratings accepted but not yet written")
+                .register(meterRegistry);
+        Gauge.builder("ratings.write_behind.oldest_age", this, RatingWriteBehindServiceImpl::oldestAgeSeconds)
+                .description("Seconds the oldest queued rating has been waiting")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("ratings.write_behind.coalesced")
+                .description("Ratings that replaced a queued rating of the same user and movie")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("ratings.write_behind.rejected")
+                .description("Ratings rejected because the queue was full")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("ratings.write_behind.dropped")
+                .description("Queued ratings discarded because the user or the movie no longer exists")
+                .register(meterRegistry);
+        this.rejectedByDatabaseCounter = Counter.builder("ratings.write_behind.failed")
+                .description("Queued ratings discarded because they could not be written")
+                .tag("reason", "rejected")
+                .register(meterRegistry);
+        this.attemptsExhaustedCounter = Counter.builder("ratings.write_behind.failed")
+                .description("Queued ratings discarded because they could not be written")
+                .tag("reason", "attempts-exhausted")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("ratings.write_behind.flush")
+                .description("Time to write one batch")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("ratings.write_behind.lag")
+                .description("Time from accepting a rating to committing it")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a rating to be written by the writer thread.
+     * @param movieId the ID of the movie
+     * @param score the rating score
+     * @param userId the ID of the user rating the movie
+     * @return the accepted rating, not yet stored
+     * @throws TooManyRequestsException if the queue is full
+     */
+    @Override
+    public Rating enqueue(Long movieId, Integer score, Long userId) {
+        if (movieId == null || score == null || userId == null) {
+            throw new IllegalArgumentException("Invalid input parameters");
+        }
+        if (score < Rating.MIN_SCORE || score > Rating.MAX_SCORE) {
+            throw new IllegalArgumentException("Score must be between " + Rating.MIN_SCORE + " and " + Rating.MAX_SCORE);
+        }
+
+        Instant ratedAt = Instant.now();
+        PendingKey key = new PendingKey(userId, movieId);
+        synchronized (lock) {
+            PendingRating queued = pending.get(key);
+            if (queued != null) {
+                queued.score = score;
+                queued.ratedAt = ratedAt;
+                coalescedCounter.increment();
+            } else if (pending.size() >= capacity) {
+                rejectedCounter.increment();
+                throw new TooManyRequestsException("Rating queue is full, retry later",
+                        Math.max(1, TimeUnit.MILLISECONDS.toSeconds(flushIntervalMillis)));
+            } else {
+                pending.put(key, new PendingRating(score, ratedAt, System.nanoTime()));
+            }
+        }
+
+        Rating rating = new Rating();
+        rating.setScore(score);
+        rating.setRatedAt(ratedAt);
+        return rating;
+    }
+
+    /**
+     * Writes all queued ratings in batches.
+     * @return number of ratings written
+     */
+    @Override
+    public int flush() {
+        synchronized (flushLock) {
+            LinkedHashMap<PendingKey, PendingRating> drained;
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                drained = pending;
+                pending = new LinkedHashMap<>();
+            }
+
+            List<Map.Entry<PendingKey, PendingRating>> entries = new ArrayList<>(drained.entrySet());
+            int written = 0;
+            int position = 0;
+            int attempted = 0;
+            try {
+                while (position < entries.size()) {
+                    List<Map.Entry<PendingKey, PendingRating>> batch =
+                            entries.subList(position, Math.min(position + batchSize, entries.size()));
+                    try {
+                        attempted = batch.size();
+                        written += writeBatch(batch);
+                        position += batch.size();
+                    } catch (DataIntegrityViolationException e) {
+                        log.warn("Write-behind batch of {} ratings rejected, writing them one by one", batch.size(), e);
+                        attempted = 1;
+                        for (Map.Entry<PendingKey, PendingRating> entry : batch) {
+                            try {
+                                written += writeBatch(List.of(entry));
+                            } catch (DataIntegrityViolationException rejected) {
+                                discard(entry, rejectedByDatabaseCounter, "rejected by the database", rejected);
+                            }
+                            position++;
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                retryLater(entries.subList(position, entries.size()), attempted);
+                throw e;
+            }
+            return written;
+        }
+    }
+
+    @Override
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Starts the writer thread once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || writer != null) {
+            return;
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rating-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Started write-behind rating writer: capacity {}, batch size {}, flush interval {} ms",
+                capacity, batchSize, flushIntervalMillis);
+    }
+
+    /**
+     * Stops the writer thread and writes whatever is still queued.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            writer.shutdown();
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        int remaining = getPendingCount();
+        if (remaining > 0) {
+            log.info("Flushing {} queued ratings on shutdown", remaining);
+            flush();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind rating flush failed", e);
+        }
+    }
+
+    private int writeBatch(List<Map.Entry<PendingKey, PendingRating>> batch) {
+        Long[] userIds = new Long[batch.size()];
+        Long[] movieIds = new Long[batch.size()];
+        Integer[] scores = new Integer[batch.size()];
+        Instant[] ratedAts = new Instant[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            userIds[i] = batch.get(i).getKey().userId;
+            movieIds[i] = batch.get(i).getKey().movieId;
+            scores[i] = batch.get(i).getValue().score;
+            ratedAts[i] = batch.get(i).getValue().ratedAt;
+        }
+
+        long started = System.nanoTime();
+        List<WrittenRating> written = transactionTemplate.execute(status -> {
+            List<WrittenRating> rows = ratingRepository.upsertRatings(userIds, movieIds, scores, ratedAts);
+            List<RatingChangedEvent> changed = new ArrayList<>();
+            List<ChangeEvent> changeEvents = new ArrayList<>();
+            for (WrittenRating row : rows) {
+                if (!Objects.equals(row.getPreviousScore(), row.getScore())) {
+                    changed.add(new RatingChangedEvent(row.getMovieId(), row.getPreviousScore(), row.getScore()));
+                    changeEvents.add(ChangeEvent.rating(row.getPreviousScore() == null ? ChangeEvent.Operation.CREATED : ChangeEvent.Operation.UPDATED,
+                            row.getMovieId(), row.getUserId(), row.getScore()));
+                }
+            }
+            if (!changed.isEmpty()) {
+                ratingStatsService.ratingsChanged(changed);
+                changeFeedService.appendAll(changeEvents);
+            }
+            return rows;
+        });
+
+        long now = System.nanoTime();
+        flushTimer.record(now - started, TimeUnit.NANOSECONDS);
+        batch.forEach(entry -> lagTimer.record(now - entry.getValue().acceptedNanos, TimeUnit.NANOSECONDS));
+        int dropped = batch.size() - written.size();
+        if (dropped > 0) {
+            droppedCounter.increment(dropped);
+            log.warn("Dropped {} queued ratings of unknown users or movies", dropped);
+        }
+        log.debug("Wrote {} queued ratings in {} ms", written.size(), TimeUnit.NANOSECONDS.toMillis(now - started));
+        return written.size();
+    }
+
+    /**
+     * Puts unwritten ratings back in front of the queue unless a newer rating was queued meanwhile.
+     * The first {@code attempted} ratings were part of the failed write and are dropped once they
+     * have failed {@code max-attempts} times.
+     */
+    private void retryLater(List<Map.Entry<PendingKey, PendingRating>> unwritten, int attempted) {
+        synchronized (lock) {
+            LinkedHashMap<PendingKey, PendingRating> requeued = new LinkedHashMap<>();
+            for (int i = 0; i < unwritten.size(); i++) {
+                Map.Entry<PendingKey, PendingRating> entry = unwritten.get(i);
+                if (i < attempted && ++entry.getValue().attempts >= maxAttempts) {
+                    discard(entry, attemptsExhaustedCounter, "failed " + maxAttempts + " times", null);
+                } else {
+                    requeued.put(entry.getKey(), entry.getValue());
+                }
+            }
+            pending.forEach(requeued::put);
+            pending = requeued;
+        }
+    }
+
+    private void discard(Map.Entry<PendingKey, PendingRating> entry, Counter counter, String reason,
+                         RuntimeException cause) {
+        counter.increment();
+        log.error("Discarded queued rating of user {} for movie {} with score {}: {}",
+                entry.getKey().userId, entry.getKey().movieId, entry.getValue().score, reason, cause);
+    }
+
+    private double oldestAgeSeconds() {
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            long acceptedNanos = pending.values().iterator().next().acceptedNanos;
+            return (System.nanoTime() - acceptedNanos) / 1e9;
+        }
+    }
+
+    private static final class PendingKey {
+        private final long userId;
+        private final long movieId;
+
+        private PendingKey(long userId, long movieId) {
+            this.userId = userId;
+            this.movieId = movieId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PendingKey)) return false;
+            PendingKey other = (PendingKey) o;
+            return userId == other.userId && movieId == other.movieId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, movieId);
+        }
+    }
+
+    private static final class PendingRating {
+        private Integer score;
+        private Instant ratedAt;
+        private final long acceptedNanos;
+        private int attempts;
+
+        private PendingRating(Integer score, Instant ratedAt, long acceptedNanos) {
+            this.score = score;
+            this.ratedAt = ratedAt;
+            this.acceptedNanos = acceptedNanos;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.sky.study.service.impl;
+
+import org.sky.study.service.CatalogVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps the catalog and ratings versions as counters in Redis, so all nodes
+ * hand out the same ETags. The catalog version is bumped after every committed
+ * movie save or delete, the ratings version after every committed rating change.
+ * The leaderboard bumps them once its rankings reflect the change, so a
+ * top-rated ETag never labels a ranking older than its versions.
+ * A missing counter, e.g. after Redis lost its data, is recreated at a random
+ * value instead of starting over at one, so a new version never repeats one
+ * that clients may still hold. If a bump fails it is retried, and until it
+ * succeeds this node reports no version rather than a stale one.
+ */
+@Service
+public class RedisCatalogVersionServiceImpl implements CatalogVersionService {
+
+    static final String CATALOG_KEY = "versions:catalog";
+    static final String RATINGS_KEY = "versions:ratings";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Set<String> pendingBumps = ConcurrentHashMap.newKeySet();
+
+    private static final Logger log = LoggerFactory.getLogger(RedisCatalogVersionServiceImpl.class);
+
+    public RedisCatalogVersionServiceImpl(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Retrieves the version of the movie catalog.
+     * @return the current catalog version, or empty if Redis cannot be reached
+     */
+    @Override
+    public Optional<Long> getCatalogVersion() {
+        return getVersion(CATALOG_KEY);
+    }
+
+    /**
+     * Retrieves the version of the ratings.
+     * @return the current ratings version, or empty if Redis cannot be reached
+     */
+    @Override
+    public Optional<Long> getRatingsVersion() {
+        return getVersion(RATINGS_KEY);
+    }
+
+    /**
+     * Moves the catalog to a new version after a committed movie save or delete.
+     */
+    @Override
+    public void catalogChanged() {
+        bump(CATALOG_KEY);
+    }
+
+    /**
+     * Moves the ratings to a new version after a committed rating change.
+     */
+    @Override
+    public void ratingsChanged() {
+        bump(RATINGS_KEY);
+    }
+
+    /**
+     * Retries the bumps that failed because Redis could not be reached.
+     */
+    @Scheduled(fixedDelayString = "${movies.versions.retry-ms:5000}")
+    public void retryPendingBumps() {
+        for (String key : pendingBumps) {
+            if (pendingBumps.remove(key)) {
+                bump(key);
+            }
+        }
+    }
+
+    private Optional<Long> getVersion(String key) {
+        if (pendingBumps.contains(key)) {
+            retryPendingBumps();
+            if (pendingBumps.contains(key)) {
+                return Optional.empty();
+            }
+        }
+        try {
+            String version = redisTemplate.opsForValue().get(key);
+            if (version == null) {
+                seed(key);
+                version = redisTemplate.opsForValue().get(key);
+            }
+            return Optional.ofNullable(version).map(Long::valueOf);
+        } catch (RuntimeException e) {
+            log.warn("Could not read {} from Redis: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void bump(String key) {
+        try {
+            Long version = redisTemplate.opsForValue().increment(key);
+            if (version != null && version == 1) {
+                // the counter was missing, move it away from the values a lost counter may have handed out
+                redisTemplate.opsForValue().set(key, randomVersion());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not bump {} in Redis, retrying later: {}", key, e.getMessage());
+            pendingBumps.add(key);
+        }
+    }
+
+    private void seed(String key) {
+        redisTemplate.opsForValue().setIfAbsent(key, randomVersion());
+    }
+
+    private static String randomVersion() {
+        return Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE / 2));
+    }
+}
@@ -0,0 +1,507 @@
+package org.sky.study.service.impl;
+
+import org.sky.study.dto.TopRatedMovie;
+import org.sky.study.exception.TooManyRequestsException;
+import org.sky.study.event.MovieDeletedEvent;
+import org.sky.study.event.MovieSavedEvent;
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.model.jpa.Movie;
+import org.sky.study.model.projection.MovieRatingSnapshot;
+import org.sky.study.repository.jpa.MovieRatingStatsRepository;
+import org.sky.study.repository.jpa.MovieRepository;
+import org.sky.study.service.CatalogVersionService;
+import org.sky.study.service.LeaderboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the top-rated rankings in Redis sorted sets shared by all instances.
+ * Besides the global ranking, every movie is ranked within its genre, its
+ * release decade and the combination of both (see {@link LeaderboardPartitions}).
+ * Rating sums and counts live in Redis hashes next to the sets, and every
+ * committed rating change is applied by a Lua script that updates the sum,
+ * the count and the ranked average in all partitions atomically. The catalog
+ * and ratings versions are bumped after each change is applied.
+ */
+@Service
+@ConditionalOnProperty(name = "movies.top-rated.mode", havingValue = "redis")
+public class RedisLeaderboardServiceImpl implements LeaderboardService {
+
+    static final String RANKING_KEY = "leaderboard:top-rated";
+    static final String SUMS_KEY = "leaderboard:sums";
+    static final String COUNTS_KEY = "leaderboard:counts";
+    static final String TITLES_KEY = "leaderboard:titles";
+    static final String GENRES_KEY = "leaderboard:genres";
+    static final String YEARS_KEY = "leaderboard:years";
+    static final String DECADES_KEY = "leaderboard:decades";
+    static final String PARTITIONS_KEY = "leaderboard:partitions";
+
+    static final String REBUILDING_KEY = "leaderboard:rebuilding";
+    static final String JOURNAL_KEY = "leaderboard:journal";
+
+    private static final String REBUILD_SUFFIX = ":rebuild";
+    private static final long REBUILD_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long REBUILD_RETRY_AFTER_SECONDS = 5;
+
+    /**
+     * Changes of the shared data, each taking its keys and arguments without the rebuild
+     * marker and journal keys. The scripts below run one of them, and while a rebuild is
+     * in progress also append it to the journal, from which the rebuild replays it onto
+     * the rebuilt keys.
+     */
+    private static final String OPERATIONS =
+            "local operations = {} " +
+            // keys: sums hash, counts hash, ranking of every partition; argv: movie ID, sum delta, count delta
+            "operations.delta = function(keys, argv) " +
+            "  local sum = redis.call('HINCRBY', keys[1], argv[1], argv[2]) " +
+            "  local count = redis.call('HINCRBY', keys[2], argv[1], argv[3]) " +
+            "  if count > 0 then " +
+            "    for i = 3, #keys do redis.call('ZADD', keys[i], sum / count, argv[1]) end " +
+            "  else " +
+            "    redis.call('HDEL', keys[1], argv[1]) " +
+            "    redis.call('HDEL', keys[2], argv[1]) " +
+            "    for i = 3, #keys do redis.call('ZREM', keys[i], argv[1]) end " +
+            "  end " +
+            "  return count " +
+            "end " +
+            // keys: global ranking, previous partition rankings, new partition rankings;
+            // argv: movie ID, number of previous partition rankings
+            "operations.move = function(keys, argv) " +
+            "  local score = redis.call('ZSCORE', keys[1], argv[1]) " +
+            "  if not score then return 0 end " +
+            "  local previous = tonumber(argv[2]) " +
+            "  for i = 2, previous + 1 do redis.call('ZREM', keys[i], argv[1]) end " +
+            "  for i = previous + 2, #keys do redis.call('ZADD', keys[i], score, argv[1]) end " +
+            "  return 1 " +
+            "end " +
+            // keys: rankings of every partition, then the hashes; argv: movie ID, number of rankings
+            "operations.remove = function(keys, argv) " +
+            "  local rankings = tonumber(argv[2]) " +
+            "  for i = 1, rankings do redis.call('ZREM', keys[i], argv[1]) end " +
+            "  for i = rankings + 1, #keys do redis.call('HDEL', keys[i], argv[1]) end " +
+            "  return 1 " +
+            "end " +
+            // keys: genres, years and titles hashes, partitions and decades sets;
+            // argv: movie ID, genre, year, decade, title, then the partition rankings
+            "operations.attributes = function(keys, argv) " +
+            "  redis.call('HSET', keys[1], argv[1], argv[2]) " +
+            "  redis.call('HSET', keys[2], argv[1], argv[3]) " +
+            "  if argv[5] ~= '' then redis.call('HSET', keys[3], argv[1], argv[5]) end " +
+            "  if argv[4] ~= '' then redis.call('SADD', keys[5], argv[4]) end " +
+            "  for i = 6, #argv do redis.call('SADD', keys[4], argv[i]) end " +
+            "  return 1 " +
+            "end ";
+
+    private static final RedisScript<Long> APPLY_DELTA_SCRIPT = journaled("delta");
+    private static final RedisScript<Long> MOVE_SCRIPT = journaled("move");
+    private static final RedisScript<Long> REMOVE_SCRIPT = journaled("remove");
+    private static final RedisScript<Long> ATTRIBUTES_SCRIPT = journaled("attributes");
+
+    /**
+     * KEYS: rebuild marker, journal. ARGV: rebuild ID, timeout in millis.
+     * Starts journaling changes unless another rebuild is in progress.
+     */
+    private static final RedisScript<Long> START_REBUILD_SCRIPT = new DefaultRedisScript<>(
+            "if not redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 0 end " +
+            "redis.call('DEL', KEYS[2]) " +
+            "return 1",
+            Long.class);
+
+    /**
+     * KEYS: rebuild marker, journal, then pairs of rebuilt key and live key. ARGV: rebuild ID.
+     * Moves every rebuilt key into place, or drops the live key if nothing was rebuilt for it,
+     * replays the journaled changes and stops journaling, all at once.
+     */
+    private static final RedisScript<Long> SWAP_SCRIPT = new DefaultRedisScript<>(
+            OPERATIONS +
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return -1 end " +
+            "for i = 3, #KEYS, 2 do " +
+            "  if redis.call('EXISTS', KEYS[i]) == 1 then redis.call('RENAME', KEYS[i], KEYS[i + 1]) " +
+            "  else redis.call('DEL', KEYS[i + 1]) end " +
+            "end " +
+            "local journal = redis.call('LRANGE', KEYS[2], 0, -1) " +
+            "for _, entry in ipairs(journal) do " +
+            "  local change = cjson.decode(entry) " +
+            "  operations[change[1]](change[2], change[3]) " +
+            "end " +
+            "redis.call('DEL', KEYS[1], KEYS[2]) " +
+            "return #journal",
+            Long.class);
+
+    /**
+     * KEYS: rebuild marker, journal. ARGV: rebuild ID.
+     */
+    private static final RedisScript<Long> ABORT_REBUILD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then redis.call('DEL', KEYS[1], KEYS[2]) end " +
+            "return 0",
+            Long.class);
+
+    private final MovieRatingStatsRepository ratingStatsRepository;
+    private final MovieRepository movieRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final CatalogVersionService catalogVersionService;
+
+    private static final Logger log = LoggerFactory.getLogger(RedisLeaderboardServiceImpl.class);
+
+    @Autowired
+    public RedisLeaderboardServiceImpl(MovieRatingStatsRepository ratingStatsRepository,
+                                       MovieRepository movieRepository,
+                                       RedisTemplate<String, String> redisTemplate,
+                                       CatalogVersionService catalogVersionService) {
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.movieRepository = movieRepository;
+        this.redisTemplate = redisTemplate;
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    /**
+     * Retrieves top-rated movies from the partition rankings covering the requested scope.
+     * Each ranking is read page by page until it yields enough movies within the scope,
+     * and the candidates of all rankings are merged by average rating.
+     * @param genre optional genre filter
+     * @param releaseYearFrom optional lower bound of the release year
+     * @param releaseYearTo optional upper bound of the release year
+     * @param limit maximum number of movies to return
+     * @return list of top-rated movies
+     */
+    @Override
+    public List<TopRatedMovie> getTopRatedMovies(String genre, Integer releaseYearFrom, Integer releaseYearTo, int limit) {
+        NavigableSet<Integer> decades = new TreeSet<>();
+        if (releaseYearFrom != null || releaseYearTo != null) {
+            Set<String> members = redisTemplate.opsForSet().members(DECADES_KEY);
+            if (members != null) {
+                members.forEach(member -> decades.add(Integer.valueOf(member)));
+            }
+        }
+
+        List<ZSetOperations.TypedTuple<String>> candidates = new ArrayList<>();
+        for (String partition : LeaderboardPartitions.covering(genre, releaseYearFrom, releaseYearTo, decades)) {
+            candidates.addAll(readPartition(RANKING_KEY + partition, releaseYearFrom, releaseYearTo, limit));
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        candidates.sort(Comparator
+                .comparing((ZSetOperations.TypedTuple<String> tuple) -> tuple.getScore(), Comparator.reverseOrder())
+                .thenComparingLong(tuple -> Long.parseLong(tuple.getValue())));
+        List<ZSetOperations.TypedTuple<String>> ranked = candidates.subList(0, Math.min(limit, candidates.size()));
+
+        List<Object> movieIds = new ArrayList<>(ranked.size());
+        ranked.forEach(tuple -> movieIds.add(tuple.getValue()));
+        List<Object> titles = redisTemplate.opsForHash().multiGet(TITLES_KEY, movieIds);
+        List<Object> genres = redisTemplate.opsForHash().multiGet(GENRES_KEY, movieIds);
+        List<Object> years = redisTemplate.opsForHash().multiGet(YEARS_KEY, movieIds);
+
+        List<TopRatedMovie> topRatedMovies = new ArrayList<>(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            Long movieId = Long.valueOf(ranked.get(i).getValue());
+            String title = (String) titles.get(i);
+            if (title == null || title.isEmpty()) {
+                title = loadTitle(movieId);
+            }
+            topRatedMovies.add(new TopRatedMovie(movieId, title, emptyToNull(genres.get(i)),
+                    toYear(years.get(i)), ranked.get(i).getScore()));
+        }
+        return topRatedMovies;
+    }
+
+    /**
+     * Rebuilds the sorted sets, their hashes and the partition and decade sets from the
+     * rating aggregates. The new data is written to temporary keys that replace all live
+     * keys in a single script, so readers never see a mix of old and new data. Changes
+     * applied to the live keys while the rebuild runs are journaled, and the same script
+     * replays them onto the new keys. Only one instance rebuilds at a time.
+     * @return number of ranked movies
+     * @throws TooManyRequestsException if another rebuild is in progress
+     */
+    @Override
+    public int rebuild() {
+        String rebuildId = UUID.randomUUID().toString();
+        Long started = redisTemplate.execute(START_REBUILD_SCRIPT, List.of(REBUILDING_KEY, JOURNAL_KEY),
+                rebuildId, Long.toString(REBUILD_TIMEOUT_MILLIS));
+        if (started == null || started == 0) {
+            throw new TooManyRequestsException("Leaderboard rebuild already in progress", REBUILD_RETRY_AFTER_SECONDS);
+        }
+        try {
+            return rebuild(rebuildId);
+        } catch (RuntimeException e) {
+            redisTemplate.execute(ABORT_REBUILD_SCRIPT, List.of(REBUILDING_KEY, JOURNAL_KEY), rebuildId);
+            throw e;
+        }
+    }
+
+    private int rebuild(String rebuildId) {
+        // changes committed before this read may also be journaled if their listener runs after
+        // the rebuild started; the window is the time between a commit and its listener
+        List<MovieRatingSnapshot> snapshots = ratingStatsRepository.findAllRatedSnapshots();
+        Set<String> previousPartitions = Optional.ofNullable(redisTemplate.opsForSet().members(PARTITIONS_KEY))
+                .orElse(Set.of());
+
+        Map<String, Set<ZSetOperations.TypedTuple<String>>> rankings = new HashMap<>();
+        Map<String, String> sums = new HashMap<>();
+        Map<String, String> counts = new HashMap<>();
+        Map<String, String> titles = new HashMap<>();
+        Map<String, String> genres = new HashMap<>();
+        Map<String, String> years = new HashMap<>();
+        Set<String> decades = new HashSet<>();
+        for (MovieRatingSnapshot snapshot : snapshots) {
+            String movieId = snapshot.getMovieId().toString();
+            ZSetOperations.TypedTuple<String> tuple = ZSetOperations.TypedTuple.of(movieId,
+                    (double) snapshot.getRatingSum() / snapshot.getRatingCount());
+            for (String partition : LeaderboardPartitions.of(snapshot.getGenre(), snapshot.getReleaseYear())) {
+                rankings.computeIfAbsent(RANKING_KEY + partition, key -> new HashSet<>()).add(tuple);
+            }
+            sums.put(movieId, snapshot.getRatingSum().toString());
+            counts.put(movieId, snapshot.getRatingCount().toString());
+            titles.put(movieId, Objects.toString(snapshot.getTitle(), ""));
+            genres.put(movieId, Objects.toString(snapshot.getGenre(), ""));
+            years.put(movieId, Objects.toString(snapshot.getReleaseYear(), ""));
+            if (snapshot.getReleaseYear() != null) {
+                decades.add(LeaderboardPartitions.decadeOf(snapshot.getReleaseYear()).toString());
+            }
+        }
+
+        Set<String> liveKeys = new LinkedHashSet<>(List.of(SUMS_KEY, COUNTS_KEY, TITLES_KEY, GENRES_KEY, YEARS_KEY,
+                DECADES_KEY, PARTITIONS_KEY));
+        liveKeys.addAll(previousPartitions);
+        liveKeys.addAll(rankings.keySet());
+        redisTemplate.delete(liveKeys.stream().map(key -> key + REBUILD_SUFFIX).toList());
+        writeHash(SUMS_KEY + REBUILD_SUFFIX, sums);
+        writeHash(COUNTS_KEY + REBUILD_SUFFIX, counts);
+        writeHash(TITLES_KEY + REBUILD_SUFFIX, titles);
+        writeHash(GENRES_KEY + REBUILD_SUFFIX, genres);
+        writeHash(YEARS_KEY + REBUILD_SUFFIX, years);
+        writeSet(DECADES_KEY + REBUILD_SUFFIX, decades);
+        writeSet(PARTITIONS_KEY + REBUILD_SUFFIX, rankings.keySet());
+        rankings.forEach((key, ranking) -> redisTemplate.opsForZSet().add(key + REBUILD_SUFFIX, ranking));
+
+        List<String> keys = new ArrayList<>(2 + 2 * liveKeys.size());
+        keys.add(REBUILDING_KEY);
+        keys.add(JOURNAL_KEY);
+        liveKeys.forEach(key -> {
+            keys.add(key + REBUILD_SUFFIX);
+            keys.add(key);
+        });
+        Long replayed = redisTemplate.execute(SWAP_SCRIPT, keys, rebuildId);
+        if (replayed == null || replayed < 0) {
+            throw new IllegalStateException("Leaderboard rebuild timed out before its keys were swapped in");
+        }
+        log.info("Rebuilt Redis leaderboard with {} movies in {} partitions, replayed {} concurrent changes",
+                snapshots.size(), rankings.size(), replayed);
+        return snapshots.size();
+    }
+
+    /**
+     * Builds the shared rankings on startup if no instance has done it yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    public void seed() {
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(RANKING_KEY))) {
+            try {
+                rebuild();
+            } catch (TooManyRequestsException e) {
+                log.info("Another instance is building the Redis leaderboard");
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        try {
+            applyDelta(event);
+        } finally {
+            catalogVersionService.ratingsChanged();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieSaved(MovieSavedEvent event) {
+        try {
+            updateAttributes(event);
+        } finally {
+            catalogVersionService.catalogChanged();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        try {
+            removeMovie(event.getMovieId());
+        } finally {
+            catalogVersionService.catalogChanged();
+        }
+    }
+
+    private void applyDelta(RatingChangedEvent event) {
+        String movieId = event.getMovieId().toString();
+        Object storedGenre = redisTemplate.opsForHash().get(GENRES_KEY, movieId);
+        String genre;
+        Integer releaseYear;
+        if (storedGenre != null) {
+            genre = emptyToNull(storedGenre);
+            releaseYear = toYear(redisTemplate.opsForHash().get(YEARS_KEY, movieId));
+        } else {
+            Movie movie = movieRepository.findById(event.getMovieId()).orElse(null);
+            if (movie == null) {
+                return;
+            }
+            genre = movie.getGenre();
+            releaseYear = movie.getReleaseYear();
+            storeAttributes(movieId, movie.getTitle(), genre, releaseYear);
+        }
+
+        List<String> keys = journalKeys(SUMS_KEY, COUNTS_KEY);
+        keys.addAll(partitionKeys(genre, releaseYear));
+        redisTemplate.execute(APPLY_DELTA_SCRIPT, keys,
+                movieId, Long.toString(event.getSumDelta()), Long.toString(event.getCountDelta()));
+    }
+
+    private void updateAttributes(MovieSavedEvent event) {
+        String movieId = event.getMovieId().toString();
+        Object previousGenre = redisTemplate.opsForHash().get(GENRES_KEY, movieId);
+        Object previousYear = redisTemplate.opsForHash().get(YEARS_KEY, movieId);
+        storeAttributes(movieId, event.getTitle(), event.getGenre(), event.getReleaseYear());
+        if (previousGenre == null
+                || (Objects.equals(emptyToNull(previousGenre), event.getGenre())
+                    && Objects.equals(toYear(previousYear), event.getReleaseYear()))) {
+            return;
+        }
+
+        List<String> previousKeys = partitionKeys(emptyToNull(previousGenre), toYear(previousYear));
+        List<String> keys = journalKeys(RANKING_KEY);
+        keys.addAll(previousKeys);
+        keys.addAll(partitionKeys(event.getGenre(), event.getReleaseYear()));
+        redisTemplate.execute(MOVE_SCRIPT, keys, movieId, Integer.toString(previousKeys.size()));
+    }
+
+    private void removeMovie(Long id) {
+        String movieId = id.toString();
+        Object genre = redisTemplate.opsForHash().get(GENRES_KEY, movieId);
+        Object releaseYear = redisTemplate.opsForHash().get(YEARS_KEY, movieId);
+        List<String> rankingKeys = partitionKeys(emptyToNull(genre), toYear(releaseYear));
+        List<String> keys = journalKeys();
+        keys.addAll(rankingKeys);
+        keys.addAll(List.of(SUMS_KEY, COUNTS_KEY, TITLES_KEY, GENRES_KEY, YEARS_KEY));
+        redisTemplate.execute(REMOVE_SCRIPT, keys, movieId, Integer.toString(rankingKeys.size()));
+    }
+
+    private List<ZSetOperations.TypedTuple<String>> readPartition(String key, Integer releaseYearFrom,
+                                                                  Integer releaseYearTo, int limit) {
+        List<ZSetOperations.TypedTuple<String>> matching = new ArrayList<>(limit);
+        long start = 0;
+        while (matching.size() < limit) {
+            Set<ZSetOperations.TypedTuple<String>> page =
+                    redisTemplate.opsForZSet().reverseRangeWithScores(key, start, start + limit - 1);
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            if (releaseYearFrom == null && releaseYearTo == null) {
+                matching.addAll(page);
+            } else {
+                List<Object> movieIds = new ArrayList<>(page.size());
+                page.forEach(tuple -> movieIds.add(tuple.getValue()));
+                List<Object> years = redisTemplate.opsForHash().multiGet(YEARS_KEY, movieIds);
+                int i = 0;
+                for (ZSetOperations.TypedTuple<String> tuple : page) {
+                    if (LeaderboardPartitions.matches(null, toYear(years.get(i++)), null, releaseYearFrom, releaseYearTo)) {
+                        matching.add(tuple);
+                    }
+                }
+            }
+            if (page.size() < limit) {
+                break;
+            }
+            start += limit;
+        }
+        return matching.size() > limit ? matching.subList(0, limit) : matching;
+    }
+
+    private List<String> partitionKeys(String genre, Integer releaseYear) {
+        List<String> partitions = LeaderboardPartitions.of(genre, releaseYear);
+        List<String> keys = new ArrayList<>(partitions.size());
+        partitions.forEach(partition -> keys.add(RANKING_KEY + partition));
+        return keys;
+    }
+
+    /**
+     * Stores the attributes a movie is partitioned by and registers its partitions,
+     * so that range queries know the decade and a rebuild can drop stale rankings.
+     */
+    private void storeAttributes(String movieId, String title, String genre, Integer releaseYear) {
+        List<String> args = new ArrayList<>(List.of(movieId, Objects.toString(genre, ""),
+                Objects.toString(releaseYear, ""), Objects.toString(LeaderboardPartitions.decadeOf(releaseYear), ""),
+                Objects.toString(title, "")));
+        args.addAll(partitionKeys(genre, releaseYear));
+        redisTemplate.execute(ATTRIBUTES_SCRIPT,
+                journalKeys(GENRES_KEY, YEARS_KEY, TITLES_KEY, PARTITIONS_KEY, DECADES_KEY), args.toArray());
+    }
+
+    private void writeHash(String key, Map<String, String> entries) {
+        if (!entries.isEmpty()) {
+            redisTemplate.opsForHash().putAll(key, entries);
+        }
+    }
+
+    private void writeSet(String key, Set<String> members) {
+        if (!members.isEmpty()) {
+            redisTemplate.opsForSet().add(key, members.toArray(String[]::new));
+        }
+    }
+
+    /**
+     * Keys of a journaled script: the rebuild marker and journal, followed by the given keys.
+     */
+    private static List<String> journalKeys(String... keys) {
+        List<String> journalKeys = new ArrayList<>(List.of(REBUILDING_KEY, JOURNAL_KEY));
+        journalKeys.addAll(List.of(keys));
+        return journalKeys;
+    }
+
+    /**
+     * Script running one of the {@link #OPERATIONS} and journaling it while a rebuild is in progress.
+     * KEYS: rebuild marker, journal, then the keys of the operation. ARGV: the arguments of the operation.
+     */
+    private static RedisScript<Long> journaled(String operation) {
+        return new DefaultRedisScript<>(
+                OPERATIONS +
+                "local keys = {} " +
+                "for i = 3, #KEYS do keys[#keys + 1] = KEYS[i] end " +
+                "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+                "  redis.call('RPUSH', KEYS[2], cjson.encode({'" + operation + "', keys, ARGV})) " +
+                "end " +
+                "return operations." + operation + "(keys, ARGV)",
+                Long.class);
+    }
+
+    private String loadTitle(Long movieId) {
+        String title = movieRepository.findById(movieId).map(Movie::getTitle).orElse(null);
+        if (title != null) {
+            redisTemplate.opsForHash().put(TITLES_KEY, movieId.toString(), title);
+        }
+        return title;
+    }
+
+    private static String emptyToNull(Object value) {
+        return value == null || value.toString().isEmpty() ? null : value.toString();
+    }
+
+    private static Integer toYear(Object value) {
+        String year = emptyToNull(value);
+        return year == null ? null : Integer.valueOf(year);
+    }
+}
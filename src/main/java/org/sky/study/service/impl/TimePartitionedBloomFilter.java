@@ -0,0 +1,124 @@
+package org.sky.study.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings that expire, split into partitions by expiry time.
+ * An entry goes into the partition covering its expiry, so a lookup checks a
+ * single partition, and a partition is dropped as a whole once everything in it
+ * has expired. A lookup never misses an added entry that has not expired yet,
+ * but may report one that was never added, with about the configured
+ * false-positive rate while a partition holds no more than its expected number
+ * of entries. Safe for concurrent use.
+ */
+public final class TimePartitionedBloomFilter {
+
+    private final long partitionMillis;
+    private final int bitCount;
+    private final int hashCount;
+    private final ConcurrentSkipListMap<Long, AtomicLongArray> partitions = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param partitionMillis the span of expiry times covered by one partition
+     * @param expectedEntries the number of entries one partition is sized for
+     * @param falsePositiveRate the false-positive rate at that number of entries
+     */
+    public TimePartitionedBloomFilter(long partitionMillis, int expectedEntries, double falsePositiveRate) {
+        if (partitionMillis <= 0 || expectedEntries <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Partition span, expected entries and false-positive rate out of range");
+        }
+        this.partitionMillis = partitionMillis;
+        double bits = -expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(bits)));
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedEntries * Math.log(2)));
+    }
+
+    /**
+     * Adds an entry.
+     * @param value the entry
+     * @param expiresAt the time in epoch millis after which the entry no longer needs to be found
+     */
+    public void put(String value, long expiresAt) {
+        AtomicLongArray bits = partitions.computeIfAbsent(partitionOf(expiresAt),
+                partition -> new AtomicLongArray((bitCount + 63) / 64));
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(hash1, hash2, i);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // another thread changed the word, retry
+            }
+        }
+    }
+
+    /**
+     * Checks whether an entry may have been added.
+     * @param value the entry
+     * @param expiresAt the expiry the entry would have been added with
+     * @return false if the entry was certainly not added, true if it may have been
+     */
+    public boolean mightContain(String value, long expiresAt) {
+        AtomicLongArray bits = partitions.get(partitionOf(expiresAt));
+        if (bits == null) {
+            return false;
+        }
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(hash1, hash2, i);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops the partitions whose entries have all expired.
+     * @param now the current time in epoch millis
+     * @return the number of partitions dropped
+     */
+    public int expire(long now) {
+        Map<Long, AtomicLongArray> expired = partitions.headMap(partitionOf(now));
+        int count = expired.size();
+        expired.clear();
+        return count;
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    private long partitionOf(long expiresAt) {
+        return Math.floorDiv(expiresAt, partitionMillis);
+    }
+
+    private int index(long hash1, long hash2, int i) {
+        return (int) Math.floorMod(hash1 + i * hash2, (long) bitCount);
+    }
+
+    private static long hash(String value) {
+        // FNV-1a over the UTF-8 bytes, finished with a mixer so both halves of the hash are usable
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
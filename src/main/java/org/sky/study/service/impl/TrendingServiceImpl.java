@@ -0,0 +1,55 @@
+package org.sky.study.service.impl;
+
+import org.sky.study.dto.TrendingMovie;
+import org.sky.study.dto.TrendingWindow;
+import org.sky.study.model.projection.RatingActivity;
+import org.sky.study.repository.jpa.RatingRepository;
+import org.sky.study.service.TrendingService;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ranks movies by the number of ratings they received recently, counted in the
+ * RATINGS table through the rated_at index. Every node therefore sees the same
+ * ranking, and a rating counts once at the time it was last given or changed,
+ * however it was written. The last hour starts at a full minute, longer windows
+ * at a full hour, so the ranking only changes as ratings arrive or a bucket ends.
+ */
+@Service
+public class TrendingServiceImpl implements TrendingService {
+
+    private final RatingRepository ratingRepository;
+
+    public TrendingServiceImpl(RatingRepository ratingRepository) {
+        this.ratingRepository = ratingRepository;
+    }
+
+    /**
+     * Retrieves the movies with the most ratings within a time window.
+     * @param window the time window to count ratings in
+     * @param limit maximum number of movies to return
+     * @return list of trending movies, most rated first
+     */
+    @Override
+    public List<TrendingMovie> getTrendingMovies(TrendingWindow window, int limit) {
+        List<RatingActivity> activities = ratingRepository.findMostRatedSince(windowStart(window), limit);
+        List<TrendingMovie> trendingMovies = new ArrayList<>(activities.size());
+        for (RatingActivity activity : activities) {
+            trendingMovies.add(new TrendingMovie(activity.getMovieId(), activity.getTitle(),
+                    Math.toIntExact(activity.getRatingCount())));
+        }
+        return trendingMovies;
+    }
+
+    /**
+     * Start of the oldest bucket of the window, the current bucket being the last one.
+     */
+    private Instant windowStart(TrendingWindow window) {
+        long bucketSeconds = window.isHourly() ? 3600 : 60;
+        long currentBucket = Math.floorDiv(Instant.now().getEpochSecond(), bucketSeconds);
+        return Instant.ofEpochSecond((currentBucket - window.getBuckets() + 1) * bucketSeconds);
+    }
+}
@@ -0,0 +1,333 @@
+package org.sky.study.service.impl;
+
+import org.sky.study.event.MovieDeletedEvent;
+import org.sky.study.event.MovieSavedEvent;
+import org.sky.study.model.projection.MovieTitle;
+import org.sky.study.repository.jpa.MovieRepository;
+import org.sky.study.service.TitleIndexService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Answers title substring searches from an inverted index of lower-cased title
+ * trigrams. Every trigram maps to a sorted array of the int IDs of the movies
+ * whose title contains it. A search intersects the posting lists of the trigrams
+ * of the term, starting with the shortest, and checks the remaining candidates
+ * against the indexed titles, so the returned IDs are exactly the movies whose
+ * lower-cased title contains the term literally. {@code %} and {@code _} are
+ * ordinary characters here, as in the escaped LIKE query the database answers
+ * instead. Terms shorter than three characters have no trigram and are left to
+ * the database.
+ * The posting lists and titles are published together as one immutable
+ * snapshot, so readers never lock and never see one without the other. Every
+ * committed movie save or delete replaces the snapshot and is published on
+ * {@value #CHANGE_CHANNEL}, where the other nodes apply it to their index too.
+ * Movie writes are rare next to searches, so a change copies the maps, which
+ * share all unchanged posting arrays with the previous snapshot. The index is
+ * built once the node is subscribed, and rebuilt whenever it subscribes again,
+ * so it misses no change of another node. Until then searches are left to the
+ * database.
+ */
+@Service
+public class TrigramTitleIndexServiceImpl implements TitleIndexService, MessageListener {
+
+    static final int GRAM_LENGTH = 3;
+    static final String CHANGE_CHANNEL = "movies:titles";
+    private static final int[] EMPTY = new int[0];
+
+    private final MovieRepository movieRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile Index index;
+    private volatile boolean synced;
+
+    private static final Logger log = LoggerFactory.getLogger(TrigramTitleIndexServiceImpl.class);
+
+    public TrigramTitleIndexServiceImpl(MovieRepository movieRepository,
+                                        RedisTemplate<String, String> redisTemplate,
+                                        RedisMessageListenerContainer listenerContainer) {
+        this.movieRepository = movieRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANGE_CHANNEL));
+    }
+
+    /**
+     * Finds the movies whose title contains a term, ignoring case.
+     * @param term the search term
+     * @return IDs of the matching movies in ascending order, or empty if the term
+     * is too short for the index or the index does not know all changes
+     */
+    @Override
+    public Optional<List<Long>> findMovieIds(String term) {
+        String normalized = normalize(term);
+        Index current = index;
+        if (current == null || !isSynchronized() || normalized.length() < GRAM_LENGTH) {
+            return Optional.empty();
+        }
+
+        List<int[]> lists = new ArrayList<>();
+        for (long gram : grams(normalized)) {
+            int[] ids = current.postings.get(gram);
+            if (ids == null) {
+                return Optional.of(List.of());
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(ids -> ids.length));
+
+        List<Long> movieIds = new ArrayList<>();
+        for (int id : lists.get(0)) {
+            if (containsInAll(lists, id)) {
+                String title = current.titles.get(id);
+                if (title != null && title.contains(normalized)) {
+                    movieIds.add((long) id);
+                }
+            }
+        }
+        return Optional.of(movieIds);
+    }
+
+    /**
+     * Rebuilds the index from the titles of all movies.
+     * @return number of indexed movies
+     */
+    @Override
+    public synchronized int rebuild() {
+        Map<Long, IntList> building = new HashMap<>();
+        Map<Integer, String> rebuiltTitles = new HashMap<>();
+        for (MovieTitle movie : movieRepository.findAllTitles()) {
+            if (movie.getTitle() == null) {
+                continue;
+            }
+            int id = Math.toIntExact(movie.getId());
+            String title = normalize(movie.getTitle());
+            rebuiltTitles.put(id, title);
+            for (long gram : grams(title)) {
+                building.computeIfAbsent(gram, key -> new IntList()).add(id);
+            }
+        }
+        Map<Long, int[]> rebuiltPostings = new HashMap<>(building.size() * 4 / 3 + 1);
+        building.forEach((gram, ids) -> rebuiltPostings.put(gram, ids.toSortedArray()));
+
+        index = new Index(rebuiltPostings, rebuiltTitles);
+        log.info("Indexed {} movie titles with {} trigrams", rebuiltTitles.size(), rebuiltPostings.size());
+        return rebuiltTitles.size();
+    }
+
+    /**
+     * Builds the index once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    public void seed() {
+        synchronize();
+    }
+
+    /**
+     * Subscribes to the title changes of other nodes, retrying until Redis is reachable,
+     * and then rebuilds the index, so it contains the changes made before.
+     */
+    @Scheduled(fixedDelayString = "${movies.title-index.subscribe-retry-ms:30000}")
+    public void synchronize() {
+        if (isSynchronized()) {
+            return;
+        }
+        try {
+            if (!listenerContainer.isRunning()) {
+                listenerContainer.start();
+            }
+            if (!listenerContainer.isListening()) {
+                return;
+            }
+            rebuild();
+            synced = true;
+        } catch (RuntimeException e) {
+            log.warn("Could not subscribe to movie title changes, title searches use the database: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieSaved(MovieSavedEvent event) {
+        apply(event.getMovieId(), event.getTitle());
+        publish(event.getMovieId() + (event.getTitle() == null ? "" : "\n" + event.getTitle()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        apply(event.getMovieId(), null);
+        publish(event.getMovieId().toString());
+    }
+
+    /**
+     * Applies a title change of another node. The body is the node ID, the movie ID
+     * and the new title on separate lines, without the title if the movie is gone.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 2 || parts[0].equals(nodeId)) {
+            return;
+        }
+        try {
+            apply(Long.valueOf(parts[1]), parts.length == 3 ? parts[2] : null);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed movie title change: {}", parts[1]);
+        }
+    }
+
+    private boolean isSynchronized() {
+        if (!listenerContainer.isListening()) {
+            synced = false;
+        }
+        return synced;
+    }
+
+    private void publish(String change) {
+        try {
+            redisTemplate.convertAndSend(CHANGE_CHANNEL, nodeId + "\n" + change);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish movie title change", e);
+        }
+    }
+
+    /**
+     * Replaces the snapshot with one where the movie has the given title, or none.
+     */
+    private synchronized void apply(Long movieId, String newTitle) {
+        Index current = index;
+        if (current == null) {
+            return;
+        }
+        int id = Math.toIntExact(movieId);
+        String previous = current.titles.get(id);
+        String title = newTitle == null ? null : normalize(newTitle);
+        if (Objects.equals(previous, title)) {
+            return;
+        }
+        Map<Long, int[]> postings = new HashMap<>(current.postings);
+        Map<Integer, String> titles = new HashMap<>(current.titles);
+        Set<Long> previousGrams = previous == null ? Set.of() : grams(previous);
+        Set<Long> grams = title == null ? Set.of() : grams(title);
+        for (long gram : previousGrams) {
+            if (!grams.contains(gram)) {
+                removeId(postings, gram, id);
+            }
+        }
+        for (long gram : grams) {
+            if (!previousGrams.contains(gram)) {
+                addId(postings, gram, id);
+            }
+        }
+        if (title == null) {
+            titles.remove(id);
+        } else {
+            titles.put(id, title);
+        }
+        index = new Index(postings, titles);
+    }
+
+    private static void addId(Map<Long, int[]> postings, long gram, int id) {
+        int[] ids = postings.getOrDefault(gram, EMPTY);
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        int[] updated = new int[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, insertAt);
+        updated[insertAt] = id;
+        System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+        postings.put(gram, updated);
+    }
+
+    private static void removeId(Map<Long, int[]> postings, long gram, int id) {
+        int[] ids = postings.get(gram);
+        int position = ids == null ? -1 : Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return;
+        }
+        if (ids.length == 1) {
+            postings.remove(gram);
+            return;
+        }
+        int[] updated = new int[ids.length - 1];
+        System.arraycopy(ids, 0, updated, 0, position);
+        System.arraycopy(ids, position + 1, updated, position, ids.length - position - 1);
+        postings.put(gram, updated);
+    }
+
+    private static boolean containsInAll(List<int[]> lists, int id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (Arrays.binarySearch(lists.get(i), id) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Packs every run of three characters into one long key, 16 bits per character.
+     */
+    static Set<Long> grams(String text) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Posting lists and titles of one version of the index, never changed once published.
+     */
+    private static final class Index {
+        private final Map<Long, int[]> postings;
+        private final Map<Integer, String> titles;
+
+        private Index(Map<Long, int[]> postings, Map<Integer, String> titles) {
+            this.postings = postings;
+            this.titles = titles;
+        }
+    }
+
+    /**
+     * Growable int array used while rebuilding, so posting lists are never boxed.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toSortedArray() {
+            int[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
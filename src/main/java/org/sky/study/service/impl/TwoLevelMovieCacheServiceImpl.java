@@ -0,0 +1,308 @@
+package org.sky.study.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.sky.study.event.MovieDeletedEvent;
+import org.sky.study.event.MovieSavedEvent;
+import org.sky.study.model.jpa.Movie;
+import org.sky.study.service.MovieCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of movies by ID with two levels: a bounded LRU map in each
+ * node, then a JSON copy in Redis shared by all nodes, then the database.
+ * Saved and deleted movies are dropped from both levels after commit, and the
+ * ID is published on {@value #INVALIDATION_CHANNEL} so the other nodes drop
+ * their local copy too. A load that started before an invalidation is not
+ * cached, so a reader racing a writer on the same node cannot put back the old
+ * movie. A reader on another node may still write its old copy to Redis before
+ * the invalidation reaches it, so every node deletes the shared copy again when
+ * the invalidation arrives; the check and the write of a load and the delete of
+ * an invalidation never interleave. Callers get their own copy, never the cached
+ * instance. Redis errors are logged and treated as misses. While the node is not
+ * subscribed to the invalidation channel, e.g. because Redis was down at
+ * startup, it caches nothing at either level, since it would not learn about
+ * changes made on other nodes.
+ */
+@Service
+public class TwoLevelMovieCacheServiceImpl implements MovieCacheService, MessageListener {
+
+    static final String KEY_PREFIX = "movie:";
+    static final String INVALIDATION_CHANNEL = "movies:invalidate";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<Long, Movie> local;
+    private final Object sharedWrites = new Object();
+    private long generation;
+
+    private final Counter localHitCounter;
+    private final Counter redisHitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+    private final Counter invalidationCounter;
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelMovieCacheServiceImpl.class);
+
+    public TwoLevelMovieCacheServiceImpl(RedisTemplate<String, String> redisTemplate,
+                                         RedisMessageListenerContainer listenerContainer,
+                                         ObjectMapper objectMapper,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${movies.cache.local-size:10000}") int localSize,
+                                         @Value("${movies.cache.ttl-seconds:3600}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.local = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Movie> eldest) {
+                if (size() > localSize) {
+                    evictionCounter.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        Gauge.builder("movies.cache.local.size", this, TwoLevelMovieCacheServiceImpl::getLocalSize)
+                .description("Movies held in this node's near-cache")
+                .register(meterRegistry);
+        this.localHitCounter = Counter.builder("movies.cache.hits")
+                .description("Movie lookups answered by a cache level")
+                .tag("level", "local")
+                .register(meterRegistry);
+        this.redisHitCounter = Counter.builder("movies.cache.hits")
+                .description("Movie lookups answered by a cache level")
+                .tag("level", "redis")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("movies.cache.misses")
+                .description("Movie lookups that went to the database")
+                .register(meterRegistry);
+        this.evictionCounter = Counter.builder("movies.cache.evictions")
+                .description("Movies dropped from the near-cache to stay within its size")
+                .register(meterRegistry);
+        this.invalidationCounter = Counter.builder("movies.cache.invalidations")
+                .description("Movies dropped from the near-cache because they changed")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * Retrieves a movie from the first cache level holding it, or loads and caches it.
+     * @param movieId the ID of the movie
+     * @param loader loads the movie from the database, throwing if it does not exist
+     * @return a copy of the movie
+     */
+    @Override
+    public Movie get(Long movieId, Function<Long, Movie> loader) {
+        boolean useLocal = listenerContainer.isListening();
+        long loadGeneration;
+        synchronized (local) {
+            Movie cached = useLocal ? local.get(movieId) : null;
+            if (cached != null) {
+                localHitCounter.increment();
+                return copy(cached);
+            }
+            loadGeneration = generation;
+        }
+
+        Movie shared = readShared(movieId);
+        if (shared != null) {
+            redisHitCounter.increment();
+            if (useLocal) {
+                putLocal(shared, loadGeneration);
+            }
+            return copy(shared);
+        }
+
+        missCounter.increment();
+        Movie movie = loader.apply(movieId);
+        if (useLocal && putLocal(copy(movie), loadGeneration)) {
+            writeShared(movie, loadGeneration);
+        }
+        return movie;
+    }
+
+    /**
+     * Retrieves the version of a movie held in this node's near-cache, without asking Redis or the database.
+     * @param movieId the ID of the movie
+     * @return the version of the cached movie, or empty if it is not cached on this node
+     */
+    @Override
+    public Optional<Long> getVersion(Long movieId) {
+        if (!listenerContainer.isListening()) {
+            return Optional.empty();
+        }
+        synchronized (local) {
+            Movie cached = local.get(movieId);
+            return cached == null ? Optional.empty() : Optional.ofNullable(cached.getVersion());
+        }
+    }
+
+    /**
+     * Drops a movie from both levels on this node and tells the other nodes to drop their local copy.
+     * @param movieId the ID of the movie
+     */
+    @Override
+    public void invalidate(Long movieId) {
+        evictLocal(movieId);
+        try {
+            deleteShared(movieId);
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + ":" + movieId);
+        } catch (RuntimeException e) {
+            log.warn("Could not invalidate cached movie ID {} in Redis", movieId, e);
+        }
+    }
+
+    /**
+     * Drops the local copy of a movie changed on another node, and the shared copy
+     * in case this node wrote an old one before the change reached it.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator < 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        Long movieId;
+        try {
+            movieId = Long.valueOf(body.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed movie invalidation: {}", body);
+            return;
+        }
+        evictLocal(movieId);
+        try {
+            deleteShared(movieId);
+        } catch (RuntimeException e) {
+            log.warn("Could not drop cached movie ID {} from Redis", movieId, e);
+        }
+    }
+
+    /**
+     * Subscribes to the invalidation channel, retrying until Redis is reachable.
+     */
+    @Scheduled(fixedDelayString = "${movies.cache.subscribe-retry-ms:30000}")
+    public void subscribe() {
+        if (listenerContainer.isRunning()) {
+            return;
+        }
+        try {
+            listenerContainer.start();
+            log.info("Subscribed to movie invalidations on {}", INVALIDATION_CHANNEL);
+        } catch (RuntimeException e) {
+            log.warn("Could not subscribe to movie invalidations, near-cache stays disabled: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieSaved(MovieSavedEvent event) {
+        invalidate(event.getMovieId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        invalidate(event.getMovieId());
+    }
+
+    public int getLocalSize() {
+        synchronized (local) {
+            return local.size();
+        }
+    }
+
+    private void evictLocal(Long movieId) {
+        synchronized (local) {
+            local.remove(movieId);
+            generation++;
+        }
+        invalidationCounter.increment();
+    }
+
+    private boolean isCurrent(long loadGeneration) {
+        synchronized (local) {
+            return generation == loadGeneration;
+        }
+    }
+
+    private void deleteShared(Long movieId) {
+        synchronized (sharedWrites) {
+            redisTemplate.delete(KEY_PREFIX + movieId);
+        }
+    }
+
+    /**
+     * Caches the movie unless an invalidation happened since the load started.
+     * @return whether the movie was cached
+     */
+    private boolean putLocal(Movie movie, long loadGeneration) {
+        synchronized (local) {
+            if (generation != loadGeneration) {
+                return false;
+            }
+            local.put(movie.getId(), movie);
+            return true;
+        }
+    }
+
+    private Movie readShared(Long movieId) {
+        try {
+            String json = redisTemplate.opsForValue().get(KEY_PREFIX + movieId);
+            return json == null ? null : objectMapper.readValue(json, Movie.class);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Could not read cached movie ID {} from Redis", movieId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the movie to Redis unless an invalidation happened since the load started.
+     */
+    private void writeShared(Movie movie, long loadGeneration) {
+        try {
+            String json = objectMapper.writeValueAsString(movie);
+            synchronized (sharedWrites) {
+                if (isCurrent(loadGeneration)) {
+                    redisTemplate.opsForValue().set(KEY_PREFIX + movie.getId(), json, ttl);
+                }
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Could not cache movie ID {} in Redis", movie.getId(), e);
+        }
+    }
+
+    private static Movie copy(Movie movie) {
+        Movie copy = new Movie(movie.getId(), movie.getTitle(), movie.getGenre());
+        copy.setReleaseYear(movie.getReleaseYear());
+        copy.setVersion(movie.getVersion());
+        return copy;
+    }
+}
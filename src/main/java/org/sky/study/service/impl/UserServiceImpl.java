@@ -1,30 +1,46 @@
 package org.sky.study.service.impl;
 
+import org.sky.study.dto.DeletionJob;
 import org.sky.study.model.jpa.User;
 import org.sky.study.repository.jpa.UserRepository;
+import org.sky.study.security.UserPrincipal;
+import org.sky.study.service.EntityDeletionService;
 import org.sky.study.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Service
 public class UserServiceImpl implements UserDetailsService, UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final EntityDeletionService entityDeletionService;
+    private final JwtServiceImpl jwtService;
 
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           EntityDeletionService entityDeletionService, JwtServiceImpl jwtService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.entityDeletionService = entityDeletionService;
+        this.jwtService = jwtService;
     }
 
     /**
@@ -39,12 +55,11 @@ public class UserServiceImpl implements UserDetailsService, UserService {
         logger.info("Attempting to load user : {}", username);
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User with " + username + " not found"));
-        // Convert User entity to Spring Security UserDetails
-        return  org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .roles(user.getRoles().split(","))
-                .build();
+        // Convert User entity to Spring Security UserDetails, keeping the ID for rating lookups
+        List<GrantedAuthority> authorities = Arrays.stream(user.getRoles().split(","))
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.trim()))
+                .collect(Collectors.toList());
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getPassword(), authorities);
     }
 
     /**
@@ -63,13 +78,15 @@ public class UserServiceImpl implements UserDetailsService, UserService {
 
     /**
      * Deletes a user by their ID, ensuring that the current user is authorized to perform this action.
+     * The user's tokens are revoked, since authentication no longer loads the user.
      *
      * @param id the ID of the user to be deleted
+     * @return the deletion job, still running if the user has many ratings
      * @throws UsernameNotFoundException if the user with the given ID is not found
      * @throws AccessDeniedException if the current user is not authorized to delete the specified user
      */
     @Override
-    public void deleteUserById(Long id) {
+    public DeletionJob deleteUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User with Id: " + id + " is not found"));
         var authentication = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
@@ -79,13 +96,29 @@ public class UserServiceImpl implements UserDetailsService, UserService {
 
         if (currentUsername.equals(user.getUsername()) || isAdmin) {
             logger.info("Deleting user with name: {}", user.getUsername());
-            userRepository.deleteById(id);
+            jwtService.revokeUserTokens(id);
+            return entityDeletionService.deleteUser(id);
         } else {
             logger.warn("Unauthorized delete attempt by user: {}", currentUsername);
             throw new AccessDeniedException("Not authorized to delete this user");
         }
     }
 
+    /**
+     * Revokes every token issued to a user so far, e.g. after their roles were changed.
+     *
+     * @param id the ID of the user
+     * @throws UsernameNotFoundException if the user with the given ID is not found
+     */
+    @Override
+    public void revokeUserTokens(Long id) {
+        if (!userRepository.existsById(id)) {
+            throw new UsernameNotFoundException("User with Id: " + id + " is not found");
+        }
+        logger.info("Revoking tokens of user with Id: {}", id);
+        jwtService.revokeUserTokens(id);
+    }
+
     /**
      * Retrieves a user by their ID.
      *
@@ -110,4 +143,22 @@ public class UserServiceImpl implements UserDetailsService, UserService {
     public boolean isUserExists(String username) {
         return userRepository.findByUsername(username).isPresent();
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves the ID of the authenticated user. Taken from the principal when
+     * it carries the ID, otherwise looked up by username.
+     *
+     * @return the ID of the authenticated user
+     * @throws UsernameNotFoundException if the authenticated user no longer exists
+     */
+    @Override
+    public Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null) {
+            return principal.getId();
+        }
+        String username = authentication.getName();
+        return userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User with " + username + " not found"));
+    }
+}
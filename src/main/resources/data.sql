@@ -15,16 +15,28 @@ INSERT INTO MOVIES (TITLE, GENRE, RELEASE_YEAR) VALUES ('The Good, the Bad and t
 INSERT INTO MOVIES (TITLE, GENRE, RELEASE_YEAR) VALUES ('Fight Club', 'Drama', 1999);
 
 -- Insert Ratings (One user rating all 10 movies)
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (9, 1, 1);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (8, 2, 1);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (10, 1, 2);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (9, 2, 2);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (8, 1, 3);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (7, 2, 3);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (9, 1, 4);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (7, 1, 5);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (10, 1, 6);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (8, 1, 7);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (9, 1, 8);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (10, 1, 9);
-INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (9, 1, 10);
\ No newline at end of file
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (9, 1, 1) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (8, 2, 1) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (10, 1, 2) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (9, 2, 2) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (8, 1, 3) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (7, 2, 3) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (9, 1, 4) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (7, 1, 5) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (10, 1, 6) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (8, 1, 7) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (9, 1, 8) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (10, 1, 9) ON CONFLICT DO NOTHING;
+INSERT INTO RATINGS (SCORE, USER_ID, MOVIE_ID) VALUES (9, 1, 10) ON CONFLICT DO NOTHING;
+
+-- Aggregates of the ratings above, for movies that have none yet
+INSERT INTO MOVIE_RATING_STATS (MOVIE_ID, RATING_SUM, RATING_COUNT, AVERAGE_RATING)
+SELECT MOVIE_ID, SUM(SCORE), COUNT(*), CAST(AVG(SCORE) AS DOUBLE PRECISION) FROM RATINGS GROUP BY MOVIE_ID
+ON CONFLICT DO NOTHING;
+
+-- Score counts of the ratings above, for movies that have none yet
+INSERT INTO MOVIE_SCORE_COUNTS (MOVIE_ID, SCORE, RATING_COUNT)
+SELECT R.MOVIE_ID, R.SCORE, COUNT(*) FROM RATINGS R
+WHERE NOT EXISTS (SELECT 1 FROM MOVIE_SCORE_COUNTS C WHERE C.MOVIE_ID = R.MOVIE_ID)
+GROUP BY R.MOVIE_ID, R.SCORE
+ON CONFLICT DO NOTHING;
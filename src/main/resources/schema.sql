@@ -0,0 +1,8 @@
+CREATE SEQUENCE IF NOT EXISTS change_events_position_seq;
+
+CREATE TABLE IF NOT EXISTS movie_score_counts (
+    movie_id BIGINT NOT NULL,
+    score INTEGER NOT NULL,
+    rating_count BIGINT NOT NULL,
+    PRIMARY KEY (movie_id, score)
+);
@@ -0,0 +1,59 @@
+package org.sky.study.integration.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AdminControllerIntegrationTest extends SpringBootApplicationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void admin_rebuilds_leaderboard() throws Exception {
+        mockMvc.perform(post("/admin/leaderboard/rebuild"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser
+    void rebuild_leaderboard_non_admin_forbidden() throws Exception {
+        mockMvc.perform(post("/admin/leaderboard/rebuild"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void admin_rebuilds_rating_stats() throws Exception {
+        mockMvc.perform(post("/admin/ratings/stats/rebuild"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void admin_bulk_ingests_ratings() throws Exception {
+        mockMvc.perform(post("/admin/ratings/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"username\":\"admin\",\"movieId\":8,\"score\":6}\n" +
+                                "{\"username\":\"nobody\",\"movieId\":8,\"score\":6}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2));
+    }
+
+    @Test
+    @WithMockUser
+    void bulk_ingest_non_admin_forbidden() throws Exception {
+        mockMvc.perform(post("/admin/ratings/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}"))
+                .andExpect(status().isForbidden());
+    }
+}
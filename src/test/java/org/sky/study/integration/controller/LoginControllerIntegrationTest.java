@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -58,6 +59,33 @@ class LoginControllerIntegrationTest extends SpringBootApplicationTest {
                 .andExpect(content().string("Logged out successfully"));
     }
 
+    @Test
+    void logoutAll_success_revokesToken() throws Exception {
+        String loginJson = "{\"username\":\"user\",\"password\":\"admin\"}";
+        String token = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(loginJson))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .replaceAll(".*\"token\"\\s*:\\s*\"([^\"]+)\".*", "$1");
+        mockMvc.perform(post("/auth/logout-all")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Logged out everywhere successfully"));
+        mockMvc.perform(get("/users/me/ratings").param("movieIds", "1")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void logoutAll_missing_authorization_header() throws Exception {
+        mockMvc.perform(post("/auth/logout-all"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid Authorization header"));
+    }
+
     @Test
     void logout_missing_authorization_header() throws Exception {
         mockMvc.perform(post("/auth/logout"))
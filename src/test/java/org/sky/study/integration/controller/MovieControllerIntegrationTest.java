@@ -6,7 +6,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -23,6 +27,96 @@ class MovieControllerIntegrationTest extends SpringBootApplicationTest{
         mockMvc.perform(get("/movies")).andExpect(status().isOk());
     }
 
+    @Test
+    void getMovies_cursorMode_linksNextPageWithoutTotal() throws Exception {
+        mockMvc.perform(get("/movies").param("cursor", "").param("size", "2").param("sort", "title"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(jsonPath("$._embedded.movieList", hasSize(2)))
+                .andExpect(jsonPath("$._links.next.href", containsString("cursor=")));
+    }
+
+    @Test
+    void getMovies_cursorMode_includeTotal() throws Exception {
+        mockMvc.perform(get("/movies").param("cursor", "").param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Total-Count"));
+    }
+
+    @Test
+    void getMovies_leanVariant_plainArray() throws Exception {
+        mockMvc.perform(get("/movies").param("size", "2").accept("application/vnd.movies.lean+json"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/vnd.movies.lean+json"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]._links").doesNotExist());
+    }
+
+    @Test
+    void getMovies_invalidCursor_badRequest() throws Exception {
+        mockMvc.perform(get("/movies").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getMovie_matchingETag_notModified() throws Exception {
+        String etag = mockMvc.perform(get("/movies/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/movies/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getMovies_matchingETag_notModified() throws Exception {
+        String etag = mockMvc.perform(get("/movies"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/movies").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getMovies_afterMovieSaved_newETag() throws Exception {
+        String etag = mockMvc.perform(get("/movies"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(post("/movies")
+                        .content("{\"title\":\"Tenet\",\"genre\":\"SyFy\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/movies").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportMovies_streamsOneMoviePerLine() throws Exception {
+        MvcResult result = mockMvc.perform(get("/movies/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(movieService.countMoviesWithFilters(null, null, null), lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void exportMovies_nonAdmin_forbidden() throws Exception {
+        mockMvc.perform(get("/movies/export")).andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser
     void postMovies_nonAdmin_forbidden() throws Exception {
@@ -67,6 +161,55 @@ class MovieControllerIntegrationTest extends SpringBootApplicationTest{
         mockMvc.perform(get("/movies/top-rated")).andExpect(status().isOk());
     }
 
+    @Test
+    void movies_topRated_limited() throws Exception {
+        mockMvc.perform(get("/movies/top-rated").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    void movies_topRated_byGenreAndYearRange() throws Exception {
+        mockMvc.perform(get("/movies/top-rated")
+                        .param("genre", "Crime")
+                        .param("releaseYearFrom", "1970")
+                        .param("releaseYearTo", "1979"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].genre", everyItem(is("Crime"))))
+                .andExpect(jsonPath("$[*].releaseYear", everyItem(allOf(greaterThanOrEqualTo(1970), lessThanOrEqualTo(1979)))));
+    }
+
+    @Test
+    void movies_topRated_invalidYearRange_badRequest() throws Exception {
+        mockMvc.perform(get("/movies/top-rated").param("releaseYearFrom", "2000").param("releaseYearTo", "1990"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void movies_topRated_invalidLimit_badRequest() throws Exception {
+        mockMvc.perform(get("/movies/top-rated").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user")
+    void movies_trending_includesFreshRating() throws Exception {
+        mockMvc.perform(post("/movies/3/ratings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"score\":7}"))
+                .andExpect(status().is2xxSuccessful());
+
+        mockMvc.perform(get("/movies/trending").param("window", "1h"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", hasItem(3)));
+    }
+
+    @Test
+    void movies_trending_invalidWindow_badRequest() throws Exception {
+        mockMvc.perform(get("/movies/trending").param("window", "2h"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser
     void delete_movies_non_Admin_forbidden() throws Exception {
@@ -0,0 +1,91 @@
+package org.sky.study.integration.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sky.study.service.MovieCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements Hibernate prepares per request, so that an
+ * eager association or a per-row lookup sneaking into an endpoint fails the build.
+ * With a mock user the current user ID is resolved by one lookup query.
+ */
+class QueryCountIntegrationTest extends SpringBootApplicationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MovieCacheService movieCacheService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void get_movie_by_id_runs_one_statement_then_hits_cache() throws Exception {
+        movieCacheService.invalidate(1L);
+        assertStatements(1, get("/movies/1"), status().isOk());
+        assertStatements(0, get("/movies/1"), status().isOk());
+    }
+
+    @Test
+    void get_movies_page_runs_select_and_count() throws Exception {
+        assertStatements(2, get("/movies?page=0&size=10"), status().isOk());
+    }
+
+    @Test
+    void get_movies_cursor_page_runs_single_seek() throws Exception {
+        assertStatements(1, get("/movies?cursor=&size=10&sort=title"), status().isOk());
+    }
+
+    @Test
+    void get_histogram_runs_no_statement() throws Exception {
+        assertStatements(0, get("/movies/1/ratings/histogram"), status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "admin")
+    void get_own_rating_does_not_load_user_or_movie() throws Exception {
+        assertStatements(2, get("/movies/3/ratings"), status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "admin")
+    void get_own_scores_for_many_movies_runs_one_query() throws Exception {
+        assertStatements(2, get("/users/me/ratings?movieIds=1,2,3,4,5,6,7,8,9,10"), status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "user")
+    void rate_and_unrate_movie_write_rating_aggregate_and_change_event() throws Exception {
+        assertStatements(4, post("/movies/4/ratings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"score\":6}"), status().isCreated());
+        assertStatements(4, delete("/movies/4/ratings"), status().isNoContent());
+    }
+
+    private void assertStatements(long expected, RequestBuilder request, ResultMatcher resultMatcher) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request).andExpect(resultMatcher);
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL statements prepared by the request");
+    }
+}
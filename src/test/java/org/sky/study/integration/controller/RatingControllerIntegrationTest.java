@@ -22,6 +22,29 @@ class RatingControllerIntegrationTest extends SpringBootApplicationTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void anonymous_user_can_read_histogram() throws Exception {
+        mockMvc.perform(get("/movies/1/ratings/histogram"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.counts.9").isNumber())
+                .andExpect(jsonPath("$.totalCount").isNumber());
+    }
+
+    @Test
+    void histogram_for_nonexisting_movie_not_found() throws Exception {
+        mockMvc.perform(get("/movies/999/ratings/histogram"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "user")
+    void rate_movie_with_score_out_of_range_bad_request() throws Exception {
+        mockMvc.perform(post("/movies/2/ratings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"score\":11}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "user")
     void rate_nonexisting_movie_not_found() throws Exception {
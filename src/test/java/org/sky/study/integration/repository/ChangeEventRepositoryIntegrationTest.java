@@ -0,0 +1,57 @@
+package org.sky.study.integration.repository;
+
+import org.junit.jupiter.api.Test;
+import org.sky.study.integration.controller.SpringBootApplicationTest;
+import org.sky.study.model.jpa.ChangeEvent;
+import org.sky.study.repository.jpa.ChangeEventRepository;
+import org.sky.study.service.ChangeFeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeEventRepositoryIntegrationTest extends SpringBootApplicationTest {
+
+    private static final int EVENTS = 50;
+
+    @Autowired
+    private ChangeEventRepository changeEventRepository;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void assign_positions_follows_insertion_order_within_one_transaction() {
+        List<Long> positions = transactionTemplate.execute(status -> {
+            long lastId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM change_events", Long.class);
+            List<ChangeEvent> events = new ArrayList<>();
+            for (int i = 0; i < EVENTS; i++) {
+                events.add(ChangeEvent.rating(ChangeEvent.Operation.CREATED, 1L, 1L, i % 10 + 1));
+            }
+            changeFeedService.appendAll(events);
+            // scatter the physical row order, so an UPDATE would not visit the rows by ID
+            jdbcTemplate.update("UPDATE change_events SET score = score WHERE id > ? AND id % 2 = 0", lastId);
+
+            changeEventRepository.assignPositions();
+
+            return jdbcTemplate.queryForList("SELECT position FROM change_events WHERE id > ? ORDER BY id",
+                    Long.class, lastId);
+        });
+
+        assertEquals(EVENTS, positions.size());
+        for (int i = 1; i < positions.size(); i++) {
+            assertTrue(positions.get(i) > positions.get(i - 1),
+                    "position " + positions.get(i) + " follows " + positions.get(i - 1));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.sky.study.unit.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.sky.study.model.projection.WrittenRating;
+import org.sky.study.repository.jpa.RatingRepositoryCustomImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RatingRepositoryCustomImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Captor
+    private ArgumentCaptor<PreparedStatementSetter> setterCaptor;
+
+    @InjectMocks
+    private RatingRepositoryCustomImpl ratingRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void upsertRatings_bindsOneArrayPerColumn() throws Exception {
+        Instant ratedAt = Instant.parse("2024-05-01T10:00:00Z");
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class),
+                ArgumentMatchers.<RowMapper<WrittenRating>>any()))
+                .thenReturn(List.of());
+
+        ratingRepository.upsertRatings(new Long[]{7L, 8L}, new Long[]{1L, 2L}, new Integer[]{5, 9},
+                new Instant[]{ratedAt, ratedAt});
+
+        verify(jdbcTemplate).query(contains("ON CONFLICT (user_id, movie_id) DO UPDATE"), setterCaptor.capture(),
+                ArgumentMatchers.<RowMapper<WrittenRating>>any());
+        Connection connection = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(ps.getConnection()).thenReturn(connection);
+        setterCaptor.getValue().setValues(ps);
+        verify(connection).createArrayOf("bigint", new Long[]{7L, 8L});
+        verify(connection).createArrayOf("bigint", new Long[]{1L, 2L});
+        verify(connection).createArrayOf("integer", new Integer[]{5, 9});
+        verify(connection).createArrayOf("timestamptz", new Timestamp[]{Timestamp.from(ratedAt), Timestamp.from(ratedAt)});
+    }
+
+    @Test
+    void upsertRatings_mapsReturnedRows() {
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class),
+                ArgumentMatchers.<RowMapper<WrittenRating>>any()))
+                .thenAnswer(invocation -> {
+                    RowMapper<?> mapper = invocation.getArgument(2);
+                    List<Object> written = new ArrayList<>();
+                    written.add(mapper.mapRow(row(1L, 7L, 5, 9), 0));
+                    written.add(mapper.mapRow(row(2L, 7L, 6, null), 1));
+                    return written;
+                });
+
+        List<WrittenRating> written = ratingRepository.upsertRatings(new Long[]{7L, 7L}, new Long[]{1L, 2L},
+                new Integer[]{5, 6}, new Instant[]{Instant.now(), Instant.now()});
+
+        assertEquals(2, written.size());
+        assertEquals(1L, written.get(0).getMovieId());
+        assertEquals(7L, written.get(0).getUserId());
+        assertEquals(5, written.get(0).getScore());
+        assertEquals(9, written.get(0).getPreviousScore());
+        assertNull(written.get(1).getPreviousScore());
+    }
+
+    private static ResultSet row(Long movieId, Long userId, Integer score, Integer previousScore) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(movieId);
+        when(rs.getLong(2)).thenReturn(userId);
+        when(rs.getInt(3)).thenReturn(score);
+        when(rs.getObject(4)).thenReturn(previousScore);
+        return rs;
+    }
+}
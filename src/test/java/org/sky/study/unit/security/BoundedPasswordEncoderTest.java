@@ -0,0 +1,111 @@
+package org.sky.study.unit.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.sky.study.exception.ServiceUnavailableException;
+import org.sky.study.exception.TooManyRequestsException;
+import org.sky.study.security.BoundedPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTest {
+
+    @Mock
+    private PasswordEncoder delegate;
+
+    private MeterRegistry meterRegistry;
+    private BoundedPasswordEncoder passwordEncoder;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordEncoder.destroy();
+    }
+
+    @Test
+    void encodeAndMatches_runOnHashingThread() {
+        passwordEncoder = new BoundedPasswordEncoder(delegate, 1, 1, 1000, meterRegistry);
+        when(delegate.encode("secret")).thenAnswer(invocation -> Thread.currentThread().getName());
+        when(delegate.matches("secret", "hash")).thenReturn(true);
+
+        assertEquals("password-hasher-1", passwordEncoder.encode("secret"));
+        assertTrue(passwordEncoder.matches("secret", "hash"));
+        assertEquals(1, meterRegistry.get("password.hashing.duration").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("password.hashing.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void encode_queueFull_throwsTooManyRequests() throws Exception {
+        passwordEncoder = new BoundedPasswordEncoder(delegate, 1, 1, 10_000, meterRegistry);
+        when(delegate.encode("slow")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        when(delegate.encode("queued")).thenReturn("hash");
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("slow"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("queued"));
+        waitForQueueSize(1);
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> passwordEncoder.encode("rejected"));
+        assertEquals(1, ex.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").tag("reason", "queue-full").counter().count());
+
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+        verify(delegate, never()).encode("rejected");
+    }
+
+    @Test
+    void matches_waitedTooLong_throwsServiceUnavailable() throws Exception {
+        passwordEncoder = new BoundedPasswordEncoder(delegate, 1, 1, 200, meterRegistry);
+        when(delegate.matches("slow", "hash")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> passwordEncoder.matches("slow", "hash"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> stale = CompletableFuture.supplyAsync(() -> passwordEncoder.matches("stale", "hash"));
+        waitForQueueSize(1);
+        Thread.sleep(300);
+        release.countDown();
+
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        Exception ex = assertThrows(Exception.class, () -> stale.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceUnavailableException.class, ex.getCause());
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").tag("reason", "queue-timeout").counter().count());
+        verify(delegate, never()).matches("stale", "hash");
+    }
+
+    private void waitForQueueSize(int size) throws InterruptedException {
+        for (int i = 0; i < 500 && meterRegistry.get("password.hashing.queue.size").gauge().value() < size; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(size, meterRegistry.get("password.hashing.queue.size").gauge().value());
+    }
+}
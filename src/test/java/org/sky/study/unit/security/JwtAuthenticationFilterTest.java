@@ -6,7 +6,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.sky.study.security.JwtAuthenticationFilter;
+import org.sky.study.security.UserPrincipal;
 import org.sky.study.service.impl.JwtServiceImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -18,8 +21,11 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class JwtAuthenticationFilterTest {
@@ -39,13 +45,15 @@ class JwtAuthenticationFilterTest {
     @Mock
     private UserDetails userDetails;
 
-    @InjectMocks
     private TestableJwtAuthenticationFilter filter;
+    private TestableJwtAuthenticationFilter statelessFilter;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         SecurityContextHolder.clearContext();
+        filter = new TestableJwtAuthenticationFilter(jwtService, userDetailsService, false);
+        statelessFilter = new TestableJwtAuthenticationFilter(jwtService, userDetailsService, true);
     }
 
     @Test
@@ -57,12 +65,29 @@ class JwtAuthenticationFilterTest {
         when(userDetails.getUsername()).thenReturn("user1");
         when(userDetails.getPassword()).thenReturn("pw");
         when(userDetails.getAuthorities()).thenReturn(java.util.Collections.emptyList());
-        when(jwtService.isBlacklisted("validtoken")).thenReturn(false);
+        when(jwtService.isRevoked("validtoken", claims)).thenReturn(false);
 
         filter.callDoFilterInternal(request, response, filterChain);
 
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
-        assertEquals("user1", SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        assertEquals("user1", SecurityContextHolder.getContext().getAuthentication().getName());
+        assertSame(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_userIdMismatch_doesNotAuthenticate() throws Exception {
+        UserPrincipal principal = new UserPrincipal(2L, "user1", "pw", Collections.emptyList());
+        when(request.getHeader("Authorization")).thenReturn("Bearer stale");
+        when(jwtService.getClaims("Bearer stale")).thenReturn(claims);
+        when(jwtService.getUserId(claims)).thenReturn(1L);
+        when(claims.getSubject()).thenReturn("user1");
+        when(userDetailsService.loadUserByUsername("user1")).thenReturn(principal);
+        when(jwtService.isRevoked("stale", claims)).thenReturn(false);
+
+        filter.callDoFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain).doFilter(request, response);
     }
 
@@ -91,18 +116,69 @@ class JwtAuthenticationFilterTest {
         when(request.getHeader("Authorization")).thenReturn("Bearer blacklistedtoken");
         when(jwtService.getClaims("Bearer blacklistedtoken")).thenReturn(claims);
         when(claims.getSubject()).thenReturn("user1");
-        when(userDetailsService.loadUserByUsername("user1")).thenReturn(userDetails);
-        when(jwtService.isBlacklisted("blacklistedtoken")).thenReturn(true);
+        when(jwtService.isRevoked("blacklistedtoken", claims)).thenReturn(true);
 
         filter.callDoFilterInternal(request, response, filterChain);
 
         assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_stateless_authenticatesFromClaims() throws Exception {
+        UserPrincipal principal = new UserPrincipal(7L, "user1", "",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        when(request.getHeader("Authorization")).thenReturn("Bearer validtoken");
+        when(jwtService.getClaims("Bearer validtoken")).thenReturn(claims);
+        when(claims.getSubject()).thenReturn("user1");
+        when(jwtService.isRevoked("validtoken", claims)).thenReturn(false);
+        when(jwtService.getPrincipal(claims)).thenReturn(principal);
+
+        statelessFilter.callDoFilterInternal(request, response, filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertSame(principal, authentication.getPrincipal());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), List.copyOf(authentication.getAuthorities()));
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_statelessWithoutUserId_doesNotAuthenticate() throws Exception {
+        UserPrincipal principal = new UserPrincipal(null, "user1", "",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        when(request.getHeader("Authorization")).thenReturn("Bearer legacytoken");
+        when(jwtService.getClaims("Bearer legacytoken")).thenReturn(claims);
+        when(claims.getSubject()).thenReturn("user1");
+        when(jwtService.isRevoked("legacytoken", claims)).thenReturn(false);
+        when(jwtService.getPrincipal(claims)).thenReturn(principal);
+
+        statelessFilter.callDoFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_statelessRevoked_doesNotAuthenticate() throws Exception {
+        when(request.getHeader("Authorization")).thenReturn("Bearer revoked");
+        when(jwtService.getClaims("Bearer revoked")).thenReturn(claims);
+        when(claims.getSubject()).thenReturn("user1");
+        when(jwtService.isRevoked("revoked", claims)).thenReturn(true);
+
+        statelessFilter.callDoFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(jwtService, never()).getPrincipal(any());
         verify(filterChain).doFilter(request, response);
     }
 
     static class TestableJwtAuthenticationFilter extends JwtAuthenticationFilter {
-        public TestableJwtAuthenticationFilter(JwtServiceImpl jwtService, UserDetailsService userDetailsService) {
-            super(jwtService, userDetailsService);
+        public TestableJwtAuthenticationFilter(JwtServiceImpl jwtService, UserDetailsService userDetailsService,
+                                               boolean stateless) {
+            super(jwtService, userDetailsService, stateless);
         }
         public void callDoFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws ServletException, IOException {
             super.doFilterInternal(req, res, chain);
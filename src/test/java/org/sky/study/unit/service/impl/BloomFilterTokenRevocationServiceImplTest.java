@@ -0,0 +1,135 @@
+package org.sky.study.unit.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.sky.study.service.impl.BloomFilterTokenRevocationServiceImpl;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BloomFilterTokenRevocationServiceImplTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private MeterRegistry meterRegistry;
+    private BloomFilterTokenRevocationServiceImpl revocationService;
+    private long expiresAt;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(listenerContainer.isRunning()).thenReturn(true);
+        when(listenerContainer.isListening()).thenReturn(true);
+        meterRegistry = new SimpleMeterRegistry();
+        revocationService = new BloomFilterTokenRevocationServiceImpl(redisTemplate, listenerContainer,
+                meterRegistry, 5, 1000, 0.01);
+        expiresAt = System.currentTimeMillis() + 600_000;
+    }
+
+    @Test
+    void synchronize_loadsRevocationsFromRedis() {
+        scan("blacklist:*", "blacklist:revoked", "blacklist:legacy");
+        scan("revoked-before:*", "revoked-before:42");
+        when(valueOperations.multiGet(List.of("blacklist:revoked", "blacklist:legacy")))
+                .thenReturn(List.of(Long.toString(expiresAt), "true"));
+        when(valueOperations.multiGet(List.of("revoked-before:42"))).thenReturn(List.of("1000"));
+
+        assertFalse(revocationService.isSynchronized());
+        revocationService.synchronize();
+
+        assertTrue(revocationService.isSynchronized());
+        assertTrue(revocationService.mightBeBlacklisted("revoked", expiresAt));
+        assertTrue(revocationService.mightBeBlacklisted("legacy", expiresAt));
+        assertFalse(revocationService.mightBeBlacklisted("valid", expiresAt));
+        assertEquals(Optional.of(1000L), revocationService.getRevokedBefore(42L));
+        assertEquals(Optional.empty(), revocationService.getRevokedBefore(7L));
+        assertEquals(1.0, meterRegistry.get("jwt.revocation.filter.checks").tag("result", "negative").counter().count());
+    }
+
+    @Test
+    void synchronize_redisDown_staysUnsynchronized() {
+        when(redisTemplate.scan(any(ScanOptions.class))).thenThrow(new RedisConnectionFailureException("down"));
+
+        revocationService.synchronize();
+
+        assertFalse(revocationService.isSynchronized());
+    }
+
+    @Test
+    void isSynchronized_subscriptionLost_isFalse() {
+        scan("blacklist:*");
+        scan("revoked-before:*");
+        revocationService.synchronize();
+
+        when(listenerContainer.isListening()).thenReturn(false);
+
+        assertFalse(revocationService.isSynchronized());
+    }
+
+    @Test
+    void tokenBlacklisted_recordsLocallyAndPublishes() {
+        revocationService.tokenBlacklisted("revoked", expiresAt);
+
+        assertTrue(revocationService.mightBeBlacklisted("revoked", expiresAt));
+        verify(redisTemplate).convertAndSend("tokens:revoked", "blacklist:revoked " + expiresAt);
+    }
+
+    @Test
+    void onMessage_userRevocation_keepsLatestTime() {
+        revocationService.userTokensRevoked(42L, 2000L);
+
+        revocationService.onMessage(message("revoked-before:42 1000"), null);
+        assertEquals(Optional.of(2000L), revocationService.getRevokedBefore(42L));
+        revocationService.onMessage(message("revoked-before:42 3000"), null);
+        assertEquals(Optional.of(3000L), revocationService.getRevokedBefore(42L));
+    }
+
+    @Test
+    void expire_dropsRevocationsOfExpiredTokens() {
+        revocationService.onMessage(message("revoked-before:42 1000"), null);
+        revocationService.onMessage(message("blacklist:old 1000"), null);
+
+        revocationService.expire();
+
+        assertEquals(Optional.empty(), revocationService.getRevokedBefore(42L));
+        assertFalse(revocationService.mightBeBlacklisted("old", 1000));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void scan(String pattern, String... keys) {
+        Cursor<String> cursor = mock(Cursor.class);
+        Iterator<String> iterator = Arrays.asList(keys).iterator();
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        when(redisTemplate.scan(argThat(options -> options != null && pattern.equals(options.getPattern()))))
+                .thenReturn(cursor);
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("tokens:revoked".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
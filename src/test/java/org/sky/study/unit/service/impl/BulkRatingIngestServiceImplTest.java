@@ -0,0 +1,193 @@
+package org.sky.study.unit.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.sky.study.dto.BulkIngestError;
+import org.sky.study.dto.BulkIngestResult;
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.model.projection.UserIdentity;
+import org.sky.study.model.projection.WrittenRating;
+import org.sky.study.repository.jpa.MovieRepository;
+import org.sky.study.repository.jpa.RatingRepository;
+import org.sky.study.repository.jpa.UserRepository;
+import org.sky.study.service.ChangeFeedService;
+import org.sky.study.service.RatingStatsService;
+import org.sky.study.service.impl.BulkRatingIngestServiceImpl;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkRatingIngestServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private MovieRepository movieRepository;
+    @Mock
+    private RatingStatsService ratingStatsService;
+    @Mock
+    private ChangeFeedService changeFeedService;
+    @Mock
+    private RatingRepository ratingRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+    @Captor
+    private ArgumentCaptor<Long[]> userIdsCaptor;
+    @Captor
+    private ArgumentCaptor<Long[]> movieIdsCaptor;
+    @Captor
+    private ArgumentCaptor<Integer[]> scoresCaptor;
+    @Captor
+    private ArgumentCaptor<List<RatingChangedEvent>> changesCaptor;
+
+    @InjectMocks
+    private BulkRatingIngestServiceImpl ingestService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        UserIdentity user = identity(2L, "user");
+        when(userRepository.findIdentitiesByUsernameIn(any())).thenReturn(List.of(user));
+        when(movieRepository.findExistingIds(any())).thenReturn(List.of(1L, 2L));
+    }
+
+    @Test
+    void ingest_upsertsRatingsInOneStatement() throws Exception {
+        stubWrittenRows(new Object[]{1L, 2L, 5, 9}, new Object[]{2L, 2L, 7, null});
+
+        BulkIngestResult result = ingestService.ingest(body(
+                "{\"username\":\"user\",\"movieId\":1,\"score\":5}",
+                "{\"username\":\"user\",\"movieId\":2,\"score\":7}"));
+
+        assertEquals(2, result.getReceived());
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(0, result.getFailed());
+        verify(ratingRepository).upsertRatings(userIdsCaptor.capture(), movieIdsCaptor.capture(), scoresCaptor.capture(),
+                any());
+        verify(ratingStatsService).ratingsChanged(changesCaptor.capture());
+        assertEquals(2, changesCaptor.getValue().size());
+        assertEquals(-4, changesCaptor.getValue().get(0).getSumDelta());
+        assertEquals(1, changesCaptor.getValue().get(1).getCountDelta());
+        verify(changeFeedService).appendAll(argThat(events -> events.size() == 2));
+        assertArrayEquals(new Long[]{2L, 2L}, userIdsCaptor.getValue());
+        assertArrayEquals(new Long[]{1L, 2L}, movieIdsCaptor.getValue());
+        assertArrayEquals(new Integer[]{5, 7}, scoresCaptor.getValue());
+    }
+
+    @Test
+    void ingest_ratingStoredConcurrently_usesReturnedOldScore() throws Exception {
+        // the chunk saw no rating, but a concurrent request stored a 6 before the upsert
+        stubWrittenRows(new Object[]{1L, 2L, 8, 6});
+
+        BulkIngestResult result = ingestService.ingest(body("{\"username\":\"user\",\"movieId\":1,\"score\":8}"));
+
+        assertEquals(0, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        verify(ratingStatsService).ratingsChanged(changesCaptor.capture());
+        assertEquals(2, changesCaptor.getValue().get(0).getSumDelta());
+        assertEquals(0, changesCaptor.getValue().get(0).getCountDelta());
+    }
+
+    @Test
+    void ingest_userOrMovieDeletedMeanwhile_reportsRow() throws Exception {
+        stubWrittenRows(new Object[]{1L, 2L, 5, null});
+
+        BulkIngestResult result = ingestService.ingest(body(
+                "{\"username\":\"user\",\"movieId\":1,\"score\":5}",
+                "{\"username\":\"user\",\"movieId\":2,\"score\":7}"));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getFailed());
+        assertEquals(2L, result.getErrors().get(0).getLine());
+    }
+
+    @Test
+    void ingest_reportsInvalidRowsWithLineNumbers() throws Exception {
+        BulkIngestResult result = ingestService.ingest(body(
+                "not json",
+                "{\"username\":\"ghost\",\"movieId\":1,\"score\":5}",
+                "{\"username\":\"user\",\"movieId\":99,\"score\":5}",
+                "{\"username\":\"user\",\"movieId\":1,\"score\":11}",
+                "{\"username\":\"user\",\"movieId\":1}"));
+
+        assertEquals(5, result.getReceived());
+        assertEquals(5, result.getFailed());
+        assertEquals(List.of(1L, 4L, 5L, 2L, 3L),
+                result.getErrors().stream().map(BulkIngestError::getLine).toList());
+        verifyNoInteractions(ratingRepository, ratingStatsService);
+    }
+
+    @Test
+    void ingest_duplicateRowsInChunk_lastScoreWins() throws Exception {
+        stubWrittenRows(new Object[]{1L, 2L, 8, null});
+
+        BulkIngestResult result = ingestService.ingest(body(
+                "{\"username\":\"user\",\"movieId\":1,\"score\":5}",
+                "{\"username\":\"user\",\"movieId\":1,\"score\":8}"));
+
+        assertEquals(2, result.getReceived());
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getSuperseded());
+        assertEquals(0, result.getFailed());
+        verify(ratingRepository).upsertRatings(any(), any(), scoresCaptor.capture(), any());
+        assertArrayEquals(new Integer[]{8}, scoresCaptor.getValue());
+    }
+
+    @Test
+    void ingest_failingChunk_reportsEveryRow() throws Exception {
+        when(ratingRepository.upsertRatings(any(), any(), any(), any())).thenThrow(new IllegalStateException("boom"));
+
+        BulkIngestResult result = ingestService.ingest(body(
+                "{\"username\":\"user\",\"movieId\":1,\"score\":5}",
+                "{\"username\":\"user\",\"movieId\":2,\"score\":6}"));
+
+        assertEquals(2, result.getFailed());
+        assertEquals(0, result.getInserted());
+    }
+
+    private static ByteArrayInputStream body(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UserIdentity identity(Long id, String username) {
+        UserIdentity identity = mock(UserIdentity.class);
+        when(identity.getId()).thenReturn(id);
+        when(identity.getUsername()).thenReturn(username);
+        return identity;
+    }
+
+    /**
+     * Answers the upsert with the given (movie_id, user_id, score, previous_score) rows.
+     */
+    private void stubWrittenRows(Object[]... rows) {
+        List<WrittenRating> written = new ArrayList<>();
+        for (Object[] row : rows) {
+            written.add(writtenRating(row));
+        }
+        when(ratingRepository.upsertRatings(any(), any(), any(), any())).thenReturn(written);
+    }
+
+    private static WrittenRating writtenRating(Object[] row) {
+        WrittenRating rating = mock(WrittenRating.class);
+        when(rating.getMovieId()).thenReturn((Long) row[0]);
+        when(rating.getUserId()).thenReturn((Long) row[1]);
+        when(rating.getScore()).thenReturn((Integer) row[2]);
+        when(rating.getPreviousScore()).thenReturn((Integer) row[3]);
+        return rating;
+    }
+}
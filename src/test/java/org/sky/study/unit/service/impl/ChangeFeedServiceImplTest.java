@@ -0,0 +1,151 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.sky.study.dto.ChangeFeedPage;
+import org.sky.study.model.jpa.ChangeConsumer;
+import org.sky.study.model.jpa.ChangeEvent;
+import org.sky.study.repository.jpa.ChangeConsumerRepository;
+import org.sky.study.repository.jpa.ChangeEventRepository;
+import org.sky.study.service.impl.ChangeFeedServiceImpl;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChangeFeedServiceImplTest {
+
+    @Mock
+    private ChangeEventRepository changeEventRepository;
+    @Mock
+    private ChangeConsumerRepository changeConsumerRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private ChangeFeedServiceImpl changeFeedService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        changeFeedService = new ChangeFeedServiceImpl(changeEventRepository, changeConsumerRepository,
+                jdbcTemplate, transactionTemplate, 168, 2);
+    }
+
+    @Test
+    void getChanges_sequencesBeforeReadingAndReturnsNextCursor() {
+        when(changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(10L, Limit.of(3)))
+                .thenReturn(List.of(event(11L), event(12L), event(13L)));
+
+        ChangeFeedPage page = changeFeedService.getChanges(10L, 2, null);
+
+        assertEquals(2, page.getChanges().size());
+        assertEquals(12L, page.getNext());
+        assertTrue(page.isHasMore());
+        InOrder inOrder = inOrder(changeEventRepository);
+        inOrder.verify(changeEventRepository).lockSequencer(anyLong());
+        inOrder.verify(changeEventRepository).assignPositions();
+        inOrder.verify(changeEventRepository).findByPositionGreaterThanOrderByPositionAsc(10L, Limit.of(3));
+        verifyNoInteractions(changeConsumerRepository);
+    }
+
+    @Test
+    void getChanges_empty_keepsCursor() {
+        when(changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(eq(42L), any())).thenReturn(List.of());
+
+        ChangeFeedPage page = changeFeedService.getChanges(42L, null, null);
+
+        assertTrue(page.getChanges().isEmpty());
+        assertEquals(42L, page.getNext());
+        assertFalse(page.isHasMore());
+        verify(changeEventRepository).findByPositionGreaterThanOrderByPositionAsc(42L, Limit.of(ChangeFeedServiceImpl.DEFAULT_LIMIT + 1));
+    }
+
+    @Test
+    void getChanges_consumerWithoutCursor_resumesFromStoredPosition() {
+        ChangeConsumer consumer = new ChangeConsumer("search-indexer", 7L);
+        when(changeConsumerRepository.findById("search-indexer")).thenReturn(Optional.of(consumer));
+        when(changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(eq(7L), any())).thenReturn(List.of(event(8L)));
+
+        ChangeFeedPage page = changeFeedService.getChanges(null, 10, "search-indexer");
+
+        assertEquals(8L, page.getNext());
+        assertEquals(7L, consumer.getPosition());
+        verify(changeConsumerRepository, never()).save(any());
+    }
+
+    @Test
+    void getChanges_consumerWithCursor_acknowledgesCursor() {
+        ChangeConsumer consumer = new ChangeConsumer("search-indexer", 7L);
+        when(changeConsumerRepository.findById("search-indexer")).thenReturn(Optional.of(consumer));
+        when(changeConsumerRepository.findById("audit")).thenReturn(Optional.empty());
+        when(changeEventRepository.findByPositionGreaterThanOrderByPositionAsc(anyLong(), any())).thenReturn(List.of());
+
+        changeFeedService.getChanges(20L, 10, "search-indexer");
+        changeFeedService.getChanges(null, 10, "audit");
+
+        assertEquals(20L, consumer.getPosition());
+        verify(changeConsumerRepository).save(argThat(saved -> "audit".equals(saved.getName()) && saved.getPosition() == 0L));
+    }
+
+    @Test
+    void getChanges_invalidInput_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> changeFeedService.getChanges(0L, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> changeFeedService.getChanges(0L, ChangeFeedServiceImpl.MAX_LIMIT + 1, null));
+        assertThrows(IllegalArgumentException.class, () -> changeFeedService.getChanges(-1L, 10, null));
+        assertThrows(IllegalArgumentException.class, () -> changeFeedService.getChanges(0L, 10, " "));
+        verifyNoInteractions(changeEventRepository, changeConsumerRepository);
+    }
+
+    @Test
+    void appendAll_writesOneBatch() {
+        changeFeedService.appendAll(List.of(
+                ChangeEvent.rating(ChangeEvent.Operation.CREATED, 1L, 7L, 5),
+                ChangeEvent.movie(ChangeEvent.Operation.DELETED, 2L)));
+        changeFeedService.appendAll(List.of());
+
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO change_events"),
+                argThat((List<Object[]> rows) -> rows.size() == 2
+                        && "RATING".equals(rows.get(0)[0]) && rows.get(1)[3] == null));
+    }
+
+    @Test
+    void trim_deletesConsumedAndExpiredEventsInChunks() {
+        when(changeConsumerRepository.findMinPosition()).thenReturn(100L);
+        when(changeEventRepository.deleteUpToPosition(100L, 2)).thenReturn(2, 2, 1);
+        when(changeEventRepository.deleteOccurredBefore(any(Instant.class), eq(2))).thenReturn(0);
+
+        assertEquals(5, changeFeedService.trim());
+        verify(changeEventRepository, times(3)).deleteUpToPosition(100L, 2);
+        verify(transactionTemplate, times(4)).execute(any());
+    }
+
+    @Test
+    void trim_withoutConsumers_onlyDeletesExpiredEvents() {
+        when(changeConsumerRepository.findMinPosition()).thenReturn(null);
+        when(changeEventRepository.deleteOccurredBefore(any(Instant.class), eq(2))).thenReturn(1);
+
+        assertEquals(1, changeFeedService.trim());
+        verify(changeEventRepository, never()).deleteUpToPosition(anyLong(), anyInt());
+    }
+
+    private static ChangeEvent event(long position) {
+        ChangeEvent event = ChangeEvent.rating(ChangeEvent.Operation.UPDATED, 1L, 7L, 5);
+        event.setPosition(position);
+        return event;
+    }
+}
@@ -0,0 +1,158 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.sky.study.dto.DeletionJob;
+import org.sky.study.event.MovieDeletedEvent;
+import org.sky.study.exception.ResourceNotFoundException;
+import org.sky.study.model.jpa.ChangeEvent;
+import org.sky.study.model.projection.MovieScore;
+import org.sky.study.repository.jpa.MovieRepository;
+import org.sky.study.repository.jpa.RatingRepository;
+import org.sky.study.repository.jpa.UserRepository;
+import org.sky.study.service.ChangeFeedService;
+import org.sky.study.service.RatingStatsService;
+import org.sky.study.service.impl.EntityDeletionServiceImpl;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EntityDeletionServiceImplTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private RatingRepository ratingRepository;
+    @Mock
+    private RatingStatsService ratingStatsService;
+    @Mock
+    private ChangeFeedService changeFeedService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Captor
+    private ArgumentCaptor<List<ChangeEvent>> changeEventsCaptor;
+
+    private EntityDeletionServiceImpl deletionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        deletionService = new EntityDeletionServiceImpl(movieRepository, userRepository, ratingRepository,
+                ratingStatsService, changeFeedService, transactionTemplate, eventPublisher, 2, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deletionService.stop();
+    }
+
+    @Test
+    void deleteMovie_belowThreshold_deletesInChunksAndCompletes() {
+        when(movieRepository.existsById(3L)).thenReturn(true);
+        when(ratingRepository.countByMovieId(3L)).thenReturn(3L);
+        when(ratingStatsService.removeMovieRatings(3L, 2)).thenReturn(2L, 1L);
+
+        DeletionJob job = deletionService.deleteMovie(3L);
+
+        assertEquals(DeletionJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3L, job.getDeletedRatings());
+        verify(ratingStatsService, times(2)).removeMovieRatings(3L, 2);
+        InOrder inOrder = inOrder(ratingStatsService, movieRepository);
+        inOrder.verify(ratingStatsService).movieRemoved(3L);
+        inOrder.verify(movieRepository).deleteMovieRow(3L);
+        verify(movieRepository, never()).deleteById(any());
+        verify(eventPublisher).publishEvent(any(MovieDeletedEvent.class));
+        verify(changeFeedService).append(argThat(event -> event.getEntityType() == ChangeEvent.EntityType.MOVIE
+                && event.getOperation() == ChangeEvent.Operation.DELETED && event.getMovieId() == 3L));
+    }
+
+    @Test
+    void deleteMovie_notFound() {
+        when(movieRepository.existsById(100L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> deletionService.deleteMovie(100L));
+        verifyNoInteractions(ratingStatsService, transactionTemplate);
+        verify(movieRepository, never()).deleteMovieRow(any());
+    }
+
+    @Test
+    void deleteUser_appendsDeletedRatingPerRemovedRow() {
+        MovieScore score = mock(MovieScore.class);
+        when(score.getMovieId()).thenReturn(7L);
+        when(score.getScore()).thenReturn(6);
+        when(ratingRepository.countByUserId(5L)).thenReturn(1L);
+        when(ratingStatsService.removeUserRatings(5L, 2)).thenReturn(List.of(score));
+
+        DeletionJob job = deletionService.deleteUser(5L);
+
+        assertEquals(DeletionJob.Status.COMPLETED, job.getStatus());
+        verify(changeFeedService).appendAll(changeEventsCaptor.capture());
+        ChangeEvent changeEvent = changeEventsCaptor.getValue().get(0);
+        assertEquals(ChangeEvent.Operation.DELETED, changeEvent.getOperation());
+        assertEquals(7L, changeEvent.getMovieId());
+        assertEquals(5L, changeEvent.getUserId());
+        InOrder inOrder = inOrder(userRepository, ratingStatsService);
+        inOrder.verify(userRepository).lockUserRow(5L);
+        inOrder.verify(ratingStatsService).removeUserRatings(5L, 2);
+        inOrder.verify(userRepository).deleteUserRow(5L);
+    }
+
+    @Test
+    void deleteMovie_aboveThreshold_runsInBackground() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        when(movieRepository.existsById(4L)).thenReturn(true);
+        when(ratingRepository.countByMovieId(4L)).thenReturn(6L);
+        when(ratingStatsService.removeMovieRatings(4L, 2)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 2L;
+        }).thenReturn(2L, 2L, 0L);
+        doAnswer(invocation -> {
+            finished.countDown();
+            return null;
+        }).when(eventPublisher).publishEvent(any(MovieDeletedEvent.class));
+
+        DeletionJob job = deletionService.deleteMovie(4L);
+
+        assertEquals(DeletionJob.Status.RUNNING, job.getStatus());
+        assertSame(job, deletionService.getJob(job.getId()));
+        assertSame(job, deletionService.deleteMovie(4L));
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        verify(movieRepository, timeout(5000)).deleteMovieRow(4L);
+        assertEquals(6L, job.getDeletedRatings());
+        // only the final transaction locks the movie, after the chunks committed on their own
+        InOrder inOrder = inOrder(ratingStatsService, movieRepository);
+        inOrder.verify(ratingStatsService, times(4)).removeMovieRatings(4L, 2);
+        inOrder.verify(movieRepository).lockMovieRow(4L);
+        inOrder.verify(ratingStatsService).removeMovieRatings(4L, 2);
+        inOrder.verify(movieRepository).deleteMovieRow(4L);
+    }
+
+    @Test
+    void getJob_unknown_throwsNotFound() {
+        assertThrows(ResourceNotFoundException.class, () -> deletionService.getJob("missing"));
+    }
+}
@@ -0,0 +1,80 @@
+package org.sky.study.unit.service.impl;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sky.study.service.impl.InMemoryClaimsCacheServiceImpl;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryClaimsCacheServiceImplTest {
+
+    private MeterRegistry meterRegistry;
+    private InMemoryClaimsCacheServiceImpl claimsCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        claimsCache = new InMemoryClaimsCacheServiceImpl(meterRegistry, 2);
+    }
+
+    @Test
+    void get_cachedToken_returnsClaims() {
+        Claims claims = claims(60_000);
+        claimsCache.put("a.b.c", claims);
+
+        assertSame(claims, claimsCache.get("a.b.c"));
+        assertNull(claimsCache.get("a.b.d"));
+        assertEquals(1.0, meterRegistry.get("jwt.claims.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("jwt.claims.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void get_expiredToken_isDropped() {
+        claimsCache.put("a.b.c", claims(-1));
+
+        assertNull(claimsCache.get("a.b.c"));
+        assertEquals(0, claimsCache.getSize());
+    }
+
+    @Test
+    void put_tokenWithoutExpiry_isNotCached() {
+        claimsCache.put("a.b.c", new DefaultClaims());
+
+        assertNull(claimsCache.get("a.b.c"));
+    }
+
+    @Test
+    void put_full_evictsExpiredBeforeRefusing() {
+        claimsCache.put("expired", claims(-1));
+        claimsCache.put("valid", claims(60_000));
+        claimsCache.put("new", claims(60_000));
+        claimsCache.put("refused", claims(60_000));
+
+        assertNotNull(claimsCache.get("valid"));
+        assertNotNull(claimsCache.get("new"));
+        assertNull(claimsCache.get("refused"));
+        assertEquals(2, claimsCache.getSize());
+    }
+
+    @Test
+    void evictExpired_dropsOnlyExpiredTokens() {
+        claimsCache.put("expired", claims(-1));
+        claimsCache.put("valid", claims(60_000));
+
+        claimsCache.evictExpired();
+
+        assertEquals(1, claimsCache.getSize());
+        assertNotNull(claimsCache.get("valid"));
+    }
+
+    private static Claims claims(long expiresInMillis) {
+        return new DefaultClaims().setSubject("user1")
+                .setExpiration(new Date(System.currentTimeMillis() + expiresInMillis));
+    }
+}
@@ -0,0 +1,199 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.sky.study.dto.TopRatedMovie;
+import org.sky.study.event.MovieDeletedEvent;
+import org.sky.study.event.MovieSavedEvent;
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.model.projection.MovieRatingSnapshot;
+import org.sky.study.repository.jpa.MovieRatingStatsRepository;
+import org.sky.study.service.CatalogVersionService;
+import org.sky.study.service.impl.InMemoryLeaderboardServiceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InMemoryLeaderboardServiceImplTest {
+
+    @Mock
+    private MovieRatingStatsRepository ratingStatsRepository;
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @InjectMocks
+    private InMemoryLeaderboardServiceImpl leaderboardService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        List<MovieRatingSnapshot> snapshots = List.of(
+                snapshot(1L, "Jaws", "Thriller", 1975, 16, 2),
+                snapshot(2L, "Alien", "Horror", 1979, 27, 3),
+                snapshot(3L, "Heat", "Crime", 1995, 7, 1),
+                snapshot(4L, "Halloween", "Horror", 1978, 15, 2));
+        when(ratingStatsRepository.findAllRatedSnapshots()).thenReturn(snapshots);
+        leaderboardService.seed();
+    }
+
+    @Test
+    void getTopRatedMovies_orderedByAverage() {
+        List<TopRatedMovie> result = leaderboardService.getTopRatedMovies(null, null, null, 10);
+
+        assertEquals(List.of("Alien", "Jaws", "Halloween", "Heat"), result.stream().map(TopRatedMovie::getName).toList());
+        assertEquals(9.0, result.get(0).getAverageRating());
+    }
+
+    @Test
+    void getTopRatedMovies_respectsLimit() {
+        List<TopRatedMovie> result = leaderboardService.getTopRatedMovies(null, null, null, 2);
+
+        assertEquals(2, result.size());
+        assertEquals("Alien", result.get(0).getName());
+    }
+
+    @Test
+    void getTopRatedMovies_byGenre() {
+        List<TopRatedMovie> result = leaderboardService.getTopRatedMovies("Horror", null, null, 10);
+
+        assertEquals(List.of("Alien", "Halloween"), result.stream().map(TopRatedMovie::getName).toList());
+        assertEquals(1979, result.get(0).getReleaseYear());
+    }
+
+    @Test
+    void getTopRatedMovies_byYearRange_mergesDecades() {
+        List<TopRatedMovie> result = leaderboardService.getTopRatedMovies(null, 1976, 1999, 10);
+
+        assertEquals(List.of("Alien", "Halloween", "Heat"), result.stream().map(TopRatedMovie::getName).toList());
+    }
+
+    @Test
+    void getTopRatedMovies_byGenreAndYearRange() {
+        List<TopRatedMovie> result = leaderboardService.getTopRatedMovies("Horror", 1970, 1978, 10);
+
+        assertEquals(List.of("Halloween"), result.stream().map(TopRatedMovie::getName).toList());
+    }
+
+    @Test
+    void onRatingChanged_reranksMovie() {
+        MovieRatingSnapshot heat = snapshot(3L, "Heat", "Crime", 1995, 10, 1);
+        when(ratingStatsRepository.findRatedSnapshot(3L)).thenReturn(Optional.of(heat));
+
+        leaderboardService.onRatingChanged(new RatingChangedEvent(3L, 7, 10));
+
+        assertEquals("Heat", leaderboardService.getTopRatedMovies(null, null, null, 1).get(0).getName());
+        assertEquals(10.0, leaderboardService.getTopRatedMovies(null, null, null, 1).get(0).getAverageRating());
+    }
+
+    @Test
+    void onRatingChanged_bumpsRatingsVersionOnceReranked() {
+        MovieRatingSnapshot heat = snapshot(3L, "Heat", "Crime", 1995, 10, 1);
+        when(ratingStatsRepository.findRatedSnapshot(3L)).thenReturn(Optional.of(heat));
+        List<String> leadersAtBump = new ArrayList<>();
+        doAnswer(invocation -> leadersAtBump.add(leaderboardService.getTopRatedMovies(null, null, null, 1).get(0).getName()))
+                .when(catalogVersionService).ratingsChanged();
+
+        leaderboardService.onRatingChanged(new RatingChangedEvent(3L, 7, 10));
+
+        assertEquals(List.of("Heat"), leadersAtBump);
+    }
+
+    @Test
+    void onRatingChanged_lastRatingRemoved_dropsMovie() {
+        when(ratingStatsRepository.findRatedSnapshot(3L)).thenReturn(Optional.empty());
+
+        leaderboardService.onRatingChanged(new RatingChangedEvent(3L, 7, null));
+
+        assertEquals(3, leaderboardService.getTopRatedMovies(null, null, null, 10).size());
+    }
+
+    @Test
+    void onRatingChanged_newMovie_loadsTitle() {
+        MovieRatingSnapshot up = snapshot(5L, "Up", "Animation", null, 10, 1);
+        when(ratingStatsRepository.findRatedSnapshot(5L)).thenReturn(Optional.of(up));
+
+        leaderboardService.onRatingChanged(new RatingChangedEvent(5L, null, 10));
+
+        assertEquals("Up", leaderboardService.getTopRatedMovies(null, null, null, 1).get(0).getName());
+    }
+
+    @Test
+    void onRatingChanged_alreadyRebuilt_notCountedTwice() {
+        MovieRatingSnapshot heat = snapshot(3L, "Heat", "Crime", 1995, 17, 2);
+        when(ratingStatsRepository.findAllRatedSnapshots()).thenReturn(List.of(heat));
+        when(ratingStatsRepository.findRatedSnapshot(3L)).thenReturn(Optional.of(heat));
+        leaderboardService.rebuild();
+
+        leaderboardService.onRatingChanged(new RatingChangedEvent(3L, null, 10));
+
+        assertEquals(8.5, leaderboardService.getTopRatedMovies(null, null, null, 1).get(0).getAverageRating());
+    }
+
+    @Test
+    void onMovieSaved_updatesTitle() {
+        leaderboardService.onMovieSaved(new MovieSavedEvent(2L, "Aliens", "Horror", 1986));
+
+        assertEquals("Aliens", leaderboardService.getTopRatedMovies(null, null, null, 1).get(0).getName());
+    }
+
+    @Test
+    void onMovieSaved_genreChanged_movesMovie() {
+        leaderboardService.onMovieSaved(new MovieSavedEvent(2L, "Alien", "Sci-Fi", 1979));
+
+        assertEquals(List.of("Halloween"), leaderboardService.getTopRatedMovies("Horror", null, null, 10)
+                .stream().map(TopRatedMovie::getName).toList());
+        assertEquals("Alien", leaderboardService.getTopRatedMovies("Sci-Fi", 1970, 1979, 10).get(0).getName());
+    }
+
+    @Test
+    void onMovieDeleted_removesMovie() {
+        leaderboardService.onMovieDeleted(new MovieDeletedEvent(2L));
+
+        assertEquals("Jaws", leaderboardService.getTopRatedMovies(null, null, null, 1).get(0).getName());
+        verify(catalogVersionService).catalogChanged();
+    }
+
+    @Test
+    void rebuild_forgetsDecadesWithoutMovies() {
+        List<MovieRatingSnapshot> snapshots = List.of(snapshot(3L, "Heat", "Crime", 1995, 7, 1));
+        when(ratingStatsRepository.findAllRatedSnapshots()).thenReturn(snapshots);
+
+        assertEquals(1, leaderboardService.rebuild());
+
+        assertEquals(Set.of(1990), decades());
+        assertEquals(List.of("Heat"), leaderboardService.getTopRatedMovies(null, 1970, 1999, 10)
+                .stream().map(TopRatedMovie::getName).toList());
+    }
+
+    @Test
+    void onMovieDeleted_lastMovieOfDecade_forgetsDecade() {
+        leaderboardService.onMovieDeleted(new MovieDeletedEvent(3L));
+
+        assertEquals(Set.of(1970), decades());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Integer> decades() {
+        Object rankings = ReflectionTestUtils.getField(leaderboardService, "rankings");
+        return (Set<Integer>) ReflectionTestUtils.getField(rankings, "decades");
+    }
+
+    private static MovieRatingSnapshot snapshot(Long movieId, String title, String genre, Integer releaseYear,
+                                                long ratingSum, long ratingCount) {
+        MovieRatingSnapshot snapshot = mock(MovieRatingSnapshot.class);
+        when(snapshot.getMovieId()).thenReturn(movieId);
+        when(snapshot.getTitle()).thenReturn(title);
+        when(snapshot.getGenre()).thenReturn(genre);
+        when(snapshot.getReleaseYear()).thenReturn(releaseYear);
+        when(snapshot.getRatingSum()).thenReturn(ratingSum);
+        when(snapshot.getRatingCount()).thenReturn(ratingCount);
+        return snapshot;
+    }
+}
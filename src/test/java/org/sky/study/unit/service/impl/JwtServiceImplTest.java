@@ -4,27 +4,48 @@ import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.sky.study.security.UserPrincipal;
+import org.sky.study.service.ClaimsCacheService;
+import org.sky.study.service.TokenRevocationService;
 import org.sky.study.service.impl.JwtServiceImpl;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 class JwtServiceImplTest {
 
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+    @Mock
+    private ClaimsCacheService claimsCacheService;
+
     @InjectMocks
     private JwtServiceImpl jwtService;
 
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         String secretKey = "testSecretKey1234567890";
         Field field = JwtServiceImpl.class.getDeclaredField("secretKey");
         field.setAccessible(true);
@@ -51,6 +72,190 @@ class JwtServiceImplTest {
         assertNotNull(claims.getExpiration());
     }
 
+    @Test
+    void generateToken_principalWithId_addsUserIdClaim() {
+        UserPrincipal principal = new UserPrincipal(42L, "user1", "pw", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        Claims claims = jwtService.getClaims("Bearer " + jwtService.generateToken(principal));
+
+        assertEquals("user1", claims.getSubject());
+        assertEquals(42L, jwtService.getUserId(claims));
+    }
+
+    @Test
+    void getUserId_tokenWithoutUserId_returnsNull() {
+        UserDetails userDetails = Mockito.mock(UserDetails.class);
+        when(userDetails.getUsername()).thenReturn("user1");
+        when(userDetails.getAuthorities()).thenReturn((Collection) Set.of());
+
+        Claims claims = jwtService.getClaims("Bearer " + jwtService.generateToken(userDetails));
+
+        assertNull(jwtService.getUserId(claims));
+    }
+
+    @Test
+    void generateToken_addsCompactUniqueTokenId() {
+        UserPrincipal principal = new UserPrincipal(42L, "user1", "pw", List.of());
+
+        String first = jwtService.getClaims("Bearer " + jwtService.generateToken(principal)).getId();
+        String second = jwtService.getClaims("Bearer " + jwtService.generateToken(principal)).getId();
+
+        assertEquals(22, first.length());
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void getClaims_cachedToken_skipsParsing() {
+        Claims cached = Mockito.mock(Claims.class);
+        when(claimsCacheService.get("not.even.parseable")).thenReturn(cached);
+
+        assertSame(cached, jwtService.getClaims("Bearer not.even.parseable"));
+        verify(claimsCacheService, never()).put(anyString(), any());
+    }
+
+    @Test
+    void getClaims_uncachedToken_cachesVerifiedClaims() {
+        String token = jwtService.generateToken(new UserPrincipal(42L, "user1", "pw", List.of()));
+
+        Claims claims = jwtService.getClaims("Bearer " + token);
+
+        verify(claimsCacheService).put(token, claims);
+    }
+
+    @Test
+    void getClaims_invalidToken_isNotCached() {
+        assertThrows(Exception.class, () -> jwtService.getClaims("Bearer invalid.token.value"));
+        verify(claimsCacheService, never()).put(anyString(), any());
+    }
+
+    @Test
+    void getTokenId_tokenWithoutId_isWholeToken() {
+        Claims claims = Mockito.mock(Claims.class);
+
+        assertEquals("legacy.token.value", jwtService.getTokenId("legacy.token.value", claims));
+    }
+
+    @Test
+    void getPrincipal_buildsUserFromClaims() {
+        UserPrincipal principal = new UserPrincipal(42L, "user1", "pw",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+        UserPrincipal fromToken = jwtService.getPrincipal(
+                jwtService.getClaims("Bearer " + jwtService.generateToken(principal)));
+
+        assertEquals(42L, fromToken.getId());
+        assertEquals("user1", fromToken.getUsername());
+        assertEquals(Set.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")),
+                Set.copyOf(fromToken.getAuthorities()));
+    }
+
+    @Test
+    void isRevoked_validToken_singleRoundTrip() {
+        UserPrincipal principal = new UserPrincipal(42L, "user1", "pw", List.of());
+        String token = jwtService.generateToken(principal);
+        Claims claims = jwtService.getClaims("Bearer " + token);
+        when(valueOperations.multiGet(List.of("blacklist:" + claims.getId(), "revoked-before:42")))
+                .thenReturn(Arrays.asList(null, null));
+
+        assertFalse(jwtService.isRevoked(token, claims));
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    void isRevoked_blacklistedToken_isRevoked() {
+        String token = jwtService.generateToken(new UserPrincipal(42L, "user1", "pw", List.of()));
+        Claims claims = jwtService.getClaims("Bearer " + token);
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList("true", null));
+
+        assertTrue(jwtService.isRevoked(token, claims));
+    }
+
+    @Test
+    void isRevoked_issuedBeforeUserRevocation_isRevoked() {
+        String token = jwtService.generateToken(new UserPrincipal(42L, "user1", "pw", List.of()));
+        Claims claims = jwtService.getClaims("Bearer " + token);
+        long issuedAt = claims.getIssuedAt().getTime();
+        when(valueOperations.multiGet(anyList()))
+                .thenReturn(Arrays.asList(null, Long.toString(issuedAt)))
+                .thenReturn(Arrays.asList(null, Long.toString(issuedAt - 1000)));
+
+        assertTrue(jwtService.isRevoked(token, claims));
+        assertFalse(jwtService.isRevoked(token, claims));
+    }
+
+    @Test
+    void isRevoked_tokenWithoutUserId_checksBlacklistOnly() {
+        UserDetails userDetails = Mockito.mock(UserDetails.class);
+        when(userDetails.getUsername()).thenReturn("user1");
+        when(userDetails.getAuthorities()).thenReturn((Collection) Set.of());
+        String token = jwtService.generateToken(userDetails);
+        Claims claims = jwtService.getClaims("Bearer " + token);
+        when(redisTemplate.hasKey("blacklist:" + claims.getId())).thenReturn(true);
+
+        assertTrue(jwtService.isRevoked(token, claims));
+        verify(valueOperations, never()).multiGet(anyList());
+    }
+
+    @Test
+    void isRevoked_synchronized_filterNegative_skipsRedis() {
+        String token = jwtService.generateToken(new UserPrincipal(42L, "user1", "pw", List.of()));
+        Claims claims = jwtService.getClaims("Bearer " + token);
+        when(tokenRevocationService.isSynchronized()).thenReturn(true);
+        when(tokenRevocationService.getRevokedBefore(42L)).thenReturn(Optional.empty());
+        when(tokenRevocationService.mightBeBlacklisted(claims.getId(), claims.getExpiration().getTime())).thenReturn(false);
+
+        assertFalse(jwtService.isRevoked(token, claims));
+        verifyNoInteractions(valueOperations);
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    void isRevoked_synchronized_possibleHit_asksRedis() {
+        String token = jwtService.generateToken(new UserPrincipal(42L, "user1", "pw", List.of()));
+        Claims claims = jwtService.getClaims("Bearer " + token);
+        when(tokenRevocationService.isSynchronized()).thenReturn(true);
+        when(tokenRevocationService.getRevokedBefore(42L)).thenReturn(Optional.empty());
+        when(tokenRevocationService.mightBeBlacklisted(eq(claims.getId()), anyLong())).thenReturn(true);
+        when(redisTemplate.hasKey("blacklist:" + claims.getId())).thenReturn(false, true);
+
+        assertFalse(jwtService.isRevoked(token, claims));
+        assertTrue(jwtService.isRevoked(token, claims));
+    }
+
+    @Test
+    void isRevoked_synchronized_issuedBeforeUserRevocation_isRevoked() {
+        String token = jwtService.generateToken(new UserPrincipal(42L, "user1", "pw", List.of()));
+        Claims claims = jwtService.getClaims("Bearer " + token);
+        when(tokenRevocationService.isSynchronized()).thenReturn(true);
+        when(tokenRevocationService.getRevokedBefore(42L)).thenReturn(Optional.of(claims.getIssuedAt().getTime()));
+
+        assertTrue(jwtService.isRevoked(token, claims));
+        verify(tokenRevocationService, never()).mightBeBlacklisted(anyString(), anyLong());
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    void revokeUserTokens_storesRevocationTime() {
+        jwtService.revokeUserTokens(42L);
+
+        verify(valueOperations).set(eq("revoked-before:42"), anyString(),
+                eq(TimeUnit.MINUTES.toMillis(30)), eq(TimeUnit.MILLISECONDS));
+        verify(tokenRevocationService).userTokensRevoked(eq(42L), anyLong());
+    }
+
+    @Test
+    void addToBlacklist_storesExpiryUntilTokenExpires() {
+        String token = jwtService.generateToken(new UserPrincipal(42L, "user1", "pw", List.of()));
+        Claims claims = jwtService.getClaims("Bearer " + token);
+        long expiresAt = claims.getExpiration().getTime();
+
+        jwtService.addToBlacklist(token, claims);
+
+        verify(valueOperations).set(eq("blacklist:" + claims.getId()), eq(Long.toString(expiresAt)),
+                longThat(ttl -> ttl > 0 && ttl <= TimeUnit.MINUTES.toMillis(30)), eq(TimeUnit.MILLISECONDS));
+        verify(tokenRevocationService).tokenBlacklisted(claims.getId(), expiresAt);
+    }
+
     @Test
     void getClaims_invalidToken_throwsException() {
         String invalidToken = "Bearer invalid.token.value";
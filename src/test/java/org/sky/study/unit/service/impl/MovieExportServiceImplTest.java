@@ -0,0 +1,103 @@
+package org.sky.study.unit.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.sky.study.service.impl.MovieExportServiceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MovieExportServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private ResultSet row;
+
+    private MovieExportServiceImpl movieExportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        movieExportService = new MovieExportServiceImpl(jdbcTemplate, new ObjectMapper(), 250);
+    }
+
+    @Test
+    void exportMovies_writesOneJsonObjectPerLine() throws Exception {
+        when(row.getLong("id")).thenReturn(1L, 2L);
+        when(row.getString("title")).thenReturn("Alien", "Jaws \"2\"");
+        when(row.getString("genre")).thenReturn("Horror", (String) null);
+        when(row.getInt("release_year")).thenReturn(1979, 0);
+        when(row.wasNull()).thenReturn(false, true);
+        when(row.getLong("version")).thenReturn(3L, 0L);
+        streamRows(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(2, movieExportService.exportMovies(out));
+
+        assertEquals("{\"id\":1,\"title\":\"Alien\",\"genre\":\"Horror\",\"releaseYear\":1979,\"version\":3}\n"
+                        + "{\"id\":2,\"title\":\"Jaws \\\"2\\\"\",\"genre\":null,\"releaseYear\":null,\"version\":0}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportMovies_usesForwardOnlyCursorWithFetchSize() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(statement);
+        doAnswer(invocation -> {
+            invocation.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        assertEquals(0, movieExportService.exportMovies(new ByteArrayOutputStream()));
+
+        verify(statement).setFetchSize(250);
+    }
+
+    @Test
+    void exportMovies_clientGone_rethrowsIOException() throws Exception {
+        when(row.getString(anyString())).thenReturn("Alien");
+        streamRows(1);
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        IOException e = assertThrows(IOException.class, () -> movieExportService.exportMovies(closed));
+        assertEquals("Broken pipe", e.getMessage());
+    }
+
+    private void streamRows(int count) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < count; i++) {
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,48 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.sky.study.controller.MovieController;
+import org.sky.study.model.jpa.Movie;
+import org.sky.study.service.impl.MovieLinkTemplate;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieLinkTemplateTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void self_matchesMethodOnLink() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/movies");
+        request.setContextPath("/api");
+        request.setServerName("movies.example.com");
+        request.setServerPort(8443);
+        request.setScheme("https");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertEquals(expectedHref(42L), MovieLinkTemplate.fromCurrentRequest().self(42L).getHref());
+    }
+
+    @Test
+    void toModel_addsSelfLink() {
+        EntityModel<Movie> model = new MovieLinkTemplate("http://localhost/movies/").toModel(new Movie(3L, "Jaws", "Thriller"));
+
+        assertEquals("http://localhost/movies/3", model.getRequiredLink(IanaLinkRelations.SELF).getHref());
+        assertEquals("Jaws", model.getContent().getTitle());
+    }
+
+    private static String expectedHref(Long movieId) {
+        return WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(MovieController.class)
+                .getMovieById(movieId, null)).withSelfRel().getHref();
+    }
+}
@@ -3,20 +3,37 @@ package org.sky.study.unit.service.impl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.sky.study.dto.DeletionJob;
+import org.sky.study.dto.MovieCursor;
+import org.sky.study.dto.MovieSortKey;
 import org.sky.study.dto.TopRatedMovie;
+import org.sky.study.dto.TrendingMovie;
+import org.sky.study.dto.TrendingWindow;
 import org.sky.study.exception.ResourceNotFoundException;
+import org.sky.study.model.jpa.ChangeEvent;
 import org.sky.study.model.jpa.Movie;
 import org.sky.study.repository.jpa.MovieRepository;
+import org.sky.study.event.MovieSavedEvent;
+import org.sky.study.service.LeaderboardService;
+import org.sky.study.service.MovieCacheService;
+import org.sky.study.service.TitleIndexService;
+import org.sky.study.service.TrendingService;
+import org.sky.study.service.ChangeFeedService;
+import org.sky.study.service.EntityDeletionService;
 import org.sky.study.service.impl.MovieServiceImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.PagedModel;
 
 import java.util.*;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +42,20 @@ class MovieServiceImplTest {
 
     @Mock
     private MovieRepository movieRepository;
+    @Mock
+    private ChangeFeedService changeFeedService;
+    @Mock
+    private LeaderboardService leaderboardService;
+    @Mock
+    private TrendingService trendingService;
+    @Mock
+    private EntityDeletionService entityDeletionService;
+    @Mock
+    private TitleIndexService titleIndexService;
+    @Mock
+    private MovieCacheService movieCacheService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private MovieServiceImpl movieService;
@@ -32,17 +63,21 @@ class MovieServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(movieCacheService.get(any(), any())).thenAnswer(invocation ->
+                invocation.<Function<Long, Movie>>getArgument(1).apply(invocation.getArgument(0)));
     }
 
     @Test
     void addMovie_success() {
-        Movie movie = new Movie(1L, "Inception", "Sci-Fi");
-        when(movieRepository.save(any(Movie.class))).thenReturn(movie);
+        Movie movie = new Movie(null, "Inception", "Sci-Fi");
+        Movie saved = new Movie(1L, "Inception", "Sci-Fi");
+        when(movieRepository.save(any(Movie.class))).thenReturn(saved);
 
         Movie result = movieService.saveOrUpdateMovie(movie);
 
-        assertEquals(movie, result);
+        assertEquals(saved, result);
         verify(movieRepository).save(movie);
+        verify(eventPublisher).publishEvent(any(MovieSavedEvent.class));
     }
 
     @Test
@@ -68,32 +103,61 @@ class MovieServiceImplTest {
     }
 
     @Test
-    void deleteMovie_success() {
-        Movie movie = new Movie(3L, "Avatar", "Fantasy");
-        when(movieRepository.findById(3L)).thenReturn(Optional.of(movie));
-
-        movieService.deleteMovie(3L);
+    void deleteMovie_delegatesToDeletionService() {
+        DeletionJob job = new DeletionJob("job-1", "MOVIE", 3L, 0);
+        job.completed();
+        when(entityDeletionService.deleteMovie(3L)).thenReturn(job);
 
-        verify(movieRepository).deleteById(3L);
+        assertSame(job, movieService.deleteMovie(3L));
+        verify(entityDeletionService).deleteMovie(3L);
     }
 
     @Test
     void deleteMovie_notFound() {
-        when(movieRepository.findById(100L)).thenReturn(Optional.empty());
+        when(entityDeletionService.deleteMovie(100L))
+                .thenThrow(new ResourceNotFoundException("Attempted to delete non-existent movie with id: 100"));
 
         assertThrows(ResourceNotFoundException.class, () -> movieService.deleteMovie(100L));
-        verify(movieRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void deleteMovie_nullId() {
+        assertThrows(IllegalArgumentException.class, () -> movieService.deleteMovie(null));
+        verifyNoInteractions(entityDeletionService);
     }
 
     @Test
     void updateMovie_success() {
+        Movie stored = new Movie(4L, "Titanc", "Drama");
+        stored.setVersion(2L);
         Movie movie = new Movie(4L, "Titanic", "Drama");
-        when(movieRepository.existsById(4L)).thenReturn(true);
-        when(movieRepository.save(movie)).thenReturn(movie);
+        movie.setReleaseYear(1997);
+        when(movieRepository.findById(4L)).thenReturn(Optional.of(stored));
+        when(movieRepository.save(stored)).thenReturn(stored);
 
         Movie result = movieService.saveOrUpdateMovie(movie);
 
-        assertEquals(movie, result);
+        assertSame(stored, result);
+        assertEquals("Titanic", result.getTitle());
+        assertEquals(1997, result.getReleaseYear());
+        assertEquals(2L, result.getVersion());
+        verify(changeFeedService).append(argThat(event -> event.getOperation() == ChangeEvent.Operation.UPDATED
+                && event.getMovieId() == 4L));
+    }
+
+    @Test
+    void updateMovie_unknownId_createsMovie() {
+        Movie movie = new Movie(40L, "Titanic", "Drama");
+        Movie saved = new Movie(41L, "Titanic", "Drama");
+        when(movieRepository.findById(40L)).thenReturn(Optional.empty());
+        when(movieRepository.save(movie)).thenReturn(saved);
+
+        Movie result = movieService.saveOrUpdateMovie(movie);
+
+        assertSame(saved, result);
+        assertNull(movie.getId());
+        verify(changeFeedService).append(argThat(event -> event.getOperation() == ChangeEvent.Operation.CREATED
+                && event.getMovieId() == 41L));
     }
 
     @Test
@@ -136,33 +200,165 @@ class MovieServiceImplTest {
         assertEquals(movies, moviesResult);
     }
 
+    @Test
+    void getAllMovies_titleWithoutIndexMatch_skipsQuery() {
+        when(titleIndexService.findMovieIds("zzz")).thenReturn(Optional.of(List.of()));
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> movieService.getAllMoviesWithFilters(0, 10, "zzz", null, null));
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    void getAllMovies_titleResolvedByIndex() {
+        Movie movie = new Movie(6L, "Jaws", "Thriller");
+        when(titleIndexService.findMovieIds("jaw")).thenReturn(Optional.of(List.of(6L)));
+        when(movieRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(movie), PageRequest.of(0, 10), 1));
+
+        PagedModel<EntityModel<Movie>> result = movieService.getAllMoviesWithFilters(0, 10, "jaw", null, null);
+
+        assertEquals(1, result.getContent().size());
+        verify(titleIndexService).findMovieIds("jaw");
+    }
+
+    @Test
+    void getMovieList_returnsPageContent() {
+        List<Movie> movies = List.of(new Movie(6L, "Jaws", "Thriller"), new Movie(7L, "Alien", "Horror"));
+        when(movieRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(movies, PageRequest.of(1, 2), 4));
+
+        assertEquals(movies, movieService.getMovieListWithFilters(1, 2, null, null, null));
+    }
+
+    @Test
+    void getMovieList_invalidPagination() {
+        assertThrows(IllegalArgumentException.class,
+                () -> movieService.getMovieListWithFilters(-1, 2, null, null, null));
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    void getMoviesAfterCursor_firstPage_linksNextCursor() {
+        List<Movie> movies = List.of(new Movie(6L, "Alien", "Horror"), new Movie(2L, "Jaws", "Thriller"),
+                new Movie(9L, "Psycho", "Horror"));
+        doReturn(movies).when(movieRepository).findBy(any(Specification.class), any());
+
+        CollectionModel<EntityModel<Movie>> result = movieService.getMoviesAfterCursor("", 2, "title", null, null, null);
+
+        assertEquals(2, result.getContent().size());
+        String next = result.getLink(IanaLinkRelations.NEXT).orElseThrow().getHref();
+        String cursor = next.replaceAll(".*cursor=([^&]*).*", "$1");
+        MovieCursor decoded = MovieCursor.decode(cursor);
+        assertEquals(MovieSortKey.TITLE, decoded.getSort());
+        assertEquals(2L, decoded.getMovieId());
+        assertEquals("Jaws", decoded.getValue());
+        verify(movieRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void getMoviesAfterCursor_lastPage_hasNoNextLink() {
+        doReturn(List.of(new Movie(6L, "Alien", "Horror"))).when(movieRepository).findBy(any(Specification.class), any());
+        String cursor = new MovieCursor(MovieSortKey.ID, 5L, null).encode();
+
+        CollectionModel<EntityModel<Movie>> result = movieService.getMoviesAfterCursor(cursor, 2, null, null, null, null);
+
+        assertEquals(1, result.getContent().size());
+        assertTrue(result.getLink(IanaLinkRelations.NEXT).isEmpty());
+    }
+
+    @Test
+    void getMoviesAfterCursor_pastLastKey_fetchesMoviesWithoutKey() {
+        Movie keyed = new Movie(6L, "Alien", "Horror");
+        keyed.setReleaseYear(1979);
+        doReturn(List.of(keyed), List.of(new Movie(2L, "Jaws", "Thriller"), new Movie(9L, "Psycho", "Horror")))
+                .when(movieRepository).findBy(any(Specification.class), any());
+        String cursor = new MovieCursor(MovieSortKey.RELEASE_YEAR, 5L, "1975").encode();
+
+        CollectionModel<EntityModel<Movie>> result = movieService.getMoviesAfterCursor(cursor, 2, "releaseYear",
+                null, null, null);
+
+        assertEquals(List.of(6L, 2L), result.getContent().stream().map(model -> model.getContent().getId()).toList());
+        MovieCursor next = MovieCursor.decode(result.getLink(IanaLinkRelations.NEXT).orElseThrow().getHref()
+                .replaceAll(".*cursor=([^&]*).*", "$1"));
+        assertEquals(2L, next.getMovieId());
+        assertNull(next.getValue());
+        verify(movieRepository, times(2)).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    void getMoviesAfterCursor_invalidArguments() {
+        String titleCursor = new MovieCursor(MovieSortKey.TITLE, 5L, "Jaws").encode();
+
+        assertThrows(IllegalArgumentException.class, () -> movieService.getMoviesAfterCursor("", 0, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> movieService.getMoviesAfterCursor("", 10, "rating", null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> movieService.getMoviesAfterCursor("not a cursor", 10, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> movieService.getMoviesAfterCursor(titleCursor, 10, "id", null, null, null));
+        verifyNoInteractions(movieRepository);
+    }
+
     @Test
     void getTopRatedMovies_success() {
-        TopRatedMovie topMovie = new TopRatedMovie("Inception", 9.5);
+        TopRatedMovie topMovie = new TopRatedMovie(1L, "Inception", "Sci-Fi", 2010, 9.5);
         List<TopRatedMovie> topRatedMovies = List.of(topMovie);
 
-        when(movieRepository.findTopRatedMovies()).thenReturn(topRatedMovies);
+        when(leaderboardService.getTopRatedMovies(null, null, null, 10)).thenReturn(topRatedMovies);
 
-        List<TopRatedMovie> result = movieService.getTopRatedMovies();
+        List<TopRatedMovie> result = movieService.getTopRatedMovies(null, null, null, 10);
 
         assertEquals(topRatedMovies, result);
-        verify(movieRepository).findTopRatedMovies();
+        verify(leaderboardService).getTopRatedMovies(null, null, null, 10);
     }
 
     @Test
     void getTopRatedMovies_emptyList() {
-        when(movieRepository.findTopRatedMovies()).thenReturn(List.of());
+        when(leaderboardService.getTopRatedMovies(null, null, null, 10)).thenReturn(List.of());
 
-        assertThrows(ResourceNotFoundException.class, () -> movieService.getTopRatedMovies());
-        verify(movieRepository).findTopRatedMovies();
+        assertThrows(ResourceNotFoundException.class, () -> movieService.getTopRatedMovies(null, null, null, 10));
+        verify(leaderboardService).getTopRatedMovies(null, null, null, 10);
     }
 
     @Test
     void getTopRatedMovies_nullList() {
-        when(movieRepository.findTopRatedMovies()).thenReturn(null);
+        when(leaderboardService.getTopRatedMovies(null, null, null, 10)).thenReturn(null);
 
-        assertThrows(ResourceNotFoundException.class, () -> movieService.getTopRatedMovies());
-        verify(movieRepository).findTopRatedMovies();
+        assertThrows(ResourceNotFoundException.class, () -> movieService.getTopRatedMovies(null, null, null, 10));
+        verify(leaderboardService).getTopRatedMovies(null, null, null, 10);
+    }
+
+    @Test
+    void getTopRatedMovies_invalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> movieService.getTopRatedMovies(null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> movieService.getTopRatedMovies(null, null, null, 101));
+        verifyNoInteractions(leaderboardService);
+    }
+
+    @Test
+    void getTopRatedMovies_invalidYearRange() {
+        assertThrows(IllegalArgumentException.class, () -> movieService.getTopRatedMovies("Drama", 2000, 1990, 10));
+        verifyNoInteractions(leaderboardService);
+    }
+
+    @Test
+    void getTrendingMovies_success() {
+        List<TrendingMovie> trendingMovies = List.of(new TrendingMovie(1L, "Inception", 42));
+        when(trendingService.getTrendingMovies(TrendingWindow.ONE_DAY, 5)).thenReturn(trendingMovies);
+
+        assertEquals(trendingMovies, movieService.getTrendingMovies("1d", 5));
+    }
+
+    @Test
+    void getTrendingMovies_emptyList() {
+        when(trendingService.getTrendingMovies(TrendingWindow.ONE_HOUR, 10)).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class, () -> movieService.getTrendingMovies("1h", 10));
+    }
+
+    @Test
+    void getTrendingMovies_invalidWindowOrLimit() {
+        assertThrows(IllegalArgumentException.class, () -> movieService.getTrendingMovies("2h", 10));
+        assertThrows(IllegalArgumentException.class, () -> movieService.getTrendingMovies("1h", 0));
+        verifyNoInteractions(trendingService);
     }
 
     //TODO: Add  tests for filtering movies by title, genre, and release year
@@ -0,0 +1,90 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.sky.study.dto.RatingHistogram;
+import org.sky.study.model.projection.ScoreCount;
+import org.sky.study.repository.jpa.MovieRatingStatsRepository;
+import org.sky.study.service.impl.RatingHistogramServiceImpl;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RatingHistogramServiceImplTest {
+
+    @Mock
+    private MovieRatingStatsRepository ratingStatsRepository;
+
+    @InjectMocks
+    private RatingHistogramServiceImpl histogramService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void getHistogram_countsMeanAndMedian() {
+        List<ScoreCount> scoreCounts = List.of(scoreCount(1L, 7, 1), scoreCount(1L, 8, 2), scoreCount(1L, 10, 1));
+        when(ratingStatsRepository.findScoreCounts(1L)).thenReturn(scoreCounts);
+
+        RatingHistogram histogram = histogramService.getHistogram(1L);
+
+        assertEquals(4, histogram.getTotalCount());
+        assertEquals(10, histogram.getCounts().size());
+        assertEquals(2, histogram.getCounts().get(8));
+        assertEquals(0, histogram.getCounts().get(9));
+        assertEquals(8.25, histogram.getMean());
+        assertEquals(8.0, histogram.getMedian());
+    }
+
+    @Test
+    void getHistogram_evenCount_medianBetweenMiddleScores() {
+        List<ScoreCount> scoreCounts = List.of(scoreCount(2L, 5, 1), scoreCount(2L, 8, 1));
+        when(ratingStatsRepository.findScoreCounts(2L)).thenReturn(scoreCounts);
+
+        assertEquals(6.5, histogramService.getHistogram(2L).getMedian());
+    }
+
+    @Test
+    void getHistogram_unratedMovie_emptyDistribution() {
+        when(ratingStatsRepository.findScoreCounts(3L)).thenReturn(List.of());
+
+        RatingHistogram histogram = histogramService.getHistogram(3L);
+
+        assertEquals(0, histogram.getTotalCount());
+        assertNull(histogram.getMean());
+        assertNull(histogram.getMedian());
+    }
+
+    @Test
+    void getHistogram_allRatingsRemoved_emptyDistribution() {
+        List<ScoreCount> scoreCounts = List.of(scoreCount(2L, 5, 0));
+        when(ratingStatsRepository.findScoreCounts(2L)).thenReturn(scoreCounts);
+
+        assertEquals(0, histogramService.getHistogram(2L).getTotalCount());
+        assertNull(histogramService.getHistogram(2L).getMedian());
+    }
+
+    @Test
+    void getHistogram_skipsInvalidScores() {
+        List<ScoreCount> scoreCounts = List.of(scoreCount(1L, 0, 3), scoreCount(1L, 6, 1));
+        when(ratingStatsRepository.findScoreCounts(1L)).thenReturn(scoreCounts);
+
+        RatingHistogram histogram = histogramService.getHistogram(1L);
+
+        assertEquals(1, histogram.getTotalCount());
+        assertEquals(6.0, histogram.getMean());
+    }
+
+    private static ScoreCount scoreCount(Long movieId, Integer score, long ratingCount) {
+        ScoreCount scoreCount = mock(ScoreCount.class);
+        when(scoreCount.getMovieId()).thenReturn(movieId);
+        when(scoreCount.getScore()).thenReturn(score);
+        when(scoreCount.getRatingCount()).thenReturn(ratingCount);
+        return scoreCount;
+    }
+}
@@ -3,16 +3,26 @@ package org.sky.study.unit.service.impl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.sky.study.dto.RatingHistogram;
 import org.sky.study.exception.ResourceNotFoundException;
-import org.sky.study.model.jpa.Movie;
+import org.sky.study.model.jpa.ChangeEvent;
 import org.sky.study.model.jpa.Rating;
-import org.sky.study.model.jpa.User;
+import org.sky.study.model.projection.MovieScore;
+import org.sky.study.model.projection.RatingUpsert;
+import org.sky.study.model.projection.RatingView;
 import org.sky.study.repository.jpa.MovieRepository;
 import org.sky.study.repository.jpa.RatingRepository;
-import org.sky.study.repository.jpa.UserRepository;
+import org.sky.study.service.ChangeFeedService;
+import org.sky.study.service.RatingHistogramService;
+import org.sky.study.service.RatingStatsService;
 import org.sky.study.service.impl.RatingServiceImpl;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,7 +34,11 @@ class RatingServiceImplTest {
     @Mock
     private MovieRepository movieRepository;
     @Mock
-    private UserRepository userRepository;
+    private RatingStatsService ratingStatsService;
+    @Mock
+    private ChangeFeedService changeFeedService;
+    @Mock
+    private RatingHistogramService ratingHistogramService;
 
     @InjectMocks
     private RatingServiceImpl ratingService;
@@ -36,95 +50,147 @@ class RatingServiceImplTest {
 
     @Test
     void saveOrUpdateRating_updatesExistingRating() {
-        Rating existing = new Rating();
-        existing.setScore(3);
-        when(ratingRepository.findByMovieIdAndUsername(1L, "user")).thenReturn(Optional.of(existing));
-        when(ratingRepository.save(existing)).thenReturn(existing);
+        RatingUpsert upsert = upsert(5, 3);
+        when(ratingRepository.upsertRating(eq(1L), eq(7L), eq(5), any(Instant.class))).thenReturn(Optional.of(upsert));
 
-        Rating result = ratingService.saveOrUpdateRating(1L, 5, "user");
+        Rating result = ratingService.saveOrUpdateRating(1L, 5, 7L);
 
         assertEquals(5, result.getScore());
-        verify(ratingRepository).save(existing);
+        verify(ratingStatsService).ratingChanged(1L, 3, 5);
+        verify(changeFeedService).append(argThat(event -> event.getOperation() == ChangeEvent.Operation.UPDATED
+                && event.getMovieId() == 1L && event.getUserId() == 7L && event.getScore() == 5));
+        verifyNoInteractions(movieRepository);
     }
 
     @Test
     void saveOrUpdateRating_createsNewRating() {
-        when(ratingRepository.findByMovieIdAndUsername(1L, "user")).thenReturn(Optional.empty());
-        User user = new User();
-        user.setUsername("user");
-        Movie movie = new Movie(1L, "Test Movie", "Test Genre");
-        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
-        when(movieRepository.findById(1L)).thenReturn(Optional.of(movie));
-        when(ratingRepository.save(any(Rating.class))).thenAnswer(inv -> inv.getArgument(0));
+        RatingUpsert upsert = upsert(4, null);
+        when(ratingRepository.upsertRating(eq(1L), eq(7L), eq(4), any(Instant.class))).thenReturn(Optional.of(upsert));
 
-        Rating result = ratingService.saveOrUpdateRating(1L, 4, "user");
+        Rating result = ratingService.saveOrUpdateRating(1L, 4, 7L);
 
         assertEquals(4, result.getScore());
-        assertEquals(user, result.getUser());
-        assertEquals(movie, result.getMovie());
-        verify(ratingRepository).save(any(Rating.class));
+        assertNotNull(result.getRatedAt());
+        verify(ratingStatsService).ratingAdded(1L, 4);
+        verify(changeFeedService).append(argThat(event -> event.getOperation() == ChangeEvent.Operation.CREATED
+                && event.getEntityType() == ChangeEvent.EntityType.RATING));
+        verify(ratingRepository, never()).save(any());
+        verifyNoInteractions(movieRepository);
     }
 
     @Test
     void saveOrUpdateRating_invalidInput_throwsException() {
-        assertThrows(IllegalArgumentException.class, () -> ratingService.saveOrUpdateRating(null, 5, "user"));
-        assertThrows(IllegalArgumentException.class, () -> ratingService.saveOrUpdateRating(1L, null, "user"));
+        assertThrows(IllegalArgumentException.class, () -> ratingService.saveOrUpdateRating(null, 5, 7L));
+        assertThrows(IllegalArgumentException.class, () -> ratingService.saveOrUpdateRating(1L, null, 7L));
         assertThrows(IllegalArgumentException.class, () -> ratingService.saveOrUpdateRating(1L, 5, null));
-        assertThrows(IllegalArgumentException.class, () -> ratingService.saveOrUpdateRating(1L, 5, "  "));
-    }
-
-    @Test
-    void saveOrUpdateRating_userNotFound_throwsException() {
-        when(ratingRepository.findByMovieIdAndUsername(1L, "user")).thenReturn(Optional.empty());
-        when(userRepository.findByUsername("user")).thenReturn(Optional.empty());
-        assertThrows(ResourceNotFoundException.class, () -> ratingService.saveOrUpdateRating(1L, 5, "user"));
     }
 
     @Test
     void saveOrUpdateRating_movieNotFound_throwsException() {
-        User user = new User();
-        user.setUsername("user");
-        when(ratingRepository.findByMovieIdAndUsername(1L, "user")).thenReturn(Optional.empty());
-        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
-        when(movieRepository.findById(1L)).thenReturn(Optional.empty());
-        assertThrows(ResourceNotFoundException.class, () -> ratingService.saveOrUpdateRating(1L, 5, "user"));
+        when(ratingRepository.upsertRating(eq(1L), eq(7L), eq(5), any(Instant.class))).thenReturn(Optional.empty());
+
+        ResourceNotFoundException e = assertThrows(ResourceNotFoundException.class, () -> ratingService.saveOrUpdateRating(1L, 5, 7L));
+        assertTrue(e.getMessage().startsWith("Movie not found"));
+        verifyNoInteractions(ratingStatsService, changeFeedService);
     }
 
     @Test
     void deleteUserRating_success() {
-        Rating rating = new Rating();
-        when(ratingRepository.findByMovieIdAndUsername(1L, "user")).thenReturn(Optional.of(rating));
-        doNothing().when(ratingRepository).delete(rating);
-
-        assertDoesNotThrow(() -> ratingService.deleteUserRating(1L, "user"));
-        verify(ratingRepository).delete(rating);
+        when(ratingRepository.deleteReturningScore(1L, 7L)).thenReturn(Optional.of(7));
+
+        assertDoesNotThrow(() -> ratingService.deleteUserRating(1L, 7L));
+        verify(ratingRepository).deleteReturningScore(1L, 7L);
+        verify(ratingRepository, never()).findById(any());
+        verify(ratingStatsService).ratingRemoved(1L, 7);
+        verify(changeFeedService).append(argThat(event -> event.getOperation() == ChangeEvent.Operation.DELETED
+                && event.getScore() == null));
     }
 
     @Test
     void deleteUserRating_notFound_throwsException() {
-        when(ratingRepository.findByMovieIdAndUsername(1L, "user")).thenReturn(Optional.empty());
-        assertThrows(ResourceNotFoundException.class, () -> ratingService.deleteUserRating(1L, "user"));
-        verify(ratingRepository, never()).delete(any());
+        when(ratingRepository.deleteReturningScore(1L, 7L)).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> ratingService.deleteUserRating(1L, 7L));
+        verifyNoInteractions(ratingStatsService, changeFeedService);
     }
 
     @Test
     void getRatingByMovieIdAndUserName_found() {
-        Rating rating = new Rating();
-        when(ratingRepository.findByMovieIdAndUsername(1L, "user")).thenReturn(Optional.of(rating));
-        Rating result = ratingService.getRatingByMovieIdAndUserName(1L, "user");
+        RatingView rating = mock(RatingView.class);
+        when(ratingRepository.findViewByMovieIdAndUserId(1L, 7L)).thenReturn(Optional.of(rating));
+        RatingView result = ratingService.getRatingByMovieIdAndUserId(1L, 7L);
         assertEquals(rating, result);
     }
 
     @Test
     void getRatingByMovieIdAndUserName_notFound_throwsException() {
-        when(ratingRepository.findByMovieIdAndUsername(1L, "user")).thenReturn(Optional.empty());
-        assertThrows(ResourceNotFoundException.class, () -> ratingService.getRatingByMovieIdAndUserName(1L, "user"));
+        when(ratingRepository.findViewByMovieIdAndUserId(1L, 7L)).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> ratingService.getRatingByMovieIdAndUserId(1L, 7L));
     }
 
     @Test
     void getRatingByMovieIdAndUserName_invalidInput_throwsException() {
-        assertThrows(IllegalArgumentException.class, () -> ratingService.getRatingByMovieIdAndUserName(null, "user"));
-        assertThrows(IllegalArgumentException.class, () -> ratingService.getRatingByMovieIdAndUserName(1L, null));
-        assertThrows(IllegalArgumentException.class, () -> ratingService.getRatingByMovieIdAndUserName(1L, "  "));
+        assertThrows(IllegalArgumentException.class, () -> ratingService.getRatingByMovieIdAndUserId(null, 7L));
+        assertThrows(IllegalArgumentException.class, () -> ratingService.getRatingByMovieIdAndUserId(1L, null));
+    }
+
+    @Test
+    void saveOrUpdateRating_scoreOutOfRange_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> ratingService.saveOrUpdateRating(1L, 0, 7L));
+        assertThrows(IllegalArgumentException.class, () -> ratingService.saveOrUpdateRating(1L, 11, 7L));
+        verifyNoInteractions(ratingRepository, ratingStatsService);
+    }
+
+    @Test
+    void getRatingHistogram_returnsHistogram() {
+        RatingHistogram histogram = new RatingHistogram(1L, Map.of(8, 2), 2, 8.0, 8.0);
+        when(ratingHistogramService.getHistogram(1L)).thenReturn(histogram);
+
+        assertEquals(histogram, ratingService.getRatingHistogram(1L));
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    void getRatingHistogram_unknownMovie_throwsException() {
+        when(ratingHistogramService.getHistogram(99L)).thenReturn(new RatingHistogram(99L, Map.of(), 0, null, null));
+        when(movieRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> ratingService.getRatingHistogram(99L));
+    }
+
+    @Test
+    void getUserScores_resolvesAllMoviesInOneQuery() {
+        MovieScore first = movieScore(1L, 8);
+        MovieScore third = movieScore(3L, 2);
+        when(ratingRepository.findMovieScoresByUserIdAndMovieIdIn(eq(7L), anyCollection())).thenReturn(List.of(first, third));
+
+        Map<Long, Integer> scores = ratingService.getUserScores(List.of(1L, 2L, 3L, 1L), 7L);
+
+        assertEquals(Map.of(1L, 8, 3L, 2), scores);
+        verify(ratingRepository).findMovieScoresByUserIdAndMovieIdIn(7L, Set.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void getUserScores_invalidInput_throwsException() {
+        List<Long> tooMany = LongStream.rangeClosed(1, RatingServiceImpl.MAX_SCORE_LOOKUP_SIZE + 1).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class, () -> ratingService.getUserScores(List.of(), 7L));
+        assertThrows(IllegalArgumentException.class, () -> ratingService.getUserScores(List.of(1L), null));
+        assertThrows(IllegalArgumentException.class, () -> ratingService.getUserScores(tooMany, 7L));
+        verifyNoInteractions(ratingRepository);
+    }
+
+    private static MovieScore movieScore(Long movieId, Integer score) {
+        MovieScore movieScore = mock(MovieScore.class);
+        when(movieScore.getMovieId()).thenReturn(movieId);
+        when(movieScore.getScore()).thenReturn(score);
+        return movieScore;
+    }
+
+    private static RatingUpsert upsert(Integer score, Integer previousScore) {
+        RatingUpsert upsert = mock(RatingUpsert.class);
+        when(upsert.getScore()).thenReturn(score);
+        when(upsert.getPreviousScore()).thenReturn(previousScore);
+        when(upsert.getRatedAt()).thenReturn(Instant.now());
+        return upsert;
     }
-}
\ No newline at end of file
+}
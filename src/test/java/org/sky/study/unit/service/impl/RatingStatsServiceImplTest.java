@@ -0,0 +1,145 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.model.projection.MovieScore;
+import org.sky.study.repository.jpa.MovieRatingStatsRepository;
+import org.sky.study.service.impl.RatingStatsServiceImpl;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RatingStatsServiceImplTest {
+
+    @Mock
+    private MovieRatingStatsRepository ratingStatsRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Captor
+    private ArgumentCaptor<RatingChangedEvent> eventCaptor;
+
+    @InjectMocks
+    private RatingStatsServiceImpl ratingStatsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void ratingAdded_incrementsSumAndCount() {
+        ratingStatsService.ratingAdded(1L, 8);
+        verify(ratingStatsRepository).applyDelta(1L, 8, 1);
+        verify(ratingStatsRepository).applyScoreDelta(1L, 8, 1);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertNull(eventCaptor.getValue().getOldScore());
+        assertEquals(8, eventCaptor.getValue().getNewScore());
+    }
+
+    @Test
+    void ratingChanged_appliesScoreDifferenceOnly() {
+        ratingStatsService.ratingChanged(1L, 3, 9);
+        verify(ratingStatsRepository).applyDelta(1L, 6, 0);
+        verify(ratingStatsRepository).applyScoreDelta(1L, 3, -1);
+        verify(ratingStatsRepository).applyScoreDelta(1L, 9, 1);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(6, eventCaptor.getValue().getSumDelta());
+        assertEquals(0, eventCaptor.getValue().getCountDelta());
+    }
+
+    @Test
+    void ratingChanged_sameScore_noUpdate() {
+        ratingStatsService.ratingChanged(1L, 5, 5);
+        verifyNoInteractions(ratingStatsRepository, eventPublisher);
+    }
+
+    @Test
+    void ratingRemoved_decrementsSumAndCount() {
+        ratingStatsService.ratingRemoved(2L, 4);
+        verify(ratingStatsRepository).applyDelta(2L, -4, -1);
+        verify(ratingStatsRepository).applyScoreDelta(2L, 4, -1);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(-4, eventCaptor.getValue().getSumDelta());
+        assertEquals(-1, eventCaptor.getValue().getCountDelta());
+    }
+
+    @Test
+    void ratingsChanged_appliesOneDeltaPerMovie() {
+        ratingStatsService.ratingsChanged(List.of(
+                new RatingChangedEvent(1L, null, 8),
+                new RatingChangedEvent(1L, 4, 6),
+                new RatingChangedEvent(2L, null, 5)));
+
+        verify(ratingStatsRepository).applyDelta(1L, 10, 1);
+        verify(ratingStatsRepository).applyDelta(2L, 5, 1);
+        verify(eventPublisher, times(3)).publishEvent(any(RatingChangedEvent.class));
+    }
+
+    @Test
+    void ratingsChanged_appliesOneCountDeltaPerMovieAndScore() {
+        ratingStatsService.ratingsChanged(List.of(
+                new RatingChangedEvent(1L, null, 8),
+                new RatingChangedEvent(1L, 4, 8),
+                new RatingChangedEvent(1L, 8, 4)));
+
+        verify(ratingStatsRepository).applyScoreDelta(1L, 8, 1);
+        verify(ratingStatsRepository, never()).applyScoreDelta(eq(1L), eq(4), anyLong());
+    }
+
+    @Test
+    void removeUserRatings_publishesRemovalPerDeletedRating() {
+        MovieScore score = mock(MovieScore.class);
+        when(score.getMovieId()).thenReturn(7L);
+        when(score.getScore()).thenReturn(6);
+        when(ratingStatsRepository.deleteUserRatings(5L, 100)).thenReturn(List.of(score));
+
+        assertEquals(1, ratingStatsService.removeUserRatings(5L, 100).size());
+
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(7L, eventCaptor.getValue().getMovieId());
+        assertEquals(-6, eventCaptor.getValue().getSumDelta());
+        assertEquals(-1, eventCaptor.getValue().getCountDelta());
+    }
+
+    @Test
+    void removeMovieRatings_returnsDeletedCount() {
+        when(ratingStatsRepository.deleteMovieRatings(3L, 100)).thenReturn(42L);
+
+        assertEquals(42L, ratingStatsService.removeMovieRatings(3L, 100));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void movieRemoved_deletesAggregate() {
+        when(ratingStatsRepository.existsById(3L)).thenReturn(true);
+        ratingStatsService.movieRemoved(3L);
+        verify(ratingStatsRepository).deleteById(3L);
+        verify(ratingStatsRepository).deleteScoreCounts(3L);
+    }
+
+    @Test
+    void movieRemoved_withoutAggregate_noDelete() {
+        when(ratingStatsRepository.existsById(3L)).thenReturn(false);
+        ratingStatsService.movieRemoved(3L);
+        verify(ratingStatsRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void rebuild_recomputesAndRemovesUnrated() {
+        when(ratingStatsRepository.recomputeAll()).thenReturn(7);
+
+        assertEquals(7, ratingStatsService.rebuild());
+
+        InOrder inOrder = inOrder(ratingStatsRepository);
+        inOrder.verify(ratingStatsRepository).lockAgainstWriters();
+        inOrder.verify(ratingStatsRepository).deleteUnrated();
+        inOrder.verify(ratingStatsRepository).recomputeAll();
+        inOrder.verify(ratingStatsRepository).deleteUnscored();
+        inOrder.verify(ratingStatsRepository).recomputeScoreCounts();
+    }
+}
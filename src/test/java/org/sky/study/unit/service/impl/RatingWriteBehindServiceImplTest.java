@@ -0,0 +1,189 @@
+package org.sky.study.unit.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.mockito.stubbing.Answer;
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.exception.TooManyRequestsException;
+import org.sky.study.model.jpa.ChangeEvent;
+import org.sky.study.model.jpa.Rating;
+import org.sky.study.model.projection.WrittenRating;
+import org.sky.study.repository.jpa.RatingRepository;
+import org.sky.study.service.ChangeFeedService;
+import org.sky.study.service.RatingStatsService;
+import org.sky.study.service.impl.RatingWriteBehindServiceImpl;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RatingWriteBehindServiceImplTest {
+
+    @Mock
+    private RatingRepository ratingRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private RatingStatsService ratingStatsService;
+    @Mock
+    private ChangeFeedService changeFeedService;
+    @Captor
+    private ArgumentCaptor<Long[]> userIdsCaptor;
+    @Captor
+    private ArgumentCaptor<Long[]> movieIdsCaptor;
+    @Captor
+    private ArgumentCaptor<Integer[]> scoresCaptor;
+    @Captor
+    private ArgumentCaptor<List<RatingChangedEvent>> changesCaptor;
+    @Captor
+    private ArgumentCaptor<List<ChangeEvent>> changeEventsCaptor;
+
+    private MeterRegistry meterRegistry;
+    private RatingWriteBehindServiceImpl writeBehindService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        meterRegistry = new SimpleMeterRegistry();
+        writeBehindService = new RatingWriteBehindServiceImpl(ratingRepository, transactionTemplate, ratingStatsService,
+                changeFeedService, meterRegistry, true, 2, 500, 200, 3);
+    }
+
+    @Test
+    void enqueue_coalescesRepeatedRatingsOfSameUserAndMovie() throws Exception {
+        writeBehindService.enqueue(1L, 3, 7L);
+        Rating accepted = writeBehindService.enqueue(1L, 5, 7L);
+
+        assertEquals(5, accepted.getScore());
+        assertNotNull(accepted.getRatedAt());
+        assertEquals(1, writeBehindService.getPendingCount());
+        assertEquals(1.0, meterRegistry.get("ratings.write_behind.coalesced").counter().count());
+
+        stubWrittenRows(new Object[]{1L, 7L, 5, 7});
+
+        assertEquals(1, writeBehindService.flush());
+        assertEquals(0, writeBehindService.getPendingCount());
+        verify(ratingRepository).upsertRatings(userIdsCaptor.capture(), movieIdsCaptor.capture(), scoresCaptor.capture(),
+                any());
+        verify(ratingStatsService).ratingsChanged(changesCaptor.capture());
+        assertEquals(1, changesCaptor.getValue().size());
+        assertEquals(-2, changesCaptor.getValue().get(0).getSumDelta());
+        verify(changeFeedService).appendAll(changeEventsCaptor.capture());
+        ChangeEvent changeEvent = changeEventsCaptor.getValue().get(0);
+        assertEquals(ChangeEvent.Operation.UPDATED, changeEvent.getOperation());
+        assertEquals(7L, changeEvent.getUserId());
+        assertEquals(5, changeEvent.getScore());
+        assertArrayEquals(new Long[]{7L}, userIdsCaptor.getValue());
+        assertArrayEquals(new Long[]{1L}, movieIdsCaptor.getValue());
+        assertArrayEquals(new Integer[]{5}, scoresCaptor.getValue());
+    }
+
+    @Test
+    void enqueue_queueFull_throwsTooManyRequests() {
+        writeBehindService.enqueue(1L, 3, 7L);
+        writeBehindService.enqueue(2L, 3, 7L);
+
+        assertThrows(TooManyRequestsException.class, () -> writeBehindService.enqueue(3L, 3, 7L));
+        assertDoesNotThrow(() -> writeBehindService.enqueue(2L, 4, 7L));
+        assertEquals(2, writeBehindService.getPendingCount());
+        assertEquals(1.0, meterRegistry.get("ratings.write_behind.rejected").counter().count());
+    }
+
+    @Test
+    void enqueue_invalidScore_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> writeBehindService.enqueue(1L, 11, 7L));
+        assertThrows(IllegalArgumentException.class, () -> writeBehindService.enqueue(1L, 5, null));
+        assertEquals(0, writeBehindService.getPendingCount());
+    }
+
+    @Test
+    void flush_failedBatch_isRequeued() {
+        writeBehindService.enqueue(1L, 3, 7L);
+        when(ratingRepository.upsertRatings(any(), any(), any(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThrows(QueryTimeoutException.class, () -> writeBehindService.flush());
+        assertEquals(1, writeBehindService.getPendingCount());
+        verifyNoInteractions(ratingStatsService, changeFeedService);
+    }
+
+    @Test
+    void flush_unknownMovieAndUnchangedScore_areNotPublished() {
+        writeBehindService.enqueue(1L, 8, 7L);
+        writeBehindService.enqueue(999L, 8, 7L);
+        stubWrittenRows(new Object[]{1L, 7L, 8, 8});
+
+        assertEquals(1, writeBehindService.flush());
+        verifyNoInteractions(ratingStatsService, changeFeedService);
+        assertEquals(1.0, meterRegistry.get("ratings.write_behind.dropped").counter().count());
+        assertEquals(2L, meterRegistry.get("ratings.write_behind.lag").timer().count());
+    }
+
+    @Test
+    void flush_batchFailingRepeatedly_isDiscardedAfterMaxAttempts() {
+        writeBehindService.enqueue(1L, 3, 7L);
+        when(ratingRepository.upsertRatings(any(), any(), any(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThrows(QueryTimeoutException.class, () -> writeBehindService.flush());
+        assertThrows(QueryTimeoutException.class, () -> writeBehindService.flush());
+        assertEquals(1, writeBehindService.getPendingCount());
+        assertThrows(QueryTimeoutException.class, () -> writeBehindService.flush());
+
+        assertEquals(0, writeBehindService.getPendingCount());
+        assertEquals(1.0, meterRegistry.get("ratings.write_behind.failed").tag("reason", "attempts-exhausted")
+                .counter().count());
+    }
+
+    @Test
+    void flush_batchRejectedByConstraint_writesOneByOneAndDiscardsOnlyRejected() {
+        writeBehindService.enqueue(1L, 8, 7L);
+        writeBehindService.enqueue(2L, 6, 7L);
+        when(ratingRepository.upsertRatings(any(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("fk_ratings_movie"))
+                .thenAnswer(writtenRows(new Object[]{1L, 7L, 8, null}))
+                .thenThrow(new DataIntegrityViolationException("fk_ratings_movie"));
+
+        assertEquals(1, writeBehindService.flush());
+
+        assertEquals(0, writeBehindService.getPendingCount());
+        verify(ratingRepository, times(3)).upsertRatings(any(), any(), any(), any());
+        verify(ratingStatsService).ratingsChanged(argThat(changes -> changes.size() == 1));
+        assertEquals(1.0, meterRegistry.get("ratings.write_behind.failed").tag("reason", "rejected").counter().count());
+    }
+
+    private void stubWrittenRows(Object[]... rows) {
+        when(ratingRepository.upsertRatings(any(), any(), any(), any()))
+                .thenAnswer(writtenRows(rows));
+    }
+
+    /**
+     * Answers the batch upsert with the given (movie_id, user_id, score, previous_score) rows.
+     */
+    private static Answer<List<WrittenRating>> writtenRows(Object[]... rows) {
+        return invocation -> {
+            List<WrittenRating> written = new ArrayList<>();
+            for (Object[] row : rows) {
+                WrittenRating rating = mock(WrittenRating.class);
+                when(rating.getMovieId()).thenReturn((Long) row[0]);
+                when(rating.getUserId()).thenReturn((Long) row[1]);
+                when(rating.getScore()).thenReturn((Integer) row[2]);
+                when(rating.getPreviousScore()).thenReturn((Integer) row[3]);
+                written.add(rating);
+            }
+            return written;
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.sky.study.service.impl.RedisCatalogVersionServiceImpl;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisCatalogVersionServiceImplTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private RedisCatalogVersionServiceImpl catalogVersionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void getCatalogVersion_readsSharedCounter() {
+        when(valueOperations.get("versions:catalog")).thenReturn("42");
+
+        assertEquals(Optional.of(42L), catalogVersionService.getCatalogVersion());
+        verify(valueOperations, never()).setIfAbsent(anyString(), anyString());
+    }
+
+    @Test
+    void getRatingsVersion_missingCounter_isSeeded() {
+        when(valueOperations.get("versions:ratings")).thenReturn(null, "1234");
+
+        assertEquals(Optional.of(1234L), catalogVersionService.getRatingsVersion());
+        verify(valueOperations).setIfAbsent(eq("versions:ratings"), anyString());
+    }
+
+    @Test
+    void getCatalogVersion_redisDown_isEmpty() {
+        when(valueOperations.get("versions:catalog")).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertEquals(Optional.empty(), catalogVersionService.getCatalogVersion());
+    }
+
+    @Test
+    void changes_bumpTheirCounter() {
+        when(valueOperations.increment(anyString())).thenReturn(7L);
+
+        catalogVersionService.catalogChanged();
+        catalogVersionService.catalogChanged();
+        catalogVersionService.ratingsChanged();
+
+        verify(valueOperations, times(2)).increment("versions:catalog");
+        verify(valueOperations).increment("versions:ratings");
+        verify(valueOperations, never()).set(anyString(), anyString());
+    }
+
+    @Test
+    void bump_missingCounter_jumpsToRandomVersion() {
+        when(valueOperations.increment("versions:catalog")).thenReturn(1L);
+
+        catalogVersionService.catalogChanged();
+
+        verify(valueOperations).set(eq("versions:catalog"), argThat(version -> Long.parseLong(version) >= 0));
+    }
+
+    @Test
+    void bump_redisDown_hidesVersionUntilRetried() {
+        when(valueOperations.increment("versions:catalog"))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(8L);
+        when(valueOperations.get("versions:catalog")).thenReturn("8");
+
+        catalogVersionService.catalogChanged();
+
+        assertEquals(Optional.empty(), catalogVersionService.getCatalogVersion());
+        catalogVersionService.retryPendingBumps();
+        assertEquals(Optional.of(8L), catalogVersionService.getCatalogVersion());
+        verify(valueOperations, times(3)).increment("versions:catalog");
+    }
+}
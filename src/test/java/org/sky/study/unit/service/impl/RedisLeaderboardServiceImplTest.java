@@ -0,0 +1,253 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.sky.study.dto.TopRatedMovie;
+import org.sky.study.event.MovieDeletedEvent;
+import org.sky.study.event.MovieSavedEvent;
+import org.sky.study.event.RatingChangedEvent;
+import org.sky.study.exception.TooManyRequestsException;
+import org.sky.study.model.jpa.Movie;
+import org.sky.study.model.projection.MovieRatingSnapshot;
+import org.sky.study.repository.jpa.MovieRatingStatsRepository;
+import org.sky.study.repository.jpa.MovieRepository;
+import org.sky.study.service.CatalogVersionService;
+import org.sky.study.service.impl.RedisLeaderboardServiceImpl;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisLeaderboardServiceImplTest {
+
+    private static final List<String> JOURNAL_KEYS = List.of("leaderboard:rebuilding", "leaderboard:journal");
+
+    @Mock
+    private MovieRatingStatsRepository ratingStatsRepository;
+    @Mock
+    private MovieRepository movieRepository;
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+    @Mock
+    private SetOperations<String, String> setOperations;
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @InjectMocks
+    private RedisLeaderboardServiceImpl leaderboardService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+    }
+
+    @Test
+    void getTopRatedMovies_readsSortedSetAndTitles() {
+        Set<ZSetOperations.TypedTuple<String>> ranked = new LinkedHashSet<>(List.of(
+                ZSetOperations.TypedTuple.of("2", 9.0),
+                ZSetOperations.TypedTuple.of("1", 8.0)));
+        when(zSetOperations.reverseRangeWithScores("leaderboard:top-rated", 0, 1)).thenReturn(ranked);
+        when(hashOperations.multiGet("leaderboard:titles", List.of("2", "1")))
+                .thenReturn(Arrays.asList("Alien", null));
+        when(hashOperations.multiGet("leaderboard:genres", List.of("2", "1")))
+                .thenReturn(Arrays.asList("Horror", "Thriller"));
+        when(hashOperations.multiGet("leaderboard:years", List.of("2", "1")))
+                .thenReturn(Arrays.asList("1979", ""));
+        when(movieRepository.findById(1L)).thenReturn(Optional.of(new Movie(1L, "Jaws", "Thriller")));
+
+        List<TopRatedMovie> result = leaderboardService.getTopRatedMovies(null, null, null, 2);
+
+        assertEquals(List.of("Alien", "Jaws"), result.stream().map(TopRatedMovie::getName).toList());
+        assertEquals(9.0, result.get(0).getAverageRating());
+        assertEquals(1979, result.get(0).getReleaseYear());
+        assertNull(result.get(1).getReleaseYear());
+        verify(hashOperations).put("leaderboard:titles", "1", "Jaws");
+    }
+
+    @Test
+    void getTopRatedMovies_emptySet() {
+        when(zSetOperations.reverseRangeWithScores("leaderboard:top-rated", 0, 9)).thenReturn(Set.of());
+
+        assertTrue(leaderboardService.getTopRatedMovies(null, null, null, 10).isEmpty());
+    }
+
+    @Test
+    void getTopRatedMovies_byGenreAndYearRange_mergesDecadesAndFiltersEdges() {
+        when(setOperations.members("leaderboard:decades")).thenReturn(Set.of("1970", "1980", "1990"));
+        when(zSetOperations.reverseRangeWithScores("leaderboard:top-rated:genre:Horror:decade:1970", 0, 9))
+                .thenReturn(new LinkedHashSet<>(List.of(
+                        ZSetOperations.TypedTuple.of("2", 9.0),
+                        ZSetOperations.TypedTuple.of("4", 7.5))));
+        when(zSetOperations.reverseRangeWithScores("leaderboard:top-rated:genre:Horror:decade:1980", 0, 9))
+                .thenReturn(new LinkedHashSet<>(List.of(ZSetOperations.TypedTuple.of("6", 8.0))));
+        when(hashOperations.multiGet("leaderboard:years", List.of("2", "4"))).thenReturn(List.of("1979", "1978"));
+        when(hashOperations.multiGet("leaderboard:years", List.of("6"))).thenReturn(List.of("1981"));
+        when(hashOperations.multiGet("leaderboard:titles", List.of("2", "6")))
+                .thenReturn(List.of("Alien", "The Thing"));
+        when(hashOperations.multiGet("leaderboard:genres", List.of("2", "6"))).thenReturn(List.of("Horror", "Horror"));
+        when(hashOperations.multiGet("leaderboard:years", List.of("2", "6"))).thenReturn(List.of("1979", "1981"));
+
+        List<TopRatedMovie> result = leaderboardService.getTopRatedMovies("Horror", 1979, 1989, 10);
+
+        assertEquals(List.of("Alien", "The Thing"), result.stream().map(TopRatedMovie::getName).toList());
+        verify(zSetOperations, never()).reverseRangeWithScores(eq("leaderboard:top-rated:genre:Horror:decade:1990"),
+                anyLong(), anyLong());
+    }
+
+    @Test
+    void onRatingChanged_runsScriptWithDeltasForAllPartitions() {
+        when(hashOperations.get("leaderboard:genres", "3")).thenReturn("Crime");
+        when(hashOperations.get("leaderboard:years", "3")).thenReturn("1995");
+
+        leaderboardService.onRatingChanged(new RatingChangedEvent(3L, 4, 9));
+
+        InOrder inOrder = inOrder(redisTemplate, catalogVersionService);
+        inOrder.verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(
+                "leaderboard:rebuilding", "leaderboard:journal",
+                "leaderboard:sums", "leaderboard:counts", "leaderboard:top-rated",
+                "leaderboard:top-rated:genre:Crime", "leaderboard:top-rated:decade:1990",
+                "leaderboard:top-rated:genre:Crime:decade:1990")), eq("3"), eq("5"), eq("0"));
+        inOrder.verify(catalogVersionService).ratingsChanged();
+    }
+
+    @Test
+    void onRatingChanged_scriptFails_stillBumpsRatingsVersion() {
+        when(hashOperations.get("leaderboard:genres", "3")).thenReturn("Crime");
+        when(hashOperations.get("leaderboard:years", "3")).thenReturn("1995");
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new IllegalStateException("script failed"));
+
+        assertThrows(IllegalStateException.class,
+                () -> leaderboardService.onRatingChanged(new RatingChangedEvent(3L, 4, 9)));
+
+        verify(catalogVersionService).ratingsChanged();
+    }
+
+    @Test
+    void onRatingChanged_unknownMovie_loadsAttributes() {
+        Movie movie = new Movie(3L, "Heat", "Crime");
+        when(movieRepository.findById(3L)).thenReturn(Optional.of(movie));
+
+        leaderboardService.onRatingChanged(new RatingChangedEvent(3L, null, 7));
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(
+                "leaderboard:rebuilding", "leaderboard:journal", "leaderboard:genres", "leaderboard:years",
+                "leaderboard:titles", "leaderboard:partitions", "leaderboard:decades")),
+                eq("3"), eq("Crime"), eq(""), eq(""), eq("Heat"),
+                eq("leaderboard:top-rated"), eq("leaderboard:top-rated:genre:Crime"));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(
+                "leaderboard:rebuilding", "leaderboard:journal", "leaderboard:sums", "leaderboard:counts", "leaderboard:top-rated",
+                "leaderboard:top-rated:genre:Crime")), eq("3"), eq("7"), eq("1"));
+    }
+
+    @Test
+    void onMovieSaved_genreChanged_movesMovie() {
+        when(hashOperations.get("leaderboard:genres", "3")).thenReturn("Crime");
+        when(hashOperations.get("leaderboard:years", "3")).thenReturn("");
+
+        leaderboardService.onMovieSaved(new MovieSavedEvent(3L, "Heat", "Drama", null));
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(
+                "leaderboard:rebuilding", "leaderboard:journal",
+                "leaderboard:top-rated", "leaderboard:top-rated", "leaderboard:top-rated:genre:Crime",
+                "leaderboard:top-rated", "leaderboard:top-rated:genre:Drama")), eq("3"), eq("2"));
+    }
+
+    @Test
+    void onMovieDeleted_removesMovie() {
+        when(hashOperations.get("leaderboard:genres", "3")).thenReturn("Crime");
+        when(hashOperations.get("leaderboard:years", "3")).thenReturn("1995");
+
+        leaderboardService.onMovieDeleted(new MovieDeletedEvent(3L));
+
+        InOrder inOrder = inOrder(redisTemplate, catalogVersionService);
+        inOrder.verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(
+                "leaderboard:rebuilding", "leaderboard:journal",
+                "leaderboard:top-rated", "leaderboard:top-rated:genre:Crime", "leaderboard:top-rated:decade:1990",
+                "leaderboard:top-rated:genre:Crime:decade:1990", "leaderboard:sums", "leaderboard:counts",
+                "leaderboard:titles", "leaderboard:genres", "leaderboard:years")), eq("3"), eq("4"));
+        inOrder.verify(catalogVersionService).catalogChanged();
+    }
+
+    @Test
+    void rebuild_swapsInAllKeysInOneScript() {
+        MovieRatingSnapshot snapshot = mock(MovieRatingSnapshot.class);
+        when(snapshot.getMovieId()).thenReturn(1L);
+        when(snapshot.getTitle()).thenReturn("Jaws");
+        when(snapshot.getGenre()).thenReturn("Thriller");
+        when(snapshot.getReleaseYear()).thenReturn(1975);
+        when(snapshot.getRatingSum()).thenReturn(17L);
+        when(snapshot.getRatingCount()).thenReturn(2L);
+        when(ratingStatsRepository.findAllRatedSnapshots()).thenReturn(List.of(snapshot));
+        when(setOperations.members("leaderboard:partitions")).thenReturn(Set.of("leaderboard:top-rated:genre:Western"));
+        when(redisTemplate.execute(any(RedisScript.class), eq(JOURNAL_KEYS), anyString(), anyString())).thenReturn(1L);
+        when(redisTemplate.execute(any(RedisScript.class), argThat(keys -> keys.size() > 2), anyString()))
+                .thenReturn(2L);
+
+        assertEquals(1, leaderboardService.rebuild());
+
+        verify(zSetOperations).add("leaderboard:top-rated:rebuild",
+                Set.of(ZSetOperations.TypedTuple.of("1", 8.5)));
+        verify(zSetOperations).add("leaderboard:top-rated:genre:Thriller:decade:1970:rebuild",
+                Set.of(ZSetOperations.TypedTuple.of("1", 8.5)));
+        verify(setOperations).add("leaderboard:decades:rebuild", "1970");
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), anyString());
+        List<String> swapped = keys.getValue();
+        assertEquals(JOURNAL_KEYS, swapped.subList(0, 2));
+        assertSwapped(swapped, "leaderboard:sums");
+        assertSwapped(swapped, "leaderboard:decades");
+        assertSwapped(swapped, "leaderboard:partitions");
+        assertSwapped(swapped, "leaderboard:top-rated");
+        assertSwapped(swapped, "leaderboard:top-rated:genre:Thriller:decade:1970");
+        assertSwapped(swapped, "leaderboard:top-rated:genre:Western");
+        verify(redisTemplate, never()).rename(anyString(), anyString());
+    }
+
+    @Test
+    void rebuild_inProgress_throwsTooManyRequests() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(JOURNAL_KEYS), anyString(), anyString())).thenReturn(0L);
+
+        assertThrows(TooManyRequestsException.class, () -> leaderboardService.rebuild());
+
+        verify(ratingStatsRepository, never()).findAllRatedSnapshots();
+    }
+
+    @Test
+    void rebuild_failed_stopsJournaling() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(JOURNAL_KEYS), anyString(), anyString())).thenReturn(1L);
+        when(ratingStatsRepository.findAllRatedSnapshots()).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> leaderboardService.rebuild());
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(JOURNAL_KEYS), anyString());
+    }
+
+    @Test
+    void seed_rebuildInProgressElsewhere_skips() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(JOURNAL_KEYS), anyString(), anyString())).thenReturn(0L);
+
+        assertDoesNotThrow(() -> leaderboardService.seed());
+    }
+
+    private static void assertSwapped(List<String> keys, String key) {
+        int index = keys.indexOf(key + ":rebuild");
+        assertTrue(index >= 2 && index % 2 == 0, key + " is not swapped");
+        assertEquals(key, keys.get(index + 1));
+    }
+}
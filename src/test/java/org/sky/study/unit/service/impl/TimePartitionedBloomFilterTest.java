@@ -0,0 +1,56 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.sky.study.service.impl.TimePartitionedBloomFilter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimePartitionedBloomFilterTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    void mightContain_addedEntry_isFound() {
+        TimePartitionedBloomFilter filter = new TimePartitionedBloomFilter(5 * MINUTE, 100, 0.01);
+        filter.put("token-1", 12 * MINUTE);
+
+        assertTrue(filter.mightContain("token-1", 12 * MINUTE));
+        assertFalse(filter.mightContain("token-1", 22 * MINUTE));
+        assertFalse(filter.mightContain("token-2", 22 * MINUTE));
+    }
+
+    @Test
+    void mightContain_falsePositiveRateWithinBound() {
+        TimePartitionedBloomFilter filter = new TimePartitionedBloomFilter(5 * MINUTE, 1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("revoked-" + i, MINUTE);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(i >= 1000 || filter.mightContain("revoked-" + i, MINUTE));
+            if (filter.mightContain("valid-" + i, MINUTE)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void expire_dropsOnlyPartitionsThatEnded() {
+        TimePartitionedBloomFilter filter = new TimePartitionedBloomFilter(5 * MINUTE, 100, 0.01);
+        filter.put("old", 2 * MINUTE);
+        filter.put("current", 7 * MINUTE);
+
+        assertEquals(1, filter.expire(6 * MINUTE));
+
+        assertEquals(1, filter.getPartitionCount());
+        assertFalse(filter.mightContain("old", 2 * MINUTE));
+        assertTrue(filter.mightContain("current", 7 * MINUTE));
+    }
+
+    @Test
+    void constructor_invalidRate_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new TimePartitionedBloomFilter(MINUTE, 100, 1.5));
+    }
+}
@@ -0,0 +1,85 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.sky.study.dto.TrendingMovie;
+import org.sky.study.dto.TrendingWindow;
+import org.sky.study.model.projection.RatingActivity;
+import org.sky.study.repository.jpa.RatingRepository;
+import org.sky.study.service.impl.TrendingServiceImpl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TrendingServiceImplTest {
+
+    @Mock
+    private RatingRepository ratingRepository;
+
+    @InjectMocks
+    private TrendingServiceImpl trendingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void getTrendingMovies_mapsMostRatedMovies() {
+        List<RatingActivity> activities = List.of(activity(2L, "Alien", 3), activity(1L, "Jaws", 1));
+        when(ratingRepository.findMostRatedSince(any(), eq(10))).thenReturn(activities);
+
+        List<TrendingMovie> result = trendingService.getTrendingMovies(TrendingWindow.ONE_DAY, 10);
+
+        assertEquals(List.of("Alien", "Jaws"), result.stream().map(TrendingMovie::getName).toList());
+        assertEquals(3, result.get(0).getRatingCount());
+        assertEquals(2L, result.get(0).getId());
+    }
+
+    @Test
+    void getTrendingMovies_lastHour_startsAtFullMinute() {
+        Instant start = windowStart(TrendingWindow.ONE_HOUR);
+
+        assertEquals(0, start.getEpochSecond() % 60);
+        Duration length = Duration.between(start, Instant.now());
+        assertTrue(length.compareTo(Duration.ofMinutes(59)) >= 0 && length.compareTo(Duration.ofMinutes(60)) <= 0);
+    }
+
+    @Test
+    void getTrendingMovies_lastWeek_startsAtFullHour() {
+        Instant start = windowStart(TrendingWindow.ONE_WEEK);
+
+        assertEquals(0, start.getEpochSecond() % 3600);
+        Duration length = Duration.between(start, Instant.now());
+        assertTrue(length.compareTo(Duration.ofHours(167)) >= 0 && length.compareTo(Duration.ofHours(168)) <= 0);
+    }
+
+    @Test
+    void getTrendingMovies_noRatings_returnsEmpty() {
+        when(ratingRepository.findMostRatedSince(any(), anyInt())).thenReturn(List.of());
+
+        assertTrue(trendingService.getTrendingMovies(TrendingWindow.ONE_HOUR, 10).isEmpty());
+    }
+
+    private Instant windowStart(TrendingWindow window) {
+        when(ratingRepository.findMostRatedSince(any(), anyInt())).thenReturn(List.of());
+        trendingService.getTrendingMovies(window, 5);
+        ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+        verify(ratingRepository).findMostRatedSince(since.capture(), eq(5));
+        return since.getValue();
+    }
+
+    private static RatingActivity activity(Long movieId, String title, long ratingCount) {
+        RatingActivity activity = mock(RatingActivity.class);
+        when(activity.getMovieId()).thenReturn(movieId);
+        when(activity.getTitle()).thenReturn(title);
+        when(activity.getRatingCount()).thenReturn(ratingCount);
+        return activity;
+    }
+}
@@ -0,0 +1,147 @@
+package org.sky.study.unit.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.sky.study.event.MovieDeletedEvent;
+import org.sky.study.event.MovieSavedEvent;
+import org.sky.study.model.projection.MovieTitle;
+import org.sky.study.repository.jpa.MovieRepository;
+import org.sky.study.service.impl.TrigramTitleIndexServiceImpl;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TrigramTitleIndexServiceImplTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private TrigramTitleIndexServiceImpl titleIndexService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(listenerContainer.isRunning()).thenReturn(true);
+        when(listenerContainer.isListening()).thenReturn(true);
+        titleIndexService = new TrigramTitleIndexServiceImpl(movieRepository, redisTemplate, listenerContainer);
+    }
+
+    @Test
+    void findMovieIds_beforeRebuild_isEmpty() {
+        assertEquals(Optional.empty(), titleIndexService.findMovieIds("matrix"));
+    }
+
+    @Test
+    void findMovieIds_matchesSubstringIgnoringCase() {
+        List<MovieTitle> titles = List.of(title(1L, "The Matrix"), title(2L, "Matrix Reloaded"),
+                title(3L, "Inception"), title(4L, "Tarixma"));
+        when(movieRepository.findAllTitles()).thenReturn(titles);
+
+        titleIndexService.synchronize();
+
+        assertEquals(Optional.of(List.of(1L, 2L)), titleIndexService.findMovieIds("MATRIX"));
+        assertEquals(Optional.of(List.of(3L)), titleIndexService.findMovieIds("cept"));
+        assertEquals(Optional.of(List.of()), titleIndexService.findMovieIds("xyz"));
+    }
+
+    @Test
+    void findMovieIds_trigramsInWrongOrder_areNotMatched() {
+        List<MovieTitle> titles = List.of(title(1L, "abcd bcde"));
+        when(movieRepository.findAllTitles()).thenReturn(titles);
+        titleIndexService.synchronize();
+
+        assertEquals(Optional.of(List.of()), titleIndexService.findMovieIds("abcde"));
+    }
+
+    @Test
+    void findMovieIds_shortTerm_isLeftToDatabase() {
+        when(movieRepository.findAllTitles()).thenReturn(List.of());
+        titleIndexService.synchronize();
+
+        assertEquals(Optional.empty(), titleIndexService.findMovieIds("ab"));
+    }
+
+    @Test
+    void movieEvents_keepIndexCurrent() {
+        when(movieRepository.findAllTitles()).thenReturn(List.of());
+        titleIndexService.synchronize();
+
+        titleIndexService.onMovieSaved(new MovieSavedEvent(5L, "Alien", "Horror", 1979));
+        titleIndexService.onMovieSaved(new MovieSavedEvent(3L, "Aliens", "Action", 1986));
+        assertEquals(Optional.of(List.of(3L, 5L)), titleIndexService.findMovieIds("alien"));
+
+        titleIndexService.onMovieSaved(new MovieSavedEvent(5L, "Jaws", "Thriller", 1975));
+        assertEquals(Optional.of(List.of(3L)), titleIndexService.findMovieIds("alien"));
+        assertEquals(Optional.of(List.of(5L)), titleIndexService.findMovieIds("jaws"));
+
+        titleIndexService.onMovieDeleted(new MovieDeletedEvent(3L));
+        assertEquals(Optional.of(List.of()), titleIndexService.findMovieIds("alien"));
+        verify(redisTemplate).convertAndSend(eq("movies:titles"), endsWith("\n5\nJaws"));
+        verify(redisTemplate).convertAndSend(eq("movies:titles"), endsWith("\n3"));
+    }
+
+    @Test
+    void findMovieIds_wildcards_matchLiterally() {
+        List<MovieTitle> titles = List.of(title(1L, "100% Wolf"), title(2L, "1000 Wolves"), title(3L, "my_film"));
+        when(movieRepository.findAllTitles()).thenReturn(titles);
+        titleIndexService.synchronize();
+
+        assertEquals(Optional.of(List.of(1L)), titleIndexService.findMovieIds("00% w"));
+        assertEquals(Optional.of(List.of(3L)), titleIndexService.findMovieIds("y_f"));
+        assertEquals(Optional.of(List.of()), titleIndexService.findMovieIds("0_0"));
+    }
+
+    @Test
+    void onMessage_appliesChangesOfOtherNodes() {
+        List<MovieTitle> titles = List.of(title(1L, "Alien"));
+        when(movieRepository.findAllTitles()).thenReturn(titles);
+        titleIndexService.synchronize();
+
+        titleIndexService.onMessage(message("other-node\n7\nAliens"), null);
+        assertEquals(Optional.of(List.of(1L, 7L)), titleIndexService.findMovieIds("alien"));
+
+        titleIndexService.onMessage(message("other-node\n1"), null);
+        assertEquals(Optional.of(List.of(7L)), titleIndexService.findMovieIds("alien"));
+    }
+
+    @Test
+    void findMovieIds_notSubscribed_isLeftToDatabase() {
+        List<MovieTitle> titles = List.of(title(1L, "Alien"));
+        when(movieRepository.findAllTitles()).thenReturn(titles);
+        when(listenerContainer.isListening()).thenReturn(false);
+        titleIndexService.synchronize();
+
+        titleIndexService.rebuild();
+        assertEquals(Optional.empty(), titleIndexService.findMovieIds("alien"));
+
+        when(listenerContainer.isListening()).thenReturn(true);
+        titleIndexService.synchronize();
+        assertEquals(Optional.of(List.of(1L)), titleIndexService.findMovieIds("alien"));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("movies:titles".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MovieTitle title(Long id, String title) {
+        MovieTitle movieTitle = mock(MovieTitle.class);
+        when(movieTitle.getId()).thenReturn(id);
+        when(movieTitle.getTitle()).thenReturn(title);
+        return movieTitle;
+    }
+}
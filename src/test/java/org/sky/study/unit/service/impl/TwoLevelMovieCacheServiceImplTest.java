@@ -0,0 +1,235 @@
+package org.sky.study.unit.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.sky.study.event.MovieSavedEvent;
+import org.sky.study.exception.ResourceNotFoundException;
+import org.sky.study.model.jpa.Movie;
+import org.sky.study.service.impl.TwoLevelMovieCacheServiceImpl;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TwoLevelMovieCacheServiceImplTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MeterRegistry meterRegistry;
+    private TwoLevelMovieCacheServiceImpl movieCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(listenerContainer.isListening()).thenReturn(true);
+        meterRegistry = new SimpleMeterRegistry();
+        movieCache = new TwoLevelMovieCacheServiceImpl(redisTemplate, listenerContainer, objectMapper,
+                meterRegistry, 2, 60);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_miss_loadsOnceAndCachesBothLevels() throws Exception {
+        Movie first = movieCache.get(1L, this::load);
+        Movie second = movieCache.get(1L, this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals("Movie 1", second.getTitle());
+        assertNotSame(first, second);
+        verify(valueOperations).set("movie:1", objectMapper.writeValueAsString(movie(1L)), Duration.ofSeconds(60));
+        assertEquals(1.0, meterRegistry.get("movies.cache.misses").counter().count());
+        assertEquals(1.0, meterRegistry.get("movies.cache.hits").tag("level", "local").counter().count());
+    }
+
+    @Test
+    void get_sharedHit_skipsDatabase() throws Exception {
+        when(valueOperations.get("movie:2")).thenReturn(objectMapper.writeValueAsString(movie(2L)));
+
+        assertEquals("Movie 2", movieCache.get(2L, this::load).getTitle());
+        movieCache.get(2L, this::load);
+
+        assertEquals(0, loads.get());
+        verify(valueOperations, times(1)).get("movie:2");
+        assertEquals(1.0, meterRegistry.get("movies.cache.hits").tag("level", "redis").counter().count());
+    }
+
+    @Test
+    void get_notFound_isNotCached() {
+        Function<Long, Movie> missing = id -> {
+            throw new ResourceNotFoundException("Movie with ID " + id + " not found");
+        };
+
+        assertThrows(ResourceNotFoundException.class, () -> movieCache.get(9L, missing));
+        assertEquals(0, movieCache.getLocalSize());
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void get_redisDown_fallsBackToDatabase() {
+        when(valueOperations.get("movie:3")).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertEquals("Movie 3", movieCache.get(3L, this::load).getTitle());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_invalidatedWhileLoading_isNotCached() {
+        movieCache.get(4L, id -> {
+            movieCache.onMovieSaved(new MovieSavedEvent(id, "Renamed", "Drama", 2000));
+            return load(id);
+        });
+
+        assertEquals(0, movieCache.getLocalSize());
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void getVersion_answersFromNearCacheOnly() {
+        assertEquals(Optional.empty(), movieCache.getVersion(4L));
+
+        Movie stored = movie(4L);
+        stored.setVersion(3L);
+        movieCache.get(4L, id -> stored);
+
+        assertEquals(Optional.of(3L), movieCache.getVersion(4L));
+        movieCache.invalidate(4L);
+        assertEquals(Optional.empty(), movieCache.getVersion(4L));
+        verify(valueOperations, times(1)).get("movie:4");
+    }
+
+    @Test
+    void get_beyondLocalSize_evictsLeastRecentlyUsed() {
+        movieCache.get(1L, this::load);
+        movieCache.get(2L, this::load);
+        movieCache.get(1L, this::load);
+        movieCache.get(3L, this::load);
+
+        assertEquals(2, movieCache.getLocalSize());
+        assertEquals(1.0, meterRegistry.get("movies.cache.evictions").counter().count());
+        movieCache.get(1L, this::load);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void get_notSubscribed_cachesNothing() {
+        when(listenerContainer.isListening()).thenReturn(false);
+
+        movieCache.get(7L, this::load);
+
+        assertEquals(0, movieCache.getLocalSize());
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void subscribe_redisDown_retriesLater() {
+        doThrow(new RedisConnectionFailureException("down")).when(listenerContainer).start();
+
+        assertDoesNotThrow(() -> movieCache.subscribe());
+        when(listenerContainer.isRunning()).thenReturn(true);
+        movieCache.subscribe();
+
+        verify(listenerContainer, times(1)).start();
+    }
+
+    @Test
+    void invalidate_dropsBothLevelsAndNotifiesOtherNodes() {
+        movieCache.get(5L, this::load);
+
+        movieCache.invalidate(5L);
+
+        assertEquals(0, movieCache.getLocalSize());
+        verify(redisTemplate).delete("movie:5");
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("movies:invalidate"), message.capture());
+        assertTrue(message.getValue().endsWith(":5"));
+
+        movieCache.onMessage(new DefaultMessage("movies:invalidate".getBytes(StandardCharsets.UTF_8),
+                message.getValue().getBytes(StandardCharsets.UTF_8)), null);
+        movieCache.get(5L, this::load);
+        assertEquals(1.0, meterRegistry.get("movies.cache.invalidations").counter().count());
+    }
+
+    @Test
+    void onMessage_fromOtherNode_dropsLocalCopy() {
+        movieCache.get(6L, this::load);
+
+        movieCache.onMessage(new DefaultMessage("movies:invalidate".getBytes(StandardCharsets.UTF_8),
+                "other-node:6".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals(0, movieCache.getLocalSize());
+        verify(redisTemplate).delete("movie:6");
+    }
+
+    @Test
+    void get_staleLoadOnOtherNode_isDroppedFromRedis() {
+        Map<String, String> redis = new HashMap<>();
+        List<String> published = new ArrayList<>();
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        when(redisTemplate.delete(anyString())).thenAnswer(invocation -> redis.remove(invocation.<String>getArgument(0)) != null);
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenAnswer(invocation -> {
+            published.add(invocation.getArgument(1));
+            return 1L;
+        });
+        TwoLevelMovieCacheServiceImpl otherNode = new TwoLevelMovieCacheServiceImpl(redisTemplate, listenerContainer,
+                objectMapper, new SimpleMeterRegistry(), 2, 60);
+        Movie renamed = movie(8L);
+        renamed.setTitle("Renamed");
+
+        // the other node loads the old movie while this node saves the new one and
+        // invalidates, but the invalidation reaches the other node only afterwards
+        otherNode.get(8L, id -> {
+            movieCache.onMovieSaved(new MovieSavedEvent(id, "Renamed", "Drama", 2000));
+            return load(id);
+        });
+        assertTrue(redis.containsKey("movie:8"));
+
+        otherNode.onMessage(new DefaultMessage("movies:invalidate".getBytes(StandardCharsets.UTF_8),
+                published.get(0).getBytes(StandardCharsets.UTF_8)), null);
+
+        assertFalse(redis.containsKey("movie:8"));
+        assertEquals("Renamed", movieCache.get(8L, id -> renamed).getTitle());
+        assertEquals("Renamed", otherNode.get(8L, this::load).getTitle());
+    }
+
+    private Movie load(Long id) {
+        loads.incrementAndGet();
+        return movie(id);
+    }
+
+    private static Movie movie(Long id) {
+        Movie movie = new Movie(id, "Movie " + id, "Drama");
+        movie.setReleaseYear(2000);
+        return movie;
+    }
+}
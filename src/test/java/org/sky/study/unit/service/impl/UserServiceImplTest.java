@@ -5,10 +5,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.sky.study.dto.DeletionJob;
 import org.sky.study.model.jpa.User;
 import org.sky.study.repository.jpa.UserRepository;
+import org.sky.study.security.UserPrincipal;
+import org.sky.study.service.EntityDeletionService;
+import org.sky.study.service.impl.JwtServiceImpl;
 import org.sky.study.service.impl.UserServiceImpl;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -28,6 +33,10 @@ class UserServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private EntityDeletionService entityDeletionService;
+    @Mock
+    private JwtServiceImpl jwtService;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -41,6 +50,7 @@ class UserServiceImplTest {
     @Test
     void loadUserByUsername_success() {
         User user = new User();
+        user.setId(7L);
         user.setUsername("john");
         user.setPassword("pass");
         user.setRoles("USER");
@@ -48,6 +58,7 @@ class UserServiceImplTest {
 
         var userDetails = userService.loadUserByUsername("john");
 
+        assertEquals(7L, ((UserPrincipal) userDetails).getId());
         assertEquals("john", userDetails.getUsername());
         assertEquals("pass", userDetails.getPassword());
         assertTrue(userDetails.getAuthorities().stream().anyMatch(
@@ -82,10 +93,13 @@ class UserServiceImplTest {
         user.setUsername("self");
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         mockAuthentication("self", "ROLE_USER");
+        DeletionJob job = new DeletionJob("job-1", "USER", 1L, 2);
+        when(entityDeletionService.deleteUser(1L)).thenReturn(job);
 
-        userService.deleteUserById(1L);
+        assertSame(job, userService.deleteUserById(1L));
 
-        verify(userRepository).deleteById(1L);
+        verify(entityDeletionService).deleteUser(1L);
+        verify(jwtService).revokeUserTokens(1L);
     }
 
     @Test
@@ -98,7 +112,7 @@ class UserServiceImplTest {
 
         userService.deleteUserById(2L);
 
-        verify(userRepository).deleteById(2L);
+        verify(entityDeletionService).deleteUser(2L);
     }
 
     @Test
@@ -110,7 +124,8 @@ class UserServiceImplTest {
         mockAuthentication("attacker", "ROLE_USER");
 
         assertThrows(AccessDeniedException.class, () -> userService.deleteUserById(3L));
-        verify(userRepository, never()).deleteById(any());
+        verifyNoInteractions(entityDeletionService);
+        verifyNoInteractions(jwtService);
     }
 
     @Test
@@ -120,6 +135,23 @@ class UserServiceImplTest {
         assertThrows(UsernameNotFoundException.class, () -> userService.deleteUserById(99L));
     }
 
+    @Test
+    void revokeUserTokens_success() {
+        when(userRepository.existsById(3L)).thenReturn(true);
+
+        userService.revokeUserTokens(3L);
+
+        verify(jwtService).revokeUserTokens(3L);
+    }
+
+    @Test
+    void revokeUserTokens_notFound() {
+        when(userRepository.existsById(3L)).thenReturn(false);
+
+        assertThrows(UsernameNotFoundException.class, () -> userService.revokeUserTokens(3L));
+        verifyNoInteractions(jwtService);
+    }
+
     @Test
     void getUser_success() {
         User user = new User();
@@ -140,6 +172,25 @@ class UserServiceImplTest {
         assertTrue(userService.isUserExists("exists"));
     }
 
+    @Test
+    void getCurrentUserId_fromPrincipal() {
+        UserPrincipal principal = new UserPrincipal(7L, "john", "pass", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        assertEquals(7L, userService.getCurrentUserId());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getCurrentUserId_withoutIdInPrincipal_looksUpUsername() {
+        when(userRepository.findIdByUsername("john")).thenReturn(Optional.of(8L));
+        mockAuthentication("john", "ROLE_USER");
+
+        assertEquals(8L, userService.getCurrentUserId());
+        verify(userRepository, never()).findByUsername(any());
+    }
+
     // Helper to mock authentication context
     private void mockAuthentication(String username, String role) {
         Authentication auth = mock(Authentication.class);